@@ -0,0 +1,19 @@
+plugins {
+    id("me.champeau.gradle.jmh") version "0.5.2"
+}
+
+dependencies {
+    jmh("org.openjdk.jmh:jmh-core:latest.release")
+    jmh("org.openjdk.jmh:jmh-generator-annprocess:latest.release")
+
+    jmh(project(":rewrite-java-11"))
+    jmh(project(":rewrite-maven"))
+    jmh(project(":rewrite-xml"))
+}
+
+jmh {
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    duration = "5s"
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.benchmarks.java;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrewrite.Refactor;
+import org.openrewrite.java.Java11Parser;
+import org.openrewrite.java.OrderImports;
+import org.openrewrite.java.tree.J;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders the imports of files with hundreds of imports, half of them unused, so that the references that decide which
+ * imports are unused have to be gathered from every file. Run with {@code -prof gc} to see the allocation rate.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class OrderImportsBenchmark {
+    @Param({"100"})
+    int files;
+
+    @Param({"300"})
+    int imports;
+
+    List<J.CompilationUnit> cus;
+
+    @Setup
+    public void setup() {
+        List<String> sources = new ArrayList<>(files + imports);
+        for (int i = 0; i < imports; i++) {
+            sources.add("package org.openrewrite.benchmarks.types" + (i % 10) + ";\n\n" +
+                    "public class Type" + i + " {\n" +
+                    "    public static int value" + i + "() { return " + i + "; }\n" +
+                    "}\n");
+        }
+
+        for (int f = 0; f < files; f++) {
+            StringBuilder source = new StringBuilder("package org.openrewrite.benchmarks;\n\n");
+            for (int i = 0; i < imports; i++) {
+                source.append("import org.openrewrite.benchmarks.types").append(i % 10).append(".Type").append(i).append(";\n");
+            }
+            for (int i = 0; i < imports; i += 2) {
+                source.append("import static org.openrewrite.benchmarks.types").append(i % 10)
+                        .append(".Type").append(i).append(".value").append(i).append(";\n");
+            }
+            source.append("\npublic class Imports").append(f).append(" {\n");
+            for (int i = 0; i < imports; i += 2) {
+                source.append("    Type").append(i).append(" field").append(i).append(";\n")
+                        .append("    int method").append(i).append("() { return value").append(i).append("(); }\n");
+            }
+            source.append("}\n");
+            sources.add(source.toString());
+        }
+
+        cus = new ArrayList<>(files);
+        for (J.CompilationUnit cu : Java11Parser.builder().build().parse(sources.toArray(new String[0]))) {
+            if (cu.getClasses().get(0).getSimpleName().startsWith("Imports")) {
+                cus.add(cu);
+            }
+        }
+    }
+
+    @Benchmark
+    public void orderAndRemoveUnused(Blackhole blackhole) {
+        blackhole.consume(new Refactor().visit(new OrderImports()).fix(cus));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.benchmarks.java;
+
+import org.openjdk.jmh.annotations.*;
+import org.openrewrite.TreeIdGenerator;
+import org.openrewrite.java.Java11Parser;
+import org.openrewrite.java.tree.J;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every element of a parsed tree gets an id, so the cost of generating ids is paid once per element
+ * on every parse.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ParseJavaBenchmark {
+    @Param({"random", "sequential"})
+    String ids;
+
+    @Param({"1000", "5000"})
+    int lines;
+
+    String source;
+    TreeIdGenerator idGenerator;
+
+    @Setup
+    public void setup() {
+        StringBuilder source = new StringBuilder("package org.openrewrite.benchmarks;\n\npublic class Large {\n");
+        for (int i = 0; i < lines / 5; i++) {
+            source.append("    // method ").append(i).append("\n")
+                    .append("    public int method").append(i).append("(int n) {\n")
+                    .append("        int m = n * ").append(i).append(" + 1;\n")
+                    .append("        return m > 0 ? m : -m;\n")
+                    .append("    }\n");
+        }
+        source.append("}\n");
+        this.source = source.toString();
+
+        idGenerator = "random".equals(ids) ? TreeIdGenerator.random() : TreeIdGenerator.sequential();
+    }
+
+    @Benchmark
+    public List<J.CompilationUnit> parse() {
+        return Java11Parser.builder()
+                .idGenerator(idGenerator)
+                .build()
+                .parse(source);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.benchmarks.java;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrewrite.java.Java11Parser;
+import org.openrewrite.java.tree.J;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Printing should scale linearly with the size of the source file, so the average time per line
+ * should remain roughly constant as the number of lines grows.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class PrintJavaBenchmark {
+    @Param({"1000", "5000", "10000"})
+    int lines;
+
+    J.CompilationUnit cu;
+
+    @Setup
+    public void setup() {
+        StringBuilder source = new StringBuilder("package org.openrewrite.benchmarks;\n\npublic class Large {\n");
+        for (int i = 0; i < lines / 5; i++) {
+            source.append("    // method ").append(i).append("\n")
+                    .append("    public int method").append(i).append("(int n) {\n")
+                    .append("        int m = n * ").append(i).append(" + 1;\n")
+                    .append("        return m > 0 ? m : -m;\n")
+                    .append("    }\n");
+        }
+        source.append("}\n");
+
+        cu = Java11Parser.builder().build().parse(source.toString()).get(0);
+    }
+
+    @Benchmark
+    public String print() {
+        return cu.print();
+    }
+
+    @Benchmark
+    public void printToAppendable(Blackhole blackhole) {
+        StringBuilder out = new StringBuilder();
+        cu.print(out);
+        blackhole.consume(out);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.benchmarks.java;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrewrite.java.ChangeMethodName;
+import org.openrewrite.java.Java11Parser;
+import org.openrewrite.java.JavaIsoRefactorVisitor;
+import org.openrewrite.java.tree.J;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A visitor that changes nothing should allocate no new trees, and one that changes a single method should only
+ * copy the path from that method up to its compilation unit. Run with {@code -prof gc} to see the allocation rate.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class RefactorJavaBenchmark {
+    @Param({"100"})
+    int files;
+
+    @Param({"1000"})
+    int lines;
+
+    List<J.CompilationUnit> cus;
+
+    @Setup
+    public void setup() {
+        List<String> sources = new ArrayList<>(files);
+        for (int f = 0; f < files; f++) {
+            StringBuilder source = new StringBuilder("package org.openrewrite.benchmarks;\n\npublic class Large" + f + " {\n");
+            for (int i = 0; i < lines / 5; i++) {
+                source.append("    // method ").append(i).append("\n")
+                        .append("    public int method").append(i).append("(int n) {\n")
+                        .append("        int m = n * ").append(i).append(" + 1;\n")
+                        .append("        return m > 0 ? m : -m;\n")
+                        .append("    }\n");
+            }
+            source.append("}\n");
+            sources.add(source.toString());
+        }
+
+        cus = Java11Parser.builder().build().parse(sources.toArray(new String[0]));
+    }
+
+    @Benchmark
+    public void noOp(Blackhole blackhole) {
+        JavaIsoRefactorVisitor visitor = new JavaIsoRefactorVisitor();
+        for (J.CompilationUnit cu : cus) {
+            visitor.next();
+            blackhole.consume(visitor.visit(cu));
+        }
+    }
+
+    @Benchmark
+    public void changeOneMethodName(Blackhole blackhole) {
+        ChangeMethodName visitor = new ChangeMethodName();
+        visitor.setMethod("org.openrewrite.benchmarks.Large0 method0(int)");
+        visitor.setName("renamed");
+        for (J.CompilationUnit cu : cus) {
+            visitor.next();
+            blackhole.consume(visitor.visit(cu));
+        }
+    }
+}
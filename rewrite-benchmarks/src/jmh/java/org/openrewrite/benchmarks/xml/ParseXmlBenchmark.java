@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.benchmarks.xml;
+
+import org.openjdk.jmh.annotations.*;
+import org.openrewrite.Parser;
+import org.openrewrite.xml.XmlParser;
+import org.openrewrite.xml.tree.Xml;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a corpus of large POMs, each read from its own input as it would be from disk, with either the ANTLR
+ * grammar or the hand-written scanner.
+ * Run with {@code -prof gc} to see the allocation rate.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ParseXmlBenchmark {
+    @Param({"10"})
+    int files;
+
+    @Param({"5000"})
+    int dependencies;
+
+    @Param({"false", "true"})
+    boolean scanner;
+
+    List<Parser.Input> inputs;
+
+    @Setup
+    public void setup() {
+        inputs = new ArrayList<>(files);
+        for (int f = 0; f < files; f++) {
+            StringBuilder source = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                    "<project>\n" +
+                    "  <groupId>org.openrewrite.benchmarks</groupId>\n" +
+                    "  <artifactId>large" + f + "</artifactId>\n" +
+                    "  <version>1</version>\n" +
+                    "  <dependencies>\n");
+            for (int i = 0; i < dependencies; i++) {
+                source.append("    <!-- dependency ").append(i).append(" -->\n")
+                        .append("    <dependency scope=\"compile\">\n")
+                        .append("      <groupId>org.openrewrite.benchmarks</groupId>\n")
+                        .append("      <artifactId>artifact").append(i).append("</artifactId>\n")
+                        .append("      <version>1.0.").append(i).append("</version>\n")
+                        .append("    </dependency>\n");
+            }
+            source.append("  </dependencies>\n</project>\n");
+
+            byte[] bytes = source.toString().getBytes(StandardCharsets.UTF_8);
+            inputs.add(new Parser.Input(URI.create("file:///large" + f + "/pom.xml"), () -> new ByteArrayInputStream(bytes)));
+        }
+    }
+
+    @Benchmark
+    public List<Xml.Document> parse() {
+        return XmlParser.builder().scanner(scanner).build().parseInputs(inputs, null);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.benchmarks.xml;
+
+import org.openjdk.jmh.annotations.*;
+import org.openrewrite.Tree;
+import org.openrewrite.xml.AbstractXmlSourceVisitor;
+import org.openrewrite.xml.XPathMatcher;
+import org.openrewrite.xml.XmlParser;
+import org.openrewrite.xml.tree.Xml;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matches XPath expressions against every tag of a roughly 5 MB POM, as a Maven visitor does.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class XPathMatcherBenchmark {
+    @Param({"/project/dependencies/dependency/version", "//artifactId", "dependencies/dependency/@scope"})
+    String xpath;
+
+    Xml.Document pom;
+
+    @Setup
+    public void setup() {
+        StringBuilder source = new StringBuilder("<project>\n" +
+                "  <groupId>org.openrewrite.benchmarks</groupId>\n" +
+                "  <artifactId>large</artifactId>\n" +
+                "  <version>1</version>\n" +
+                "  <dependencies>\n");
+        for (int i = 0; i < 25_000; i++) {
+            source.append("    <dependency scope=\"compile\">\n")
+                    .append("      <groupId>org.openrewrite.benchmarks</groupId>\n")
+                    .append("      <artifactId>artifact").append(i).append("</artifactId>\n")
+                    .append("      <version>1.0.").append(i).append("</version>\n")
+                    .append("    </dependency>\n");
+        }
+        source.append("  </dependencies>\n</project>\n");
+
+        pom = new XmlParser().parse(source.toString()).get(0);
+    }
+
+    @Benchmark
+    public int countMatches() {
+        return new CountMatches(new XPathMatcher(xpath)).visit(pom);
+    }
+
+    /**
+     * Counts rather than collects matches, so that the measurement isn't dominated by list concatenation in reduce.
+     */
+    private static class CountMatches extends AbstractXmlSourceVisitor<Integer> {
+        private final XPathMatcher matcher;
+
+        CountMatches(XPathMatcher matcher) {
+            this.matcher = matcher;
+            setCursoringOn();
+        }
+
+        @Override
+        public Integer defaultTo(Tree t) {
+            return 0;
+        }
+
+        @Override
+        public Integer reduce(Integer r1, Integer r2) {
+            return r1 + r2;
+        }
+
+        @Override
+        public Integer visitTag(Xml.Tag tag) {
+            return super.visitTag(tag) + (matcher.matches(getCursor()) ? 1 : 0);
+        }
+
+        @Override
+        public Integer visitAttribute(Xml.Attribute attribute) {
+            return super.visitAttribute(attribute) + (matcher.matches(getCursor()) ? 1 : 0);
+        }
+    }
+}
@@ -21,12 +21,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
 
-public class AbstractRefactorVisitor<T extends Tree> extends AbstractSourceVisitor<T> implements RefactorVisitor<T> {
-    private final ThreadLocal<List<RefactorVisitor<? extends T>>> andThen = new ThreadLocal<>();
-
-    public AbstractRefactorVisitor() {
-        andThen.set(new ArrayList<>());
-    }
+public class AbstractRefactorVisitor<T extends Tree> extends AbstractSourceVisitor<T> implements RefactorVisitor<T>, Cloneable {
+    private final ThreadLocal<List<RefactorVisitor<? extends T>>> andThen = ThreadLocal.withInitial(ArrayList::new);
 
     /**
      * Used to build up pipelines of visitors.
@@ -61,26 +57,40 @@ public class AbstractRefactorVisitor<T extends Tree> extends AbstractSourceVisit
             return null;
         }
 
-        List<T1> mutatedTrees = new ArrayList<>(trees.size());
-        boolean changed = false;
-        for (T1 tree : trees) {
+        // only copy the list once an element has changed, so that refactoring an unchanged list allocates nothing
+        List<T1> mutatedTrees = null;
+        for (int i = 0; i < trees.size(); i++) {
+            T1 tree = trees.get(i);
             T1 mutated = refactor(tree);
-            if(mutated != tree) {
-                changed = true;
+            if (mutatedTrees == null && mutated != tree) {
+                mutatedTrees = new ArrayList<>(trees.size());
+                mutatedTrees.addAll(trees.subList(0, i));
+            }
+            if (mutatedTrees != null) {
+                mutatedTrees.add(mutated);
             }
-            mutatedTrees.add(mutated);
         }
 
-        return changed ? mutatedTrees : trees;
+        return mutatedTrees == null ? trees : mutatedTrees;
     }
 
     public void next() {
-        synchronized (this) {
-            if (andThen.get() != null) {
-                andThen.get().clear();
-            } else {
-                andThen.set(new ArrayList<>());
-            }
+        andThen.get().clear();
+    }
+
+    /**
+     * A shallow copy, which is enough for visitors whose per-source state is (re)assigned to fields as each
+     * source is visited. The pipeline and cursor are already confined to the thread doing the visiting. A
+     * visitor that keeps per-source state in a mutable object it never reassigns must override this to give
+     * the copy its own.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public RefactorVisitor<T> copyForWorker() {
+        try {
+            return (RefactorVisitor<T>) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
         }
     }
 }
@@ -0,0 +1,425 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.openrewrite.internal.StringUtils;
+import org.openrewrite.internal.lang.NonNullApi;
+import org.openrewrite.internal.lang.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A disk-backed cache in front of another parser. Each input is keyed by its content, its path, the parser that
+ * produces it and a caller-supplied fingerprint of anything else that affects the resulting tree, like the classpath
+ * and styles. Inputs whose key is found in the cache are deserialized rather than parsed.
+ * <p>
+ * For languages where the tree of one input depends on other inputs, like the type attribution of Java sources,
+ * build the cache with {@link Builder#dependentInputs(boolean)} so that a change to any input causes every input to be
+ * parsed again. Keys of dependent inputs also cover the paths and contents of the whole input set, so that adding,
+ * removing or renaming an input invalidates every entry as well.
+ * <p>
+ * Unreadable cache entries are deleted and treated as misses. When the cache grows past its maximum size, the least
+ * recently used entries are evicted.
+ */
+@NonNullApi
+public class CachingParser<S extends SourceFile> implements Parser<S> {
+    private static final Logger logger = LoggerFactory.getLogger(CachingParser.class);
+
+    private static final String ENTRY_SUFFIX = ".smile";
+
+    private final Parser<S> delegate;
+    private final Path cacheDirectory;
+    private final String fingerprint;
+    private final long maximumSize;
+    private final boolean dependentInputs;
+    private final TreeSerializer<S> serializer = new TreeSerializer<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter corrupt;
+
+    private CachingParser(Parser<S> delegate,
+                          Path cacheDirectory,
+                          String fingerprint,
+                          long maximumSize,
+                          boolean dependentInputs,
+                          MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cacheDirectory = cacheDirectory;
+        this.fingerprint = fingerprint;
+        this.maximumSize = maximumSize;
+        this.dependentInputs = dependentInputs;
+
+        String parser = delegate.getClass().getSimpleName();
+        this.hits = lookups(meterRegistry, parser, "hit");
+        this.misses = lookups(meterRegistry, parser, "miss");
+        this.corrupt = lookups(meterRegistry, parser, "corrupt");
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String parser, String outcome) {
+        return Counter.builder("rewrite.parse.cache")
+                .description("Lookups of source files in the parse cache")
+                .tag("parser", parser)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public static <S extends SourceFile> Builder<S> builder(Parser<S> delegate, Path cacheDirectory) {
+        return new Builder<>(delegate, cacheDirectory);
+    }
+
+    @Override
+    public List<S> parseInputs(Iterable<Input> sources, @Nullable URI relativeTo) {
+        List<Input> inputs = acceptedInputs(sources);
+
+        Map<Input, byte[]> contents = new IdentityHashMap<>();
+        for (Input input : inputs) {
+            contents.put(input, readFully(input));
+        }
+
+        byte[] inputSet = dependentInputs ? inputSetDigest(inputs, contents, relativeTo) : new byte[0];
+
+        Map<Input, String> keys = new IdentityHashMap<>();
+        Map<Input, S> cached = new IdentityHashMap<>();
+        for (Input input : inputs) {
+            if (!input.isSynthetic()) {
+                String key = key(input.getRelativePath(relativeTo), contents.get(input), inputSet);
+                keys.put(input, key);
+                S sourceFile = read(key);
+                if (sourceFile != null) {
+                    cached.put(input, sourceFile);
+                }
+            }
+        }
+
+        List<Input> toParse = inputs.stream()
+                .filter(input -> !cached.containsKey(input))
+                .collect(toList());
+
+        if (dependentInputs && !toParse.isEmpty()) {
+            cached.clear();
+            toParse = inputs;
+        }
+
+        hits.increment(cached.size());
+        misses.increment(toParse.size());
+
+        Map<Input, S> parsed = new IdentityHashMap<>();
+        List<S> unmatched = Collections.emptyList();
+        if (!toParse.isEmpty()) {
+            List<S> parsedSources = delegate.parseInputs(toParse.stream()
+                    .map(input -> new Input(input.getUri(),
+                            () -> new ByteArrayInputStream(contents.get(input)),
+                            input.isSynthetic()))
+                    .collect(toList()), relativeTo);
+            unmatched = matchToInputs(toParse, parsedSources, relativeTo, parsed);
+        }
+
+        List<S> results = new ArrayList<>(inputs.size());
+        for (Input input : inputs) {
+            S sourceFile = cached.get(input);
+            if (sourceFile == null) {
+                sourceFile = parsed.get(input);
+                if (sourceFile != null && keys.containsKey(input)) {
+                    write(keys.get(input), sourceFile);
+                }
+            }
+            if (sourceFile != null) {
+                results.add(sourceFile);
+            }
+        }
+        results.addAll(unmatched);
+
+        if (!toParse.isEmpty()) {
+            evict();
+        }
+
+        return results;
+    }
+
+    @Override
+    public boolean accept(URI path) {
+        return delegate.accept(path);
+    }
+
+    @Override
+    public boolean accept(Input input) {
+        return delegate.accept(input);
+    }
+
+    @Override
+    public Parser<S> reset() {
+        delegate.reset();
+        return this;
+    }
+
+    /**
+     * Parsers return their source files in the order of their inputs, but may leave out inputs that they failed to
+     * parse. When the counts differ, the source path is only used to tell which inputs were left out, and any source
+     * file that can't be placed this way is returned uncached rather than matched to the wrong input.
+     *
+     * @return The parsed source files that couldn't be matched to an input.
+     */
+    private List<S> matchToInputs(List<Input> toParse, List<S> parsedSources, @Nullable URI relativeTo,
+                                  Map<Input, S> parsed) {
+        if (parsedSources.size() == toParse.size()) {
+            for (int i = 0; i < toParse.size(); i++) {
+                parsed.put(toParse.get(i), parsedSources.get(i));
+            }
+            return Collections.emptyList();
+        }
+
+        int next = 0;
+        for (Input input : toParse) {
+            if (next < parsedSources.size() && parsedSources.get(next).getSourcePath()
+                    .equals(input.getRelativePath(relativeTo).toString())) {
+                parsed.put(input, parsedSources.get(next++));
+            }
+        }
+
+        return parsedSources.subList(next, parsedSources.size());
+    }
+
+    private static byte[] inputSetDigest(List<Input> inputs, Map<Input, byte[]> contents, @Nullable URI relativeTo) {
+        try {
+            List<String> entries = new ArrayList<>(inputs.size());
+            for (Input input : inputs) {
+                entries.add(input.getRelativePath(relativeTo) + "\u0000" +
+                        StringUtils.toHex(MessageDigest.getInstance("SHA-256").digest(contents.get(input))));
+            }
+            Collections.sort(entries);
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String entry : entries) {
+                digest.update(entry.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String key(URI relativePath, byte[] content, byte[] inputSet) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(fingerprint.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(delegate.getClass().getName().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            String version = delegate.getClass().getPackage() == null ? null :
+                    delegate.getClass().getPackage().getImplementationVersion();
+            digest.update(String.valueOf(version).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(relativePath.toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(content);
+            digest.update((byte) 0);
+            digest.update(inputSet);
+            return StringUtils.toHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Nullable
+    private S read(String key) {
+        Path entry = cacheDirectory.resolve(key + ENTRY_SUFFIX);
+        if (!Files.exists(entry)) {
+            return null;
+        }
+
+        try {
+            S sourceFile = serializer.read(Files.readAllBytes(entry));
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return sourceFile;
+        } catch (Exception e) {
+            logger.warn("Discarding unreadable parse cache entry {}", entry, e);
+            corrupt.increment();
+            try {
+                Files.deleteIfExists(entry);
+            } catch (IOException ignored) {
+                // the entry will be overwritten when the source is parsed again
+            }
+            return null;
+        }
+    }
+
+    private void write(String key, S sourceFile) {
+        try {
+            Files.createDirectories(cacheDirectory);
+            Path temp = Files.createTempFile(cacheDirectory, key, ".tmp");
+            try {
+                Files.write(temp, serializer.write(sourceFile));
+                Path entry = cacheDirectory.resolve(key + ENTRY_SUFFIX);
+                try {
+                    Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (Exception e) {
+            // caching is best effort, the parsed tree is still returned
+            logger.warn("Unable to write parse cache entry for {}", sourceFile.getSourcePath(), e);
+        }
+    }
+
+    private void evict() {
+        if (maximumSize <= 0 || !Files.isDirectory(cacheDirectory)) {
+            return;
+        }
+
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            List<Map.Entry<Path, BasicFileAttributes>> entries = new ArrayList<>();
+            long size = 0;
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().endsWith(ENTRY_SUFFIX)) {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    entries.add(new AbstractMap.SimpleEntry<>(file, attributes));
+                    size += attributes.size();
+                }
+            }
+
+            if (size <= maximumSize) {
+                return;
+            }
+
+            entries.sort(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()));
+            for (Map.Entry<Path, BasicFileAttributes> entry : entries) {
+                if (size <= maximumSize) {
+                    break;
+                }
+                Files.deleteIfExists(entry.getKey());
+                size -= entry.getValue().size();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Unable to evict parse cache entries from {}", cacheDirectory, e);
+        }
+    }
+
+    private static byte[] readFully(Input input) {
+        try (InputStream is = input.getSource()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A fingerprint of a classpath that changes whenever an entry is added, removed, or modified.
+     *
+     * @param classpath The classpath entries.
+     * @return A fingerprint suitable for inclusion in {@link Builder#fingerprint(String)}.
+     */
+    public static String classpathFingerprint(Iterable<Path> classpath) {
+        StringBuilder fingerprint = new StringBuilder();
+        for (Path entry : classpath) {
+            fingerprint.append(entry.toAbsolutePath()).append(':');
+            try {
+                if (Files.exists(entry)) {
+                    fingerprint.append(Files.size(entry)).append(':')
+                            .append(Files.getLastModifiedTime(entry).toMillis());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            fingerprint.append(';');
+        }
+        return fingerprint.toString();
+    }
+
+    public static class Builder<S extends SourceFile> {
+        private final Parser<S> delegate;
+        private final Path cacheDirectory;
+        private String fingerprint = "";
+        private long maximumSize = 1024L * 1024 * 1024;
+        private boolean dependentInputs = false;
+        private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+        private Builder(Parser<S> delegate, Path cacheDirectory) {
+            this.delegate = delegate;
+            this.cacheDirectory = cacheDirectory;
+        }
+
+        /**
+         * @param fingerprint Anything other than the source itself that affects the parsed tree, like a classpath
+         *                    fingerprint and the styles in effect.
+         * @return This builder.
+         */
+        public Builder<S> fingerprint(String fingerprint) {
+            this.fingerprint = fingerprint;
+            return this;
+        }
+
+        /**
+         * @param maximumSize The size in bytes beyond which least recently used entries are evicted. A value of 0 or
+         *                    less disables eviction. Defaults to 1 GB.
+         * @return This builder.
+         */
+        public Builder<S> maximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * @param dependentInputs When true, inputs are only taken from the cache when every input is, since the tree
+         *                        of one input depends on the others.
+         * @return This builder.
+         */
+        public Builder<S> dependentInputs(boolean dependentInputs) {
+            this.dependentInputs = dependentInputs;
+            return this;
+        }
+
+        public Builder<S> meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public CachingParser<S> build() {
+            return new CachingParser<>(delegate, cacheDirectory, fingerprint, maximumSize, dependentInputs,
+                    meterRegistry);
+        }
+    }
+}
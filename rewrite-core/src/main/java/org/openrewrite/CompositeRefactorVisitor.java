@@ -15,10 +15,9 @@
  */
 package org.openrewrite;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Objects;
+import org.openrewrite.internal.lang.Nullable;
+
+import java.util.*;
 
 import static java.util.stream.Collectors.toList;
 
@@ -29,6 +28,10 @@ public class CompositeRefactorVisitor implements RefactorVisitor<Tree> {
         delegates.add(visitor);
     }
 
+    List<RefactorVisitor<? extends Tree>> getDelegates() {
+        return delegates;
+    }
+
     @Override
     public Validated validate() {
         return delegates.stream()
@@ -41,6 +44,25 @@ public class CompositeRefactorVisitor implements RefactorVisitor<Tree> {
         return tree;
     }
 
+    @Override
+    public boolean isRevisitRequired(SourceFile source, Collection<SourceFile> changedSources) {
+        return delegates.stream().anyMatch(d -> d.isRevisitRequired(source, changedSources));
+    }
+
+    @Override
+    public Collection<Class<? extends SourceFile>> getSourceTypes() {
+        Set<Class<? extends SourceFile>> sourceTypes = new LinkedHashSet<>();
+        for (RefactorVisitor<? extends Tree> delegate : delegates) {
+            sourceTypes.addAll(delegate.getSourceTypes());
+        }
+        return sourceTypes;
+    }
+
+    @Override
+    public boolean isApplicable(SourceFile source) {
+        return delegates.stream().anyMatch(d -> Refactor.isApplicable(d, source));
+    }
+
     @Override
     public Collection<SourceFile> generate() {
         return delegates.stream()
@@ -48,6 +70,20 @@ public class CompositeRefactorVisitor implements RefactorVisitor<Tree> {
                 .collect(toList());
     }
 
+    @Nullable
+    @Override
+    public RefactorVisitor<Tree> copyForWorker() {
+        CompositeRefactorVisitor copy = new CompositeRefactorVisitor();
+        for (RefactorVisitor<? extends Tree> delegate : delegates) {
+            RefactorVisitor<? extends Tree> delegateCopy = delegate.isThreadSafe() ? delegate : delegate.copyForWorker();
+            if (delegateCopy == null) {
+                return null;
+            }
+            copy.delegates.add(delegateCopy);
+        }
+        return copy;
+    }
+
     public void extendsFrom(CompositeRefactorVisitor delegate) {
         delegates.add(0, delegate);
     }
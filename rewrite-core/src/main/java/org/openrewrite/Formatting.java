@@ -16,14 +16,12 @@
 package org.openrewrite;
 
 import com.fasterxml.jackson.annotation.*;
-import com.koloboke.collect.map.hash.HashObjObjMaps;
 import lombok.Getter;
 import org.openrewrite.internal.lang.Nullable;
 
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -32,8 +30,7 @@ import java.util.Objects;
 @JsonIdentityInfo(generator = ObjectIdGenerators.IntSequenceGenerator.class, property = "@ref")
 @Getter
 public class Formatting implements Serializable {
-    // suffixes are uncommon, so we'll treat them as a secondary index
-    private static final Map<String, Map<String, Formatting>> flyweights = HashObjObjMaps.newMutableMap();
+    private static final FormattingFlyweights flyweights = new FormattingFlyweights(Formatting::new);
 
     public static Formatting EMPTY = new Formatting("", "") {
         @Override
@@ -56,15 +53,10 @@ public class Formatting implements Serializable {
 
     @JsonCreator
     public static Formatting format(@JsonProperty("prefix") String prefix, @JsonProperty("suffix") String suffix) {
-        synchronized (flyweights) {
-            if (prefix.isEmpty() && suffix.isEmpty()) {
-                return EMPTY;
-            }
-
-            return flyweights
-                    .computeIfAbsent(prefix, p -> HashObjObjMaps.newMutableMap())
-                    .computeIfAbsent(suffix, s -> new Formatting(prefix, s));
+        if (prefix.isEmpty() && suffix.isEmpty()) {
+            return EMPTY;
         }
+        return flyweights.intern(prefix, suffix);
     }
 
     @Override
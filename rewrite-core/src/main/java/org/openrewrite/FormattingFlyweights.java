@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.openrewrite.internal.lang.NonNullApi;
+import org.openrewrite.internal.lang.Nullable;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * An interning table for {@link Formatting} whose entries live exactly as long as some tree still refers to them.
+ * Prefixes can carry whole comments and Javadoc, so a table that held them strongly would grow for as long as a
+ * process keeps parsing new sources.
+ * <p>
+ * Lookups are lock-free. Entries are weakly held and are expunged as they are collected. The most common prefixes,
+ * a single space or a newline followed by a small indent, are kept strongly in a fixed array and found without
+ * hashing.
+ */
+@NonNullApi
+class FormattingFlyweights {
+    private static final int MAX_COMMON_INDENT = 64;
+
+    private final Formatting[] space = new Formatting[1];
+    private final Formatting[] newlineAndIndent = new Formatting[MAX_COMMON_INDENT + 1];
+
+    /**
+     * Keyed by the prefix alone when there is no suffix, which is by far the most common case, and by a
+     * {@link PrefixAndSuffix} otherwise.
+     */
+    private final ConcurrentMap<Object, Entry> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Formatting> collected = new ReferenceQueue<>();
+    private final LongAdder retainedBytes = new LongAdder();
+
+    private final BiFunction<String, String, Formatting> factory;
+
+    FormattingFlyweights(BiFunction<String, String, Formatting> factory) {
+        this.factory = factory;
+
+        Gauge.builder("rewrite.formatting.flyweights", entries, ConcurrentMap::size)
+                .description("The number of distinct formatting instances held by the formatting flyweight table")
+                .register(Metrics.globalRegistry);
+
+        Gauge.builder("rewrite.formatting.flyweights.retained", retainedBytes, LongAdder::sum)
+                .description("The approximate size of the prefixes and suffixes held by the formatting flyweight table")
+                .baseUnit("bytes")
+                .register(Metrics.globalRegistry);
+    }
+
+    Formatting intern(String prefix, String suffix) {
+        if (suffix.isEmpty()) {
+            Formatting common = common(prefix);
+            if (common != null) {
+                return common;
+            }
+        }
+
+        Object key = suffix.isEmpty() ? prefix : new PrefixAndSuffix(prefix, suffix);
+
+        Entry entry = entries.get(key);
+        Formatting formatting = entry == null ? null : entry.get();
+        if (formatting != null) {
+            return formatting;
+        }
+
+        expungeCollected();
+
+        Formatting candidate = factory.apply(prefix, suffix);
+        Entry candidateEntry = new Entry(key, candidate, collected);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, candidateEntry);
+            if (existing == null) {
+                retainedBytes.add(candidateEntry.retainedBytes);
+                return candidate;
+            }
+
+            formatting = existing.get();
+            if (formatting != null) {
+                return formatting;
+            }
+
+            // the existing entry was collected but not yet expunged
+            remove(existing);
+        }
+    }
+
+    @Nullable
+    private Formatting common(String prefix) {
+        int length = prefix.length();
+        if (length == 1 && prefix.charAt(0) == ' ') {
+            return commonFormatting(space, 0, prefix);
+        }
+
+        if (length == 0 || length > MAX_COMMON_INDENT + 1 || prefix.charAt(0) != '\n') {
+            return null;
+        }
+
+        for (int i = 1; i < length; i++) {
+            if (prefix.charAt(i) != ' ') {
+                return null;
+            }
+        }
+
+        return commonFormatting(newlineAndIndent, length - 1, prefix);
+    }
+
+    private Formatting commonFormatting(Formatting[] table, int index, String prefix) {
+        Formatting formatting = table[index];
+        if (formatting == null) {
+            // racing threads may each create one, which only costs an allocation
+            formatting = factory.apply(prefix, "");
+            table[index] = formatting;
+        }
+        return formatting;
+    }
+
+    private void expungeCollected() {
+        Entry entry;
+        while ((entry = (Entry) collected.poll()) != null) {
+            remove(entry);
+        }
+    }
+
+    private void remove(Entry entry) {
+        if (entries.remove(entry.key, entry)) {
+            retainedBytes.add(-entry.retainedBytes);
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class PrefixAndSuffix {
+        private final String prefix;
+        private final String suffix;
+    }
+
+    private static class Entry extends WeakReference<Formatting> {
+        private final Object key;
+        private final long retainedBytes;
+
+        Entry(Object key, Formatting formatting, ReferenceQueue<Formatting> queue) {
+            super(formatting, queue);
+            this.key = key;
+            // assumes strings that are not compacted to Latin-1, so that this is an upper bound
+            this.retainedBytes = 2L * (formatting.getPrefix().length() + formatting.getSuffix().length());
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toSet;
@@ -38,8 +39,14 @@ import static java.util.stream.Collectors.toSet;
 public class Refactor {
     private static final Logger logger = LoggerFactory.getLogger(Refactor.class);
     private MeterRegistry meterRegistry = Metrics.globalRegistry;
+    private Instrumentation instrumentation = Instrumentation.PER_VISITOR;
     private final boolean eagerlyThrow;
 
+    @Nullable
+    private ExecutorService executor;
+
+    private int parallelism = 1;
+
     public Refactor() {
         this(false);
     }
@@ -51,14 +58,34 @@ public class Refactor {
     @Getter
     private final Collection<RefactorVisitor<? extends Tree>> visitors = new ArrayList<>();
 
+    /**
+     * The top-level visitors whose source types include a particular type of source file, in the order they were
+     * added, built up as each type of source file is first encountered.
+     */
+    private final Map<Class<?>, List<RefactorVisitor<? extends Tree>>> visitorsBySourceType = new ConcurrentHashMap<>();
+
+    /**
+     * Visit timers by top-level visitor and by the type of tree it produced, so that the hot path doesn't build and
+     * look up a meter id on every visit. The visitors of a pipeline are often created anew for each source, so their
+     * timers are not cached.
+     */
+    private final Map<RefactorVisitor<? extends Tree>, Map<Class<?>, Timer>> visitTimers = new ConcurrentHashMap<>();
+
+    /**
+     * Whether visitors of a type override {@link RefactorVisitor#generate()} or {@link RefactorVisitor#nextCycle()}.
+     */
+    private static final Map<Class<?>, Boolean> crossSourceStateByVisitorType = new ConcurrentHashMap<>();
+
     @SafeVarargs
     public final Refactor visit(RefactorVisitor<? extends Tree>... visitors) {
         Collections.addAll(this.visitors, visitors);
+        visitorsBySourceType.clear();
         return this;
     }
 
     public final Refactor visit(Iterable<RefactorVisitor<? extends Tree>> visitors) {
         visitors.forEach(this.visitors::add);
+        visitorsBySourceType.clear();
         return this;
     }
 
@@ -88,62 +115,67 @@ public class Refactor {
      * @return A change set.
      */
     public Collection<Change> fix(Iterable<? extends SourceFile> sources, int maxCycles) {
-        Timer.Sample sample = Timer.start();
+        Timer.Sample sample = instrumentation == Instrumentation.OFF ? null : Timer.start();
 
         Map<SourceFile, Change> changesByTree = new HashMap<>();
 
+        // composite visitors may have been given more delegates since the last call
+        visitorsBySourceType.clear();
+
         List<SourceFile> accumulatedSources = new ArrayList<>();
         sources.forEach(accumulatedSources::add);
 
-        for (int i = 0; i < maxCycles; i++) {
-            int visitorsThatMadeChangesThisCycle = 0;
-            for (int j = 0; j < accumulatedSources.size(); j++) {
-                SourceFile originalSource = accumulatedSources.get(j);
-                if (originalSource == null) {
+        ExecutorService executorService = executor;
+        boolean shutdownExecutor = false;
+        if (executorService == null && parallelism > 1) {
+            executorService = Executors.newFixedThreadPool(parallelism);
+            shutdownExecutor = true;
+        }
 
-                    // source was deleted in a previous iteration
-                    continue;
-                }
+        // copies of the top-level visitors that aren't thread-safe, one for each worker thread, kept across cycles
+        Map<Thread, Map<RefactorVisitor<? extends Tree>, RefactorVisitor<? extends Tree>>> workerCopies =
+                new ConcurrentHashMap<>();
 
-                SourceFile acc = originalSource;
+        try {
+            // sources that were changed or generated in the previous cycle, the only ones that need to be revisited
+            BitSet changedLastCycle = null;
 
-                for (RefactorVisitor<? extends Tree> visitor : visitors) {
-                    try {
-                        visitor.next();
+            for (int i = 0; i < maxCycles; i++) {
+                int visitorsThatMadeChangesThisCycle = 0;
+                BitSet changedThisCycle = new BitSet(accumulatedSources.size());
 
-                        if (!visitor.isIdempotent() && i > 0) {
-                            continue;
-                        }
+                List<SourceFile> scheduledSources = changedLastCycle == null ?
+                        accumulatedSources :
+                        schedule(accumulatedSources, changedLastCycle);
+
+                List<SourceFix> fixes = executorService == null ?
+                        fixSequentially(scheduledSources, i) :
+                        fixConcurrently(scheduledSources, i, executorService, workerCopies);
 
-                        SourceFile before = acc;
-                        acc = (SourceFile) transformPipeline(acc, visitor);
+                // changes are merged in source order regardless of which worker produced them, so that
+                // the resulting change set is the same as it would have been had the sources been visited serially
+                for (int j = 0; j < fixes.size(); j++) {
+                    SourceFix fix = fixes.get(j);
+                    if (fix == null) {
+                        continue;
+                    }
 
-                        if (before != acc) {
+                    for (VisitorChange visitorChange : fix.visitorChanges) {
+                        // we should only report on the top-level visitors, not any andThen() visitors that
+                        // are applied as part of the top-level visitor's pipeline
+                        changesByTree.compute(visitorChange.after, (acc2, prevChange) -> prevChange == null ?
+                                new Change(fix.original, acc2, Collections.singleton(visitorChange.visitor)) :
+                                new Change(fix.original, acc2, Stream
+                                        .concat(prevChange.getVisitorsThatMadeChanges().stream(), Stream.of(visitorChange.visitor))
+                                        .collect(toSet()))
+                        );
+                        visitorsThatMadeChangesThisCycle++;
+                    }
 
-                            // we should only report on the top-level visitors, not any andThen() visitors that
-                            // are applied as part of the top-level visitor's pipeline
-                            changesByTree.compute(acc, (acc2, prevChange) -> prevChange == null ?
-                                    new Change(originalSource, acc2, Collections.singleton(visitor.getName())) :
-                                    new Change(originalSource, acc2, Stream
-                                            .concat(prevChange.getVisitorsThatMadeChanges().stream(), Stream.of(visitor.getName()))
-                                            .collect(toSet()))
-                            );
-                            visitorsThatMadeChangesThisCycle++;
-                        }
-                    } catch (Throwable t) {
-                        logger.error("refactor visitor failed", t);
-                        Counter.builder("rewrite.visitor.errors")
-                                .baseUnit("errors")
-                                .description("Visitors that threw exceptions")
-                                .tag("visitor", visitor.getName())
-                                .tag("tree.type", originalSource.getClass().getName())
-                                .tag("exception", t.getClass().getSimpleName())
-                                .register(meterRegistry)
-                                .increment();
-                        if(eagerlyThrow) {
-                            throw t;
-                        }
+                    if (fix.fixed != fix.original) {
+                        changedThisCycle.set(j);
                     }
+                    accumulatedSources.set(j, fix.fixed);
                 }
 
                 // we've seen all the files once, so if any new source files needs to be generated by any of the visitors,
@@ -151,10 +183,11 @@ public class Refactor {
                 // them in place as necessary.
                 for (RefactorVisitor<? extends Tree> visitor : visitors) {
                     List<SourceFile> generatedSources = new ArrayList<>(visitor.generate());
-                    if(generatedSources.size() > 0) {
+                    if (generatedSources.size() > 0) {
+                        changedThisCycle.set(accumulatedSources.size(), accumulatedSources.size() + generatedSources.size());
                         accumulatedSources.addAll(generatedSources);
                         visitorsThatMadeChangesThisCycle += generatedSources.size();
-                        for(SourceFile generatedSource : generatedSources) {
+                        for (SourceFile generatedSource : generatedSources) {
                             //TODO: Think about what should happen if multiple visitors try to generate the same target file
                             Set<String> visitorSet = new HashSet<>();
                             visitorSet.add(visitor.getName());
@@ -163,16 +196,26 @@ public class Refactor {
                     }
                 }
 
-                accumulatedSources.set(j, acc);
-                for(RefactorVisitor<? extends Tree> visitor : visitors) {
+                for (RefactorVisitor<? extends Tree> visitor : visitors) {
                     visitor.nextCycle();
                 }
+
+                changedLastCycle = changedThisCycle;
+
+                // Always do at least two cycles in case all the visitors were ones, though the second cycle only
+                // revisits sources that changed in the first or that a visitor still needs to see
+                if (visitorsThatMadeChangesThisCycle == 0 && i > 0) {
+                    break;
+                }
             }
-            // Always do at least two cycles in case all the visitors were ones
-            if (visitorsThatMadeChangesThisCycle == 0 && i > 0) {
-                break;
+        } finally {
+            if (shutdownExecutor) {
+                executorService.shutdown();
             }
+        }
 
+        if (sample == null) {
+            return changesByTree.values();
         }
 
         sample.stop(Timer.builder("rewrite.refactor.plan")
@@ -194,26 +237,348 @@ public class Refactor {
         return changesByTree.values();
     }
 
-    private Tree transformPipeline(Tree acc, RefactorVisitor<? extends Tree> visitor) {
+    /**
+     * Visiting a source that did not change in the previous cycle with the same idempotent visitors will not
+     * change it, so only changed and generated sources are scheduled, along with any unchanged source
+     * that a visitor declares must be revisited. A visitor that gathers state across sources or cycles may
+     * change a source it has already seen, so every source of its types is revisited.
+     *
+     * @param sources          All sources, some of which may have been deleted in a previous cycle.
+     * @param changedLastCycle The indices of sources that were changed or generated in the previous cycle.
+     * @return The sources to visit in this cycle, with {@code null} in place of those that are skipped.
+     */
+    private List<SourceFile> schedule(List<SourceFile> sources, BitSet changedLastCycle) {
+        List<SourceFile> changedSources = new ArrayList<>(changedLastCycle.cardinality());
+        for (int j = changedLastCycle.nextSetBit(0); j >= 0; j = changedLastCycle.nextSetBit(j + 1)) {
+            if (sources.get(j) != null) {
+                changedSources.add(sources.get(j));
+            }
+        }
+
+        List<SourceFile> scheduled = new ArrayList<>(sources.size());
+        int skipped = 0;
+        for (int j = 0; j < sources.size(); j++) {
+            SourceFile source = sources.get(j);
+            if (source == null || changedLastCycle.get(j) || isRevisitRequired(source, changedSources)) {
+                scheduled.add(source);
+            } else {
+                scheduled.add(null);
+                skipped++;
+            }
+        }
+
+        if (skipped > 0 && instrumentation != Instrumentation.OFF) {
+            Counter.builder("rewrite.refactor.visit.skipped")
+                    .baseUnit("sources")
+                    .description("Sources that were not visited again in a cycle because they did not change in the previous cycle")
+                    .register(meterRegistry)
+                    .increment(skipped);
+        }
+
+        return scheduled;
+    }
+
+    private boolean isRevisitRequired(SourceFile source, Collection<SourceFile> changedSources) {
+        for (RefactorVisitor<? extends Tree> visitor : visitorsFor(source)) {
+            if (visitor.isIdempotent() && (gathersStateAcrossSources(visitor) ||
+                    visitor.isRevisitRequired(source, changedSources))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<SourceFix> fixSequentially(List<SourceFile> sources, int cycle) {
+        List<SourceFix> fixes = new ArrayList<>(sources.size());
+        for (SourceFile source : sources) {
+            // source was deleted in a previous iteration
+            fixes.add(source == null ? null : fixSource(source, cycle, null));
+        }
+        return fixes;
+    }
+
+    private List<SourceFix> fixConcurrently(List<SourceFile> sources, int cycle, ExecutorService executorService,
+                                            Map<Thread, Map<RefactorVisitor<? extends Tree>, RefactorVisitor<? extends Tree>>> workerCopies) {
+        List<Callable<SourceFix>> tasks = new ArrayList<>(sources.size());
+        for (SourceFile source : sources) {
+            // source was deleted in a previous iteration
+            tasks.add(() -> source == null ? null : fixSource(source, cycle,
+                    workerCopies.computeIfAbsent(Thread.currentThread(), t -> new IdentityHashMap<>())));
+        }
+
+        List<SourceFix> fixes = new ArrayList<>(sources.size());
+        try {
+            for (Future<SourceFix> fix : executorService.invokeAll(tasks)) {
+                fixes.add(fix.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while visiting sources", e);
+        } catch (ExecutionException e) {
+            // only possible when eagerly throwing, so surface the visitor's own exception
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException("Refactor visitor failed", e.getCause());
+        }
+        return fixes;
+    }
+
+    /**
+     * Run every top-level visitor over a single source file.
+     *
+     * @param originalSource The source file as it was at the beginning of this cycle.
+     * @param cycle          The current cycle.
+     * @param workerCopies   When other source files are being visited at the same time, the copies of visitors that
+     *                       aren't thread-safe that belong to this worker thread. Visitors that can't be copied are
+     *                       only ever entered by one thread at a time.
+     * @return The fixed source file, along with each top-level visitor that made changes to it.
+     */
+    private SourceFix fixSource(SourceFile originalSource, int cycle,
+                                @Nullable Map<RefactorVisitor<? extends Tree>, RefactorVisitor<? extends Tree>> workerCopies) {
+        SourceFile acc = originalSource;
+        List<VisitorChange> visitorChanges = new ArrayList<>();
+
+        for (RefactorVisitor<? extends Tree> visitor : visitorsFor(originalSource)) {
+            if (workerCopies == null || visitor.isThreadSafe()) {
+                acc = visitSource(originalSource, acc, visitor, visitor, cycle, visitorChanges);
+                continue;
+            }
+
+            RefactorVisitor<? extends Tree> worker = workerCopies.computeIfAbsent(visitor, v -> {
+                RefactorVisitor<? extends Tree> copy = gathersStateAcrossSources(v) ? null : v.copyForWorker();
+                return copy == null ? v : copy;
+            });
+            if (worker == visitor) {
+                synchronized (visitor) {
+                    acc = visitSource(originalSource, acc, visitor, visitor, cycle, visitorChanges);
+                }
+            } else {
+                acc = visitSource(originalSource, acc, visitor, worker, cycle, visitorChanges);
+            }
+        }
+
+        return new SourceFix(originalSource, acc, visitorChanges);
+    }
+
+    /**
+     * @param visitor The top-level visitor, by which changes, errors and timings are reported.
+     * @param worker  The visitor that does the visiting, which is either the top-level visitor or a copy of it.
+     */
+    private SourceFile visitSource(SourceFile originalSource, SourceFile acc, RefactorVisitor<? extends Tree> visitor,
+                                   RefactorVisitor<? extends Tree> worker, int cycle, List<VisitorChange> visitorChanges) {
+        try {
+            if (!worker.isApplicable(acc)) {
+                return acc;
+            }
+
+            worker.next();
+
+            if (!worker.isIdempotent() && cycle > 0) {
+                return acc;
+            }
+
+            SourceFile before = acc;
+            acc = (SourceFile) transformPipeline(acc, worker, visitor);
+
+            if (before != acc) {
+                visitorChanges.add(new VisitorChange(visitor.getName(), acc));
+            }
+        } catch (Throwable t) {
+            logger.error("refactor visitor failed", t);
+            if (instrumentation != Instrumentation.OFF) {
+                Counter.builder("rewrite.visitor.errors")
+                        .baseUnit("errors")
+                        .description("Visitors that threw exceptions")
+                        .tag("visitor", visitor.getName())
+                        .tag("tree.type", originalSource.getClass().getName())
+                        .tag("exception", t.getClass().getSimpleName())
+                        .register(meterRegistry)
+                        .increment();
+            }
+            if (eagerlyThrow) {
+                throw t;
+            }
+        }
+        return acc;
+    }
+
+    /**
+     * @param topLevel The top-level visitor when this is the visitor (or the copy of the visitor) it stands for,
+     *                 otherwise {@code null}.
+     */
+    private Tree transformPipeline(Tree acc, RefactorVisitor<? extends Tree> visitor,
+                                   @Nullable RefactorVisitor<? extends Tree> topLevel) {
         // by transforming the AST for each op, we allow for the possibility of overlapping changes
-        Timer.Sample sample = Timer.start();
+        Timer.Sample sample = instrumentation.compareTo(Instrumentation.PER_VISITOR) < 0 ? null : Timer.start();
         acc = visitor.visit(acc);
         for (RefactorVisitor<? extends Tree> vis : visitor.andThen()) {
-            acc = transformPipeline(acc, vis);
+            if (acc instanceof SourceFile && !isApplicable(vis, (SourceFile) acc)) {
+                continue;
+            }
+            acc = transformPipeline(acc, vis, null);
         }
 
-        sample.stop(Timer.builder("rewrite.refactor.visit")
+        if (sample != null) {
+            sample.stop(topLevel != null ?
+                    visitTimers.computeIfAbsent(topLevel, v -> new ConcurrentHashMap<>())
+                            .computeIfAbsent(acc.getClass(), treeType -> visitTimer(topLevel, treeType)) :
+                    visitTimer(visitor, acc.getClass()));
+        }
+
+        return acc;
+    }
+
+    private Timer visitTimer(RefactorVisitor<? extends Tree> visitor, Class<?> treeType) {
+        return Timer.builder("rewrite.refactor.visit")
                 .description("The time it takes to visit a single AST with a particular refactoring visitor and its pipeline")
                 .tag("visitor", visitor.getName())
                 .tags(visitor.getTags())
-                .tag("tree.type", acc.getClass().getSimpleName())
-                .register(meterRegistry));
+                .tag("tree.type", treeType.getSimpleName())
+                .publishPercentileHistogram(instrumentation == Instrumentation.PER_VISIT_HISTOGRAM)
+                .register(meterRegistry);
+    }
 
-        return acc;
+    private List<RefactorVisitor<? extends Tree>> visitorsFor(SourceFile source) {
+        return visitorsBySourceType.computeIfAbsent(source.getClass(), sourceType -> {
+            List<RefactorVisitor<? extends Tree>> applicable = new ArrayList<>();
+            for (RefactorVisitor<? extends Tree> visitor : visitors) {
+                if (hasSourceType(visitor, sourceType)) {
+                    applicable.add(visitor);
+                }
+            }
+            return applicable;
+        });
+    }
+
+    /**
+     * A visitor that generates sources or prepares for the next cycle may depend on what it has seen of every
+     * source, so the sources it sees must all go through that one visitor.
+     */
+    static boolean gathersStateAcrossSources(RefactorVisitor<? extends Tree> visitor) {
+        if (visitor instanceof CompositeRefactorVisitor) {
+            for (RefactorVisitor<? extends Tree> delegate : ((CompositeRefactorVisitor) visitor).getDelegates()) {
+                if (gathersStateAcrossSources(delegate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        return crossSourceStateByVisitorType.computeIfAbsent(visitor.getClass(), visitorType ->
+                overridesDefault(visitorType, "generate") || overridesDefault(visitorType, "nextCycle"));
+    }
+
+    private static boolean overridesDefault(Class<?> visitorType, String method) {
+        try {
+            return visitorType.getMethod(method).getDeclaringClass() != RefactorVisitor.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    static boolean isApplicable(RefactorVisitor<? extends Tree> visitor, SourceFile source) {
+        return hasSourceType(visitor, source.getClass()) && visitor.isApplicable(source);
+    }
+
+    private static boolean hasSourceType(RefactorVisitor<? extends Tree> visitor, Class<?> sourceType) {
+        for (Class<? extends SourceFile> visitorSourceType : visitor.getSourceTypes()) {
+            if (visitorSourceType.isAssignableFrom(sourceType)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public Refactor setMeterRegistry(MeterRegistry meterRegistry) {
         this.meterRegistry = meterRegistry;
+        visitTimers.clear();
+        return this;
+    }
+
+    /**
+     * @param instrumentation How much this refactoring operation records to its meter registry. Defaults to
+     *                        {@link Instrumentation#PER_VISITOR}.
+     * @return This refactoring operation.
+     */
+    public Refactor setInstrumentation(Instrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+        visitTimers.clear();
         return this;
     }
+
+    /**
+     * Visit source files concurrently within each cycle on a fixed thread pool of this size that is created
+     * and shut down for every call to {@link #fix(Iterable, int)}. Has no effect when an executor is
+     * provided with {@link #setExecutor(ExecutorService)}.
+     *
+     * @param parallelism The number of source files to visit at the same time. A value of 1 (the default)
+     *                    visits sources sequentially.
+     * @return This refactoring operation.
+     */
+    public Refactor setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Visit source files concurrently within each cycle on a caller-managed executor. The executor is not
+     * shut down by this refactoring operation.
+     *
+     * @param executor The executor on which sources are visited, or {@code null} to visit sources sequentially.
+     * @return This refactoring operation.
+     */
+    public Refactor setExecutor(@Nullable ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Levels of instrumentation, each of which records everything the previous one does.
+     */
+    public enum Instrumentation {
+        /**
+         * Record nothing.
+         */
+        OFF,
+
+        /**
+         * Time the refactoring plan as a whole, and count changes, skipped sources and visitor errors.
+         */
+        SUMMARY,
+
+        /**
+         * Also time the visits of each top-level visitor and its pipeline, by the type of tree visited.
+         */
+        PER_VISITOR,
+
+        /**
+         * Also publish a percentile histogram of the visit times of each visitor.
+         */
+        PER_VISIT_HISTOGRAM
+    }
+
+    private static class SourceFix {
+        private final SourceFile original;
+        private final SourceFile fixed;
+        private final List<VisitorChange> visitorChanges;
+
+        private SourceFix(SourceFile original, SourceFile fixed, List<VisitorChange> visitorChanges) {
+            this.original = original;
+            this.fixed = fixed;
+            this.visitorChanges = visitorChanges;
+        }
+    }
+
+    private static class VisitorChange {
+        private final String visitor;
+        private final SourceFile after;
+
+        private VisitorChange(String visitor, SourceFile after) {
+            this.visitor = visitor;
+            this.after = after;
+        }
+    }
 }
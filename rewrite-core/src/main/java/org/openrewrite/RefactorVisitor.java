@@ -15,10 +15,13 @@
  */
 package org.openrewrite;
 
+import org.openrewrite.internal.lang.Nullable;
+
 import java.util.Collection;
 import java.util.List;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 
 public interface RefactorVisitor<T extends Tree> extends SourceVisitor<T> {
     @SuppressWarnings("unchecked")
@@ -45,6 +48,74 @@ public interface RefactorVisitor<T extends Tree> extends SourceVisitor<T> {
         return true;
     }
 
+    /**
+     * Determines whether this visitor can visit more than one source file at the same time when
+     * {@link Refactor} is visiting sources concurrently. Visitors that keep per-source state in fields
+     * (like the formatter of a language-specific refactor visitor) must not claim to be thread-safe,
+     * and are instead {@link #copyForWorker() copied} for each worker thread.
+     *
+     * @return If true, this visitor may be used by multiple threads concurrently.
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * When {@link Refactor} visits sources concurrently, a visitor that isn't thread-safe is copied once for
+     * each worker thread, so that the per-source state it keeps in fields is confined to that thread. A visitor
+     * that {@link #generate() generates} sources or prepares for the {@link #nextCycle() next cycle} depends on
+     * every source it has seen, so it is never copied.
+     *
+     * @return A copy of this visitor that shares none of its per-source state, or {@code null} if this visitor
+     * can't be copied, in which case only one thread at a time enters it.
+     */
+    @Nullable
+    default RefactorVisitor<T> copyForWorker() {
+        return null;
+    }
+
+    /**
+     * After the first cycle, {@link Refactor} only revisits sources that were changed or generated in the
+     * previous cycle. Every source is revisited for a visitor that overrides {@link #generate()} or
+     * {@link #nextCycle()}, as it may gather state over the course of a whole cycle. Any other visitor whose
+     * changes to a source depend on other sources declares here which unchanged sources it still needs to see
+     * again.
+     *
+     * @param source         A source that did not change in the previous cycle.
+     * @param changedSources The sources that were changed or generated in the previous cycle.
+     * @return If true, the source is visited again in the next cycle.
+     */
+    default boolean isRevisitRequired(SourceFile source, Collection<SourceFile> changedSources) {
+        return false;
+    }
+
+    /**
+     * {@link Refactor} only hands a visitor source files of the types it declares here, and a visitor is not
+     * given the chance to visit (or even prepare to visit) any other source file.
+     *
+     * @return The types of source file that this visitor can change.
+     */
+    default Collection<Class<? extends SourceFile>> getSourceTypes() {
+        return singletonList(SourceFile.class);
+    }
+
+    /**
+     * A cheap precondition that {@link Refactor} checks before visiting a source file of one of the
+     * {@link #getSourceTypes() source types} of this visitor, for example that the source file refers to a
+     * particular type. It must never be false for a source file that the visitor would change.
+     *
+     * @param source A source file of one of the source types of this visitor.
+     * @return If false, the visitor is not run on the source file.
+     */
+    default boolean isApplicable(SourceFile source) {
+        return true;
+    }
+
+    /**
+     * Called once per cycle, after every source has been visited.
+     *
+     * @return New source files to add to the set of sources being refactored.
+     */
     default Collection<SourceFile> generate() {
         return emptyList();
     }
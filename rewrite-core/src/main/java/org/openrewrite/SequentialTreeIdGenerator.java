@@ -0,0 +1,39 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+class SequentialTreeIdGenerator implements TreeIdGenerator {
+    private final long mostSigBits;
+    private final AtomicLong sequence;
+
+    SequentialTreeIdGenerator() {
+        SecureRandom random = new SecureRandom();
+        // marked as a version 4 UUID so these are indistinguishable in form from random ids
+        this.mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+        // starting at a random point makes the counters of two generators with the same prefix unlikely to overlap
+        this.sequence = new AtomicLong(random.nextLong());
+    }
+
+    @Override
+    public UUID nextId() {
+        // IETF variant, leaving 62 bits of sequence that wrap around only after 2^62 ids
+        return new UUID(mostSigBits, (sequence.getAndIncrement() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L);
+    }
+}
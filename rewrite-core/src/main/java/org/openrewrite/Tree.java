@@ -25,8 +25,12 @@ import java.util.*;
 
 @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, property = "@c")
 public interface Tree {
+    /**
+     * @return A new id from the {@link TreeIdGenerator} in effect on this thread. Despite the name, ids are only
+     * random when {@link TreeIdGenerator#random()} is in effect.
+     */
     static UUID randomId() {
-        return UUID.randomUUID();
+        return TreeIds.nextId();
     }
 
     Formatting getFormatting();
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite;
+
+import org.openrewrite.internal.lang.NonNullApi;
+import org.openrewrite.internal.lang.Nullable;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * An append-only file of serialized source files that can be read one source file at a time.
+ * <p>
+ * Where {@link TreeSerializer#write(Iterable)} encodes a list of source files as a single array, an archive frames each
+ * source file separately behind a header holding its source path and length. Opening an archive only reads the frame
+ * headers to build an index, so that a single source file can be read by its path, and iterating over the archive
+ * holds only one source file in memory at a time.
+ * <p>
+ * Each frame is an independent {@link TreeSerializer} document, so types and strings are not shared across frames.
+ * Jackson's object identities and Smile's shared string table are scoped to a single document, and sharing them
+ * across frames would leave no frame readable on its own, which reading a single source file by its path relies on.
+ * <p>
+ * A frame that was only partially written, for example when a process is killed part way through appending, is
+ * ignored and overwritten by the next append. Appending a source path that already exists leaves the earlier frame
+ * behind as garbage, and once the garbage outweighs the live frames the archive is {@link #compact() compacted}.
+ */
+@NonNullApi
+public class TreeArchive<S extends SourceFile> implements Iterable<S>, Closeable {
+    private static final int MAGIC = 0x52575441; // "RWTA"
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 8;
+
+    private final TreeSerializer<S> serializer = new TreeSerializer<>();
+    private final Path path;
+    private FileChannel channel;
+
+    /**
+     * Frames by source path, in the order they were first appended. Appending a source path that already exists
+     * replaces the earlier frame.
+     */
+    private final Map<String, Frame> index = new LinkedHashMap<>();
+
+    /**
+     * The end of the last complete frame.
+     */
+    private long end;
+
+    /**
+     * The length of the frames that have been replaced by a later frame for the same source path.
+     */
+    private long garbage;
+
+    private TreeArchive(Path path) throws IOException {
+        this.path = path;
+        this.channel = openChannel(path);
+        if (channel.size() < HEADER_LENGTH) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            channel.truncate(0);
+            writeFully(header, 0);
+            this.end = HEADER_LENGTH;
+        } else {
+            ByteBuffer header = readFully(0, HEADER_LENGTH);
+            if (header.getInt() != MAGIC) {
+                throw new IllegalStateException("Not a tree archive");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IllegalStateException("Unsupported tree archive version " + version);
+            }
+            this.end = scan();
+        }
+    }
+
+    /**
+     * Open an archive, creating it if it does not yet exist.
+     *
+     * @param path The archive file.
+     * @param <S>  The type of source file held in the archive.
+     * @return An open archive, which must be closed.
+     */
+    public static <S extends SourceFile> TreeArchive<S> open(Path path) {
+        try {
+            return new TreeArchive<>(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static FileChannel openChannel(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    public synchronized void append(S source) {
+        byte[] path = source.getSourcePath().getBytes(StandardCharsets.UTF_8);
+        byte[] tree = serializer.write(source);
+
+        ByteBuffer frame = ByteBuffer.allocate(8 + path.length + tree.length)
+                .putInt(path.length)
+                .put(path)
+                .putInt(tree.length)
+                .put(tree);
+        frame.flip();
+
+        long treeOffset = end + 8 + path.length;
+        try {
+            writeFully(frame, end);
+            // drops any partially written frame left behind beyond this one
+            channel.truncate(treeOffset + tree.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Frame replaced = index.put(source.getSourcePath(), new Frame(end, treeOffset, tree.length));
+        end = treeOffset + tree.length;
+
+        if (replaced != null) {
+            garbage += replaced.size();
+            if (garbage > end - HEADER_LENGTH - garbage) {
+                compact();
+            }
+        }
+    }
+
+    public void append(Iterable<S> sources) {
+        for (S source : sources) {
+            append(source);
+        }
+    }
+
+    /**
+     * Rewrite the archive with only the latest frame for each source path, dropping the frames they replaced. The
+     * live frames are copied to a temporary file, which then takes the place of the archive.
+     */
+    public synchronized void compact() {
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        try {
+            try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).putInt(MAGIC).putInt(VERSION);
+                header.flip();
+                while (header.hasRemaining()) {
+                    out.write(header);
+                }
+                for (Frame frame : index.values()) {
+                    long copied = 0;
+                    while (copied < frame.size()) {
+                        copied += channel.transferTo(frame.start + copied, frame.size() - copied, out);
+                    }
+                }
+                out.force(true);
+            }
+
+            channel.close();
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = openChannel(path);
+
+            index.clear();
+            garbage = 0;
+            end = scan();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized Set<String> getSourcePaths() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(index.keySet()));
+    }
+
+    /**
+     * @param sourcePath The source path of the source file.
+     * @return The source file, or null if the archive doesn't contain it.
+     */
+    @Nullable
+    public synchronized S read(String sourcePath) {
+        Frame frame = index.get(sourcePath);
+        return frame == null ? null : read(frame);
+    }
+
+    /**
+     * @return An iterator that reads source files in order, one at a time.
+     */
+    @Override
+    public Iterator<S> iterator() {
+        // frames are looked up as they are read, since compaction moves them
+        Iterator<String> sourcePaths = getSourcePaths().iterator();
+        return new Iterator<S>() {
+            @Override
+            public boolean hasNext() {
+                return sourcePaths.hasNext();
+            }
+
+            @Override
+            public S next() {
+                S source = read(sourcePaths.next());
+                assert source != null;
+                return source;
+            }
+        };
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private S read(Frame frame) {
+        try {
+            ByteBuffer tree = readFully(frame.offset, frame.length);
+            return serializer.read(tree.array());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Build the index from frame headers alone, skipping over the trees themselves.
+     *
+     * @return The end of the last complete frame.
+     */
+    private long scan() throws IOException {
+        long size = channel.size();
+        long position = HEADER_LENGTH;
+        while (position + 4 <= size) {
+            int pathLength = readFully(position, 4).getInt();
+            if (pathLength < 0 || position + 8 + pathLength > size) {
+                break;
+            }
+            String path = new String(readFully(position + 4, pathLength).array(), StandardCharsets.UTF_8);
+            int treeLength = readFully(position + 4 + pathLength, 4).getInt();
+            long treeOffset = position + 8 + pathLength;
+            if (treeLength < 0 || treeOffset + treeLength > size) {
+                break;
+            }
+            Frame replaced = index.put(path, new Frame(position, treeOffset, treeLength));
+            if (replaced != null) {
+                garbage += replaced.size();
+            }
+            position = treeOffset + treeLength;
+        }
+        return position;
+    }
+
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        long p = position;
+        while (buffer.hasRemaining()) {
+            p += channel.write(buffer, p);
+        }
+    }
+
+    private static class Frame {
+        /**
+         * The start of the frame header.
+         */
+        private final long start;
+
+        /**
+         * The start of the serialized tree.
+         */
+        private final long offset;
+
+        private final int length;
+
+        private Frame(long start, long offset, int length) {
+            this.start = start;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private long size() {
+            return offset + length - start;
+        }
+    }
+}
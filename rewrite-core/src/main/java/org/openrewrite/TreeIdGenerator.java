@@ -0,0 +1,65 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * The source of {@link Tree#getId()} for every tree element created by parsers and refactoring visitors.
+ * <p>
+ * Ids only need to be unique, since they are used to recognize the same element across transformations
+ * (see {@link Tree#isScope(Tree)} and {@link Cursor#isScopeInPath(Tree)}). They do not need to be unpredictable,
+ * so by default they are drawn from a {@link #sequential()} generator rather than from {@link UUID#randomUUID()},
+ * which goes through {@link java.security.SecureRandom} for every element. Set the system property
+ * {@code rewrite.tree.ids=random} to use random ids by default instead.
+ */
+@FunctionalInterface
+public interface TreeIdGenerator {
+    UUID nextId();
+
+    /**
+     * @return A generator of type 4 (pseudo randomly generated) UUIDs.
+     */
+    static TreeIdGenerator random() {
+        return UUID::randomUUID;
+    }
+
+    /**
+     * @return A generator that fixes the most significant 64 bits of every id it creates to a value drawn once from
+     * {@link java.security.SecureRandom}, and counts up in the least significant bits from a random starting point.
+     * Ids are unique within a generator for its first 2^62 ids. Two generators (including those in other processes,
+     * e.g. for trees read back from a cache) can only create the same id if their 60 random prefix bits match and
+     * their counters overlap, which for generators that create {@code n} ids each happens with a probability of about
+     * {@code n / 2^121}. That is negligible in practice, but higher than the {@code 1 / 2^122} for a pair of random
+     * ids, since the ids of one generator are not independent of each other.
+     */
+    static TreeIdGenerator sequential() {
+        return new SequentialTreeIdGenerator();
+    }
+
+    /**
+     * Create tree elements on the current thread with a particular generator.
+     *
+     * @param generator The generator to use while {@code work} runs.
+     * @param work      Work that creates tree elements, e.g. by parsing.
+     * @param <T>       The result of the work.
+     * @return The result of the work.
+     */
+    static <T> T using(TreeIdGenerator generator, Supplier<T> work) {
+        return TreeIds.using(generator, work);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+final class TreeIds {
+    private static final TreeIdGenerator DEFAULT = "random".equals(System.getProperty("rewrite.tree.ids")) ?
+            TreeIdGenerator.random() :
+            TreeIdGenerator.sequential();
+
+    private static final ThreadLocal<TreeIdGenerator> current = new ThreadLocal<>();
+
+    private TreeIds() {
+    }
+
+    static UUID nextId() {
+        TreeIdGenerator generator = current.get();
+        return (generator == null ? DEFAULT : generator).nextId();
+    }
+
+    static <T> T using(TreeIdGenerator generator, Supplier<T> work) {
+        TreeIdGenerator previous = current.get();
+        current.set(generator);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        }
+    }
+}
@@ -16,10 +16,14 @@
 package org.openrewrite;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.deser.std.UUIDDeserializer;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
@@ -28,7 +32,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 public class TreeSerializer<S extends SourceFile> {
     private final TypeReference<S> sourceType = new TypeReference<S>() {
@@ -40,7 +47,8 @@ public class TreeSerializer<S extends SourceFile> {
     private final ObjectMapper mapper;
 
     public TreeSerializer() {
-        SimpleModule markerModule = new SimpleModule();
+        SimpleModule markerModule = new SimpleModule()
+                .addDeserializer(UUID.class, new FreshIdDeserializer());
 
         SmileFactory f = new SmileFactory();
         f.configure(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES, true);
@@ -114,4 +122,41 @@ public class TreeSerializer<S extends SourceFile> {
             throw new UncheckedIOException(e);
         }
     }
+
+    /**
+     * Read a source file back with every id replaced by a fresh one, consistently within the source file, so that
+     * the same serialized source file can be read any number of times without the copies sharing ids.
+     *
+     * @param bytes A serialized source file.
+     * @return A copy of the source file with fresh ids.
+     */
+    public S readCopy(byte[] bytes) {
+        try {
+            return mapper.readerFor(sourceType)
+                    .withAttribute(FreshIdDeserializer.class, new HashMap<UUID, UUID>())
+                    .readValue(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replaces every id read by {@link #readCopy(byte[])} with a fresh one, and leaves ids read otherwise alone. Smile
+     * writes ids as binary rather than as strings, so the id itself is read by the stock deserializer.
+     */
+    private static class FreshIdDeserializer extends StdDeserializer<UUID> {
+        private final UUIDDeserializer delegate = new UUIDDeserializer();
+
+        FreshIdDeserializer() {
+            super(UUID.class);
+        }
+
+        @Override
+        public UUID deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            @SuppressWarnings("unchecked") Map<UUID, UUID> freshIds =
+                    (Map<UUID, UUID>) ctxt.getAttribute(FreshIdDeserializer.class);
+            UUID id = delegate.deserialize(p, ctxt);
+            return freshIds == null ? id : freshIds.computeIfAbsent(id, i -> Tree.randomId());
+        }
+    }
 }
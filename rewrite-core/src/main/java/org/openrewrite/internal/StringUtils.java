@@ -36,9 +36,24 @@ import static java.util.stream.Collectors.counting;
 import static java.util.stream.Collectors.groupingBy;
 
 public class StringUtils {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     private StringUtils() {
     }
 
+    /**
+     * @param bytes Any bytes, such as a digest.
+     * @return The bytes as lowercase hexadecimal, two digits per byte.
+     */
+    public static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
     public static String trimIndent(String text) {
         int indentLevel = indentLevel(text);
 
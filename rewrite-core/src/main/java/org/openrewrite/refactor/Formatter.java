@@ -54,11 +54,10 @@ public class Formatter {
 
     public Result wholeSourceIndent() {
         if (wholeSourceIndent == null) {
-            FindIndent wholeSourceIndentVisitor = findIndentBuilder.apply(0);
-            wholeSourceIndentVisitor.visit(root);
-            wholeSourceIndent = new Result(0, wholeSourceIndentVisitor.getMostCommonIndent() > 0 ?
-                    wholeSourceIndentVisitor.getMostCommonIndent() : 4 /* default to 4 spaces */,
-                    wholeSourceIndentVisitor.isIndentedWithSpaces());
+            Indentation indentation = root.getMarkers().findFirst(Indentation.class).orElse(null);
+            wholeSourceIndent = indentation == null ?
+                    Indentation.measure(root, findIndentBuilder) :
+                    indentation.wholeSourceIndent(root, findIndentBuilder);
         }
         return wholeSourceIndent;
     }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.refactor;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.openrewrite.Incubating;
+import org.openrewrite.Tree;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.marker.Marker;
+
+import java.lang.ref.WeakReference;
+import java.util.function.Function;
+
+/**
+ * The most common indentation of a whole source file, and whether it is built with spaces or tabs, so that the
+ * formatters of the many refactoring visitors that may visit a source file don't each have to rediscover it.
+ * <p>
+ * The indentation is measured at parse time and attached as a marker. A source file that has been changed since
+ * carries the marker forward, but the marker no longer describes it, so the indentation is measured again the first
+ * time a formatter asks for it, and the marker remembers the new measurement for the changed source file and for the
+ * refactoring visitors that visit it after that.
+ */
+@Incubating(since = "7.0.0")
+public class Indentation implements Marker {
+    private volatile Measurement measurement;
+
+    @JsonCreator
+    public Indentation(@JsonProperty("indentToUse") int indentToUse,
+                       @JsonProperty("indentedWithSpaces") boolean indentedWithSpaces) {
+        this.measurement = new Measurement(null, new Formatter.Result(0, indentToUse, indentedWithSpaces));
+    }
+
+    private Indentation(Tree root, Formatter.Result wholeSourceIndent) {
+        this.measurement = new Measurement(root, wholeSourceIndent);
+    }
+
+    /**
+     * @param root              The root of a source file.
+     * @param findIndentBuilder Builds a visitor that finds the indentation of a tree, given its enclosing indent.
+     * @return The indentation of the whole source file.
+     */
+    public static Indentation build(Tree root, Function<Integer, FindIndent> findIndentBuilder) {
+        return new Indentation(root, measure(root, findIndentBuilder));
+    }
+
+    /**
+     * Attaching a marker to a source file yields a new root, so the measurement has to be told that it describes that
+     * root too.
+     *
+     * @param root The root of the source file this marker has just been attached to.
+     */
+    public void attachedTo(Tree root) {
+        this.measurement = new Measurement(root, measurement.wholeSourceIndent);
+    }
+
+    static Formatter.Result measure(Tree root, Function<Integer, FindIndent> findIndentBuilder) {
+        FindIndent wholeSourceIndentVisitor = findIndentBuilder.apply(0);
+        wholeSourceIndentVisitor.visit(root);
+        return new Formatter.Result(0, wholeSourceIndentVisitor.getMostCommonIndent() > 0 ?
+                wholeSourceIndentVisitor.getMostCommonIndent() : 4 /* default to 4 spaces */,
+                wholeSourceIndentVisitor.isIndentedWithSpaces());
+    }
+
+    /**
+     * @param root              The root of the source file this marker is attached to.
+     * @param findIndentBuilder Builds a visitor that finds the indentation of a tree, given its enclosing indent.
+     * @return The indentation of the whole source file, measured again only if it has changed since it was last measured.
+     */
+    Formatter.Result wholeSourceIndent(Tree root, Function<Integer, FindIndent> findIndentBuilder) {
+        Measurement m = this.measurement;
+        if (m.describes(root)) {
+            return m.wholeSourceIndent;
+        }
+
+        // refactoring visitors only produce a new root when something beneath it has changed
+        Formatter.Result wholeSourceIndent = measure(root, findIndentBuilder);
+        this.measurement = new Measurement(root, wholeSourceIndent);
+        return wholeSourceIndent;
+    }
+
+    public int getIndentToUse() {
+        return measurement.wholeSourceIndent.getIndentToUse();
+    }
+
+    public boolean isIndentedWithSpaces() {
+        return measurement.wholeSourceIndent.isIndentedWithSpaces();
+    }
+
+    @Override
+    public String toString() {
+        return "Indentation{indentToUse=" + getIndentToUse() + ", indentedWithSpaces=" + isIndentedWithSpaces() + "}";
+    }
+
+    private static class Measurement {
+        // held weakly so that a marker carried forward by a changed source file doesn't retain the tree it replaced
+        @Nullable
+        private final WeakReference<Tree> root;
+
+        private final Formatter.Result wholeSourceIndent;
+
+        private Measurement(@Nullable Tree root, Formatter.Result wholeSourceIndent) {
+            this.root = root == null ? null : new WeakReference<>(root);
+            this.wholeSourceIndent = wholeSourceIndent;
+        }
+
+        private boolean describes(Tree root) {
+            return this.root != null && this.root.get() == root;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.openrewrite.Formatting.format
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class FormattingTest {
+    @Test
+    fun interned() {
+        assertThat(format("", "")).isSameAs(Formatting.EMPTY)
+        assertThat(format(" ")).isSameAs(format(" "))
+        assertThat(format("\n    ")).isSameAs(format(StringBuilder("\n").append("    ").toString()))
+        assertThat(format("/* comment */\n")).isSameAs(format("/* comment */\n"))
+        assertThat(format(" ", "\n")).isSameAs(format(" ", "\n"))
+        assertThat(format(" ", "\n")).isNotSameAs(format(" "))
+    }
+
+    @Test
+    fun concurrentInterningAgreesOnOneInstance() {
+        val executor = Executors.newFixedThreadPool(8)
+        try {
+            val prefix = "/** ${System.nanoTime()} */\n"
+            val formattings = executor.invokeAll((1..64).map { Callable { format(String(prefix.toCharArray())) } })
+                    .map { it.get() }
+            assertThat(formattings).allMatch { it === formattings[0] }
+        } finally {
+            executor.shutdown()
+            executor.awaitTermination(10, TimeUnit.SECONDS)
+        }
+    }
+}
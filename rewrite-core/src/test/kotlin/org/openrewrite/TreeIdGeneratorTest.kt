@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import java.util.UUID
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class TreeIdGeneratorTest {
+    @Test
+    fun sequentialIdsAreUniqueAcrossThreads() {
+        val generator = TreeIdGenerator.sequential()
+        val executor = Executors.newFixedThreadPool(4)
+        try {
+            val ids = executor.invokeAll((1..4).map { Callable { (1..10_000).map { generator.nextId() } } })
+                    .flatMap { it.get() }
+            assertThat(ids.toSet()).hasSize(40_000)
+            assertThat(ids).allMatch { it.version() == 4 && it.variant() == 2 }
+        } finally {
+            executor.shutdown()
+            executor.awaitTermination(10, TimeUnit.SECONDS)
+        }
+    }
+
+    @Test
+    fun sequentialGeneratorsDoNotOverlap() {
+        assertThat(TreeIdGenerator.sequential().nextId()).isNotEqualTo(TreeIdGenerator.sequential().nextId())
+    }
+
+    @Test
+    fun usingRestoresPreviousGenerator() {
+        val fixed = UUID(0, 1)
+        val outer = UUID(0, 2)
+
+        TreeIdGenerator.using({ outer }) {
+            assertThat(TreeIdGenerator.using({ fixed }) { Tree.randomId() }).isEqualTo(fixed)
+            assertThat(Tree.randomId()).isEqualTo(outer)
+        }
+
+        assertThat(Tree.randomId()).isNotIn(fixed, outer)
+    }
+}
@@ -142,4 +142,10 @@ class StringUtilsTest {
         assertThat(ensureNewlineCountBeforeComment("\n    \n    //", 1)).isEqualTo("\n    //")
         assertThat(ensureNewlineCountBeforeComment("\n\n\n    /***/", 2)).isEqualTo("\n\n    /***/")
     }
+
+    @Test
+    fun toHex() {
+        assertThat(toHex(byteArrayOf())).isEqualTo("")
+        assertThat(toHex(byteArrayOf(0, 1, 15, 16, 127, -128, -1))).isEqualTo("00010f107f80ff")
+    }
 }
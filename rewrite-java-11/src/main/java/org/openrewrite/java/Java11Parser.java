@@ -15,20 +15,27 @@
  */
 package org.openrewrite.java;
 
+import com.sun.tools.javac.code.Symbol;
 import com.sun.tools.javac.comp.*;
 import com.sun.tools.javac.file.JavacFileManager;
 import com.sun.tools.javac.main.JavaCompiler;
 import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.tree.TreeInfo;
+import com.sun.tools.javac.tree.TreeScanner;
 import com.sun.tools.javac.util.Context;
 import com.sun.tools.javac.util.Log;
 import com.sun.tools.javac.util.Options;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.openrewrite.Formatting;
+import org.openrewrite.TreeIdGenerator;
 import org.openrewrite.internal.StringUtils;
 import org.openrewrite.internal.lang.NonNullApi;
 import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.search.FindIndentJava;
 import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.TypeReferences;
+import org.openrewrite.refactor.Indentation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,6 +49,7 @@ import java.net.URI;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -59,6 +67,11 @@ public class Java11Parser implements JavaParser {
 
     private final MeterRegistry meterRegistry;
 
+    // meters that are recorded for every source file are registered once up front
+    private final Timer jdkParsingTimer;
+    private final Timer typeAttributionTimer;
+    private final Map<Integer, Timer> mappingTimersByParallelism = new ConcurrentHashMap<>();
+
     /**
      * When true, enables a parser to use class types from the in-memory type cache rather than performing
      * a deep equality check. Useful when deep class types have already been built from a separate parsing phase
@@ -75,6 +88,10 @@ public class Java11Parser implements JavaParser {
     private final JavaCompiler compiler;
     private final ResettableLog compilerLog = new ResettableLog(context);
     private final Collection<JavaStyle> styles;
+    private final int parallelism;
+
+    @Nullable
+    private final TreeIdGenerator idGenerator;
 
     private Java11Parser(@Nullable Collection<Path> classpath,
                          Charset charset,
@@ -82,12 +99,28 @@ public class Java11Parser implements JavaParser {
                          boolean suppressMappingErrors,
                          MeterRegistry meterRegistry,
                          boolean logCompilationWarningsAndErrors,
-                         Collection<JavaStyle> styles) {
+                         Collection<JavaStyle> styles,
+                         int parallelism,
+                         @Nullable TreeIdGenerator idGenerator) {
         this.meterRegistry = meterRegistry;
+        this.jdkParsingTimer = Timer.builder("rewrite.parse")
+                .description("The time spent by the JDK in parsing and tokenizing the source file")
+                .tag("file.type", "Java")
+                .tag("step", "JDK parsing")
+                .tag("parallelism", "1")
+                .register(meterRegistry);
+        this.typeAttributionTimer = Timer.builder("rewrite.parse")
+                .description("The time spent by the JDK in type attributing the source file")
+                .tag("file.type", "Java")
+                .tag("step", "Type attribution")
+                .tag("parallelism", "1")
+                .register(meterRegistry);
         this.classpath = classpath;
         this.relaxedClassTypeMatching = relaxedClassTypeMatching;
         this.suppressMappingErrors = suppressMappingErrors;
         this.styles = styles;
+        this.parallelism = parallelism;
+        this.idGenerator = idGenerator;
 
         this.pfm = new JavacFileManager(context, true, charset);
         context.put(JavaFileManager.class, this.pfm);
@@ -153,22 +186,17 @@ public class Java11Parser implements JavaParser {
         LinkedHashMap<Input, JCTree.JCCompilationUnit> cus = acceptedInputs(sourceFiles).stream()
                 .collect(Collectors.toMap(
                         Function.identity(),
-                        input -> Timer.builder("rewrite.parse")
-                                .description("The time spent by the JDK in parsing and tokenizing the source file")
-                                .tag("file.type", "Java")
-                                .tag("step", "JDK parsing")
-                                .register(meterRegistry)
-                                .record(() -> {
-                                    try {
-                                        return compiler.parse(new Java11ParserInputFileObject(input));
-                                    } catch (IllegalStateException e) {
-                                        if (e.getMessage().equals("endPosTable already set")) {
-                                            throw new IllegalStateException("Call reset() on JavaParser before parsing another" +
-                                                    "set of source files that have some of the same fully qualified names", e);
-                                        }
-                                        throw e;
-                                    }
-                                }),
+                        input -> jdkParsingTimer.record(() -> {
+                            try {
+                                return compiler.parse(new Java11ParserInputFileObject(input));
+                            } catch (IllegalStateException e) {
+                                if (e.getMessage().equals("endPosTable already set")) {
+                                    throw new IllegalStateException("Call reset() on JavaParser before parsing another" +
+                                            "set of source files that have some of the same fully qualified names", e);
+                                }
+                                throw e;
+                            }
+                        }),
                         (e2, e1) -> e1, LinkedHashMap::new));
 
         try {
@@ -189,45 +217,130 @@ public class Java11Parser implements JavaParser {
             logger.warn("Failed symbol entering or attribution", t);
         }
 
-        return cus.entrySet().stream()
-                .map(cuByPath -> {
-                    Timer.Sample sample = Timer.start();
-                    Input input = cuByPath.getKey();
-                    logger.trace("Building AST for {}", input.getUri());
-                    try {
-                        Java11ParserVisitor parser = new Java11ParserVisitor(
-                                input.getRelativePath(relativeTo),
-                                StringUtils.readFully(input.getSource()),
-                                relaxedClassTypeMatching, styles);
-                        J.CompilationUnit cu = (J.CompilationUnit) parser.scan(cuByPath.getValue(), Formatting.EMPTY);
-                        sample.stop(Timer.builder("rewrite.parse")
-                                .description("The time spent mapping the OpenJDK AST to Rewrite's AST")
-                                .tag("file.type", "Java")
-                                .tag("outcome", "success")
-                                .tag("exception", "none")
-                                .tag("step", "Map to Rewrite AST")
-                                .register(meterRegistry));
-                        return cu;
-                    } catch (Throwable t) {
-                        sample.stop(Timer.builder("rewrite.parse")
-                                .description("The time spent mapping the OpenJDK AST to Rewrite's AST")
-                                .tag("file.type", "Java")
-                                .tag("outcome", "error")
-                                .tag("exception", t.getClass().getSimpleName())
-                                .tag("step", "Map to Rewrite AST")
-                                .register(meterRegistry));
-
-                        if (!suppressMappingErrors) {
-                            throw t;
-                        }
-
-                        return null;
-                    }
-                })
+        buildLazySymbolState(cus.values());
+
+        int mappingParallelism = Math.max(1, Math.min(parallelism, cus.size()));
+        List<J.CompilationUnit> mapped = mappingParallelism == 1 ?
+                cus.entrySet().stream()
+                        .map(cuByPath -> map(cuByPath.getKey(), cuByPath.getValue(), relativeTo, 1))
+                        .collect(toList()) :
+                mapConcurrently(cus, relativeTo, mappingParallelism);
+
+        return mapped.stream()
                 .filter(Objects::nonNull)
                 .collect(toList());
     }
 
+    /**
+     * Mapping mostly reads fields of javac's trees, symbols and types that attribution has populated. The one
+     * exception is the parameters of the method symbols of method invocations, which javac builds on first use:
+     * that completes the method's owner and interns parameter names in the compiler context's name table, and none
+     * of that is thread-safe. So the parameters are built here, on the thread that attributed the source files,
+     * before any source file is mapped. This is done whatever the parallelism, so that the types that mapping reads
+     * from completed symbols don't depend on it.
+     */
+    private static void buildLazySymbolState(Collection<JCTree.JCCompilationUnit> cus) {
+        TreeScanner scanner = new TreeScanner() {
+            @Override
+            public void visitApply(JCTree.JCMethodInvocation tree) {
+                Symbol sym = TreeInfo.symbol(tree.meth);
+                if (sym instanceof Symbol.MethodSymbol) {
+                    ((Symbol.MethodSymbol) sym).params();
+                }
+                super.visitApply(tree);
+            }
+        };
+
+        for (JCTree.JCCompilationUnit cu : cus) {
+            try {
+                cu.accept(scanner);
+            } catch (Throwable t) {
+                // like attribution, this is best effort in the presence of errors
+                logger.warn("Failed to complete method symbols", t);
+            }
+        }
+    }
+
+    /**
+     * Once attribution is complete and the lazily built parts of symbols have been built, mapping only reads javac's
+     * state and is independent from one source file to the next, so each source file is mapped on its own thread.
+     * Results are kept in the order in which the inputs were given.
+     */
+    private List<J.CompilationUnit> mapConcurrently(Map<Input, JCTree.JCCompilationUnit> cus,
+                                                    @Nullable URI relativeTo,
+                                                    int mappingParallelism) {
+        List<Callable<J.CompilationUnit>> tasks = new ArrayList<>(cus.size());
+        for (Map.Entry<Input, JCTree.JCCompilationUnit> cuByPath : cus.entrySet()) {
+            tasks.add(() -> map(cuByPath.getKey(), cuByPath.getValue(), relativeTo, mappingParallelism));
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(mappingParallelism);
+        try {
+            List<J.CompilationUnit> mapped = new ArrayList<>(cus.size());
+            for (Future<J.CompilationUnit> cu : executorService.invokeAll(tasks)) {
+                mapped.add(cu.get());
+            }
+            return mapped;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while mapping to Rewrite's AST", e);
+        } catch (ExecutionException e) {
+            // only possible when mapping errors are not suppressed, so surface the mapping error itself
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException("Failed to map to Rewrite's AST", e.getCause());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Nullable
+    private J.CompilationUnit map(Input input, JCTree.JCCompilationUnit jcCompilationUnit, @Nullable URI relativeTo,
+                                  int mappingParallelism) {
+        Timer.Sample sample = Timer.start();
+        logger.trace("Building AST for {}", input.getUri());
+        try {
+            Java11ParserVisitor parser = new Java11ParserVisitor(
+                    input.getRelativePath(relativeTo),
+                    StringUtils.readFully(input.getSource()),
+                    relaxedClassTypeMatching, styles);
+            J.CompilationUnit cu = idGenerator == null ?
+                    (J.CompilationUnit) parser.scan(jcCompilationUnit, Formatting.EMPTY) :
+                    TreeIdGenerator.using(idGenerator, () -> (J.CompilationUnit) parser.scan(jcCompilationUnit, Formatting.EMPTY));
+            cu = TypeReferences.index(cu);
+            Indentation indentation = Indentation.build(cu, FindIndentJava::new);
+            cu = cu.withMarkers(cu.getMarkers().addOrUpdate(indentation));
+            indentation.attachedTo(cu);
+            sample.stop(mappingTimersByParallelism.computeIfAbsent(mappingParallelism, p -> Timer.builder("rewrite.parse")
+                    .description("The time spent mapping the OpenJDK AST to Rewrite's AST")
+                    .tag("file.type", "Java")
+                    .tag("outcome", "success")
+                    .tag("exception", "none")
+                    .tag("step", "Map to Rewrite AST")
+                    .tag("parallelism", Integer.toString(p))
+                    .register(meterRegistry)));
+            return cu;
+        } catch (Throwable t) {
+            sample.stop(Timer.builder("rewrite.parse")
+                    .description("The time spent mapping the OpenJDK AST to Rewrite's AST")
+                    .tag("file.type", "Java")
+                    .tag("outcome", "error")
+                    .tag("exception", t.getClass().getSimpleName())
+                    .tag("step", "Map to Rewrite AST")
+                    .tag("parallelism", Integer.toString(mappingParallelism))
+                    .register(meterRegistry));
+
+            if (!suppressMappingErrors) {
+                throw t;
+            }
+
+            return null;
+        }
+    }
+
     @Override
     public Java11Parser reset() {
         compilerLog.reset();
@@ -279,11 +392,7 @@ public class Java11Parser implements JavaParser {
         @Override
         public boolean isEmpty() {
             if (sample != null) {
-                sample.stop(Timer.builder("rewrite.parse")
-                        .description("The time spent by the JDK in type attributing the source file")
-                        .tag("file.type", "Java")
-                        .tag("step", "Type attribution")
-                        .register(meterRegistry));
+                sample.stop(typeAttributionTimer);
             }
             return todo.isEmpty();
         }
@@ -299,7 +408,7 @@ public class Java11Parser implements JavaParser {
         @Override
         public Java11Parser build() {
             return new Java11Parser(classpath, charset, relaxedClassTypeMatching,
-                    suppressMappingErrors, meterRegistry, logCompilationWarningsAndErrors, styles);
+                    suppressMappingErrors, meterRegistry, logCompilationWarningsAndErrors, styles, parallelism, idGenerator);
         }
     }
 }
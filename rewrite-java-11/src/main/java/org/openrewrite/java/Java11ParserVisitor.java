@@ -1523,28 +1523,13 @@ public class Java11ParserVisitor extends TreePathScanner<J, Formatting> {
             else {
                 if (shallow) {
                     return new JavaType.ShallowClass(sym.className());
-                } else {
-                    List<Symbol> stackWithSym = new ArrayList<>(stack);
-                    stackWithSym.add(sym);
-
-                    var fields = (sym.members_field == null ? Stream.empty() : stream(sym.members_field.getSymbols().spliterator(), false))
-                            .filter(elem -> elem instanceof Symbol.VarSymbol)
-                            .map(Symbol.VarSymbol.class::cast)
-                            .map(elem -> new JavaType.Var(
-                                    elem.name.toString(),
-                                    type(elem.type, stackWithSym),
-                                    filteredFlags(elem)
-                            ))
-                            .collect(toList());
-
+                } else if (stack.isEmpty()) {
+                    // a type mapped from the top of the stack doesn't depend on where it was reached from
                     var classType = (com.sun.tools.javac.code.Type.ClassType) type;
-                    var symType = (com.sun.tools.javac.code.Type.ClassType) sym.type;
-                    return JavaType.Class.build(sym.className(), fields,
-                            classType.typarams_field == null ? emptyList() : classType.typarams_field.stream().map(tParam -> type(tParam, stackWithSym, true)).filter(Objects::nonNull).collect(toList()),
-                            symType.interfaces_field == null ? emptyList() : symType.interfaces_field.stream().map(iParam -> type(iParam, stackWithSym, false)).filter(Objects::nonNull).collect(toList()),
-                            null,
-                            TypeUtils.asClass(type(classType.supertype_field, stackWithSym)),
-                            relaxedClassTypeMatching);
+                    return LibraryTypes.computeIfAbsent(classType, relaxedClassTypeMatching,
+                            () -> classType(classType, sym, stack));
+                } else {
+                    return classType((com.sun.tools.javac.code.Type.ClassType) type, sym, stack);
                 }
             }
         } else if (type instanceof com.sun.tools.javac.code.Type.TypeVar) {
@@ -1560,6 +1545,29 @@ public class Java11ParserVisitor extends TreePathScanner<J, Formatting> {
         }
     }
 
+    private JavaType.Class classType(com.sun.tools.javac.code.Type.ClassType classType, Symbol.ClassSymbol sym, List<Symbol> stack) {
+        List<Symbol> stackWithSym = new ArrayList<>(stack);
+        stackWithSym.add(sym);
+
+        var fields = (sym.members_field == null ? Stream.empty() : stream(sym.members_field.getSymbols().spliterator(), false))
+                .filter(elem -> elem instanceof Symbol.VarSymbol)
+                .map(Symbol.VarSymbol.class::cast)
+                .map(elem -> new JavaType.Var(
+                        elem.name.toString(),
+                        type(elem.type, stackWithSym),
+                        filteredFlags(elem)
+                ))
+                .collect(toList());
+
+        var symType = (com.sun.tools.javac.code.Type.ClassType) sym.type;
+        return JavaType.Class.build(sym.className(), fields,
+                classType.typarams_field == null ? emptyList() : classType.typarams_field.stream().map(tParam -> type(tParam, stackWithSym, true)).filter(Objects::nonNull).collect(toList()),
+                symType.interfaces_field == null ? emptyList() : symType.interfaces_field.stream().map(iParam -> type(iParam, stackWithSym, false)).filter(Objects::nonNull).collect(toList()),
+                null,
+                TypeUtils.asClass(type(classType.supertype_field, stackWithSym)),
+                relaxedClassTypeMatching);
+    }
+
     @Nullable
     private JavaType type(Tree t) {
         return type(((JCTree) t).type);
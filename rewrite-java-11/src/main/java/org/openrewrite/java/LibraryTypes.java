@@ -0,0 +1,330 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.java;
+
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Type;
+import org.openrewrite.internal.StringUtils;
+import org.openrewrite.internal.lang.NonNullApi;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.tree.JavaType;
+import org.openrewrite.java.tree.TypeUtils;
+
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A process-wide store of the types mapped from classes that javac loaded out of the JDK or out of jars, shared by
+ * every parser and every {@link JavaParser#reset()} round. A jar is identified by a hash of its contents, so the same
+ * version of a library found at different paths (in different repositories, say) maps to the same types, and a jar
+ * that is replaced in place is not mistaken for its former self. A stored class also carries the supertypes,
+ * interfaces and field types it was mapped with, which can come from other jars, so its key covers the origin of every
+ * class reachable from it, and upgrading any one of those jars maps the class afresh.
+ * <p>
+ * Only types that are fully determined by their class file are stored: parameterizations by type variables or
+ * wildcards, and classes compiled from sources or loaded from directories, are always mapped afresh. Like the type
+ * flyweights, the store only saves work, so it is bounded by simply starting over once it grows past its maximum size.
+ */
+@NonNullApi
+class LibraryTypes {
+    private static final int MAX_SIZE = Integer.getInteger("rewrite.java.type.library.max", 100_000);
+    private static final int MAX_JAR_HASHES = 10_000;
+
+    private static final String JDK = "jdk:" + System.getProperty("java.vendor") + ":" + System.getProperty("java.version");
+
+    private static final Map<String, JavaType> types = new ConcurrentHashMap<>();
+    private static final AtomicInteger size = new AtomicInteger();
+
+    private static final Map<JarFingerprint, String> jarHashes = new ConcurrentHashMap<>();
+
+    // a file manager keeps the same file object for a class file, so each jar is only checked once per parser
+    private static final Map<JavaFileObject, String> origins = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final Map<Symbol.ClassSymbol, String> reachableOrigins =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private LibraryTypes() {
+    }
+
+    /**
+     * @param type                     A javac class type.
+     * @param relaxedClassTypeMatching Whether the type is mapped with relaxed class type matching.
+     * @param mapping                  Maps the type when it isn't already stored, or can't be.
+     * @return The mapped type.
+     */
+    @Nullable
+    static JavaType computeIfAbsent(Type.ClassType type, boolean relaxedClassTypeMatching,
+                                    Supplier<JavaType> mapping) {
+        String key = key(type, relaxedClassTypeMatching);
+        if (key == null) {
+            return mapping.get();
+        }
+
+        JavaType stored = types.get(key);
+        if (stored != null) {
+            return stored;
+        }
+
+        JavaType mapped = mapping.get();
+
+        // without its supertype, a class is only a partial picture of the version of the library it comes from
+        JavaType.Class mappedClass = TypeUtils.asClass(mapped);
+        if (mappedClass != null && (mappedClass.getSupertype() != null || mappedClass == JavaType.Class.OBJECT)) {
+            if (size.get() >= MAX_SIZE) {
+                clearTypes();
+            }
+            if (types.putIfAbsent(key, mapped) == null) {
+                size.incrementAndGet();
+            }
+        }
+        return mapped;
+    }
+
+    static void clear() {
+        clearTypes();
+        jarHashes.clear();
+    }
+
+    /**
+     * Starts the store over, but keeps the jar hashes, which are bounded by the number of versions of jars seen and
+     * are far costlier to compute again than the types.
+     */
+    private static void clearTypes() {
+        types.clear();
+        size.set(0);
+        origins.clear();
+        reachableOrigins.clear();
+    }
+
+    static int size() {
+        return size.get();
+    }
+
+    @Nullable
+    private static String key(Type.ClassType type, boolean relaxedClassTypeMatching) {
+        String origin = origin((Symbol.ClassSymbol) type.tsym);
+        if (origin == null) {
+            return null;
+        }
+
+        if (type.typarams_field != null) {
+            for (Type typeParameter : type.typarams_field) {
+                // type parameters are mapped shallowly, so only a class' name matters and it is part of the key
+                if (!(typeParameter instanceof Type.ClassType) || typeParameter instanceof Type.ErrorType ||
+                        origin((Symbol.ClassSymbol) typeParameter.tsym) == null) {
+                    return null;
+                }
+            }
+        }
+
+        String reachable = reachableOrigins(type);
+        if (reachable == null) {
+            return null;
+        }
+
+        return origin + "!" + type.toString() + (relaxedClassTypeMatching ? "!relaxed" : "") + "!" + reachable;
+    }
+
+    /**
+     * @return A hash of the origins of every class that the mapped type refers to through its supertypes, interfaces
+     * and fields, or null when one of those classes can't be stored.
+     */
+    @Nullable
+    private static String reachableOrigins(Type.ClassType type) {
+        Symbol.ClassSymbol sym = (Symbol.ClassSymbol) type.tsym;
+        String reachable = reachableOrigins.get(sym);
+        if (reachable == null) {
+            Set<String> found = new TreeSet<>();
+            reachable = collectOrigins(type, new HashSet<>(), found) ? hash(String.join(",", found)) : "";
+            reachableOrigins.put(sym, reachable);
+        }
+        return reachable.isEmpty() ? null : reachable;
+    }
+
+    /**
+     * Follows the same parts of a type that {@link Java11ParserVisitor} maps. Type parameters are mapped shallowly, so
+     * only their names end up in the mapped type.
+     *
+     * @return false when a class that is reachable from the type has no origin that can be stored.
+     */
+    private static boolean collectOrigins(@Nullable Type type, Set<Symbol> visited, Set<String> found) {
+        if (type instanceof Type.ErrorType) {
+            return false;
+        } else if (type instanceof Type.ArrayType) {
+            return collectOrigins(((Type.ArrayType) type).elemtype, visited, found);
+        } else if (type instanceof Type.TypeVar) {
+            return collectOrigins(type.getUpperBound(), visited, found);
+        } else if (!(type instanceof Type.ClassType)) {
+            return true;
+        }
+
+        Symbol.ClassSymbol sym = (Symbol.ClassSymbol) type.tsym;
+        if (!visited.add(sym)) {
+            return true;
+        }
+
+        String origin = origin(sym);
+        if (origin == null) {
+            return false;
+        }
+        found.add(origin);
+
+        if (sym.members_field != null) {
+            for (Symbol member : sym.members_field.getSymbols()) {
+                if (member instanceof Symbol.VarSymbol && !collectOrigins(member.type, visited, found)) {
+                    return false;
+                }
+            }
+        }
+
+        Type.ClassType symType = (Type.ClassType) sym.type;
+        if (symType.interfaces_field != null) {
+            for (Type anInterface : symType.interfaces_field) {
+                if (!collectOrigins(anInterface, visited, found)) {
+                    return false;
+                }
+            }
+        }
+
+        return collectOrigins(((Type.ClassType) type).supertype_field, visited, found);
+    }
+
+    @Nullable
+    private static String origin(Symbol.ClassSymbol sym) {
+        JavaFileObject classfile = sym.classfile;
+        if (classfile == null || classfile.getKind() != JavaFileObject.Kind.CLASS) {
+            return null;
+        }
+
+        String origin = origins.get(classfile);
+        if (origin == null) {
+            origin = origin(classfile);
+            origins.put(classfile, origin);
+        }
+        return origin.isEmpty() ? null : origin;
+    }
+
+    /**
+     * @return The origin of the class file, or an empty string when the types mapped from it can't be stored.
+     */
+    private static String origin(JavaFileObject classfile) {
+        URI uri = classfile.toUri();
+        if ("jrt".equals(uri.getScheme())) {
+            return JDK;
+        } else if ("jar".equals(uri.getScheme())) {
+            String jar = uri.getSchemeSpecificPart();
+            int entrySeparator = jar.indexOf("!/");
+            if (entrySeparator < 0) {
+                return "";
+            }
+            try {
+                return jarHash(Paths.get(URI.create(jar.substring(0, entrySeparator))));
+            } catch (IllegalArgumentException | UncheckedIOException e) {
+                return "";
+            }
+        }
+
+        // classes in directories are typically build output that changes from one parse to the next
+        return "";
+    }
+
+    private static String jarHash(Path jar) {
+        JarFingerprint fingerprint = JarFingerprint.of(jar);
+        if (jarHashes.size() >= MAX_JAR_HASHES) {
+            // only reached when jars are rewritten in place over and over
+            jarHashes.clear();
+        }
+        return jarHashes.computeIfAbsent(fingerprint, f -> {
+            try (InputStream in = Files.newInputStream(jar)) {
+                MessageDigest sha = MessageDigest.getInstance("SHA-256");
+                byte[] buffer = new byte[64 * 1024];
+                for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                    sha.update(buffer, 0, n);
+                }
+                return "jar:" + StringUtils.toHex(sha.digest());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static String hash(String value) {
+        try {
+            return StringUtils.toHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Hashing a jar means reading it in full, so the hash is remembered for as long as the jar at a path has the same
+     * size and modification time.
+     */
+    private static class JarFingerprint {
+        private final Path path;
+        private final long size;
+        private final long lastModified;
+
+        private JarFingerprint(Path path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        static JarFingerprint of(Path jar) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+                return new JarFingerprint(jar, attributes.size(), attributes.lastModifiedTime().toMillis());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            JarFingerprint that = (JarFingerprint) o;
+            return size == that.size && lastModified == that.lastModified && path.equals(that.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * path.hashCode() + Long.hashCode(size)) + Long.hashCode(lastModified);
+        }
+    }
+}
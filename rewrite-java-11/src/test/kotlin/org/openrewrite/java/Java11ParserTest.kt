@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.java
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.openrewrite.TreeIdGenerator
+import java.util.UUID
+import java.util.concurrent.atomic.AtomicLong
+
+class Java11ParserTest {
+    @Test
+    fun parallelMappingPreservesOrderAndTypes() {
+        val sources = (0 until 20).map { i ->
+            """
+                import java.util.List;
+                public class A$i extends B {
+                    List<String> names;
+                    int n = $i;
+                }
+            """.trimIndent()
+        } + "class B {}"
+
+        val sequential = Java11Parser.builder().build().parse(*sources.toTypedArray())
+        val parallel = Java11Parser.builder().parallelism(4).build().parse(*sources.toTypedArray())
+
+        assertThat(parallel.map { it.printTrimmed() }).isEqualTo(sequential.map { it.printTrimmed() })
+        assertThat(parallel.map { it.classes[0].type!!.supertype?.fullyQualifiedName })
+                .isEqualTo(sequential.map { it.classes[0].type!!.supertype?.fullyQualifiedName })
+        assertThat(parallel[0].classes[0].type).isSameAs(sequential[0].classes[0].type)
+    }
+
+    @Test
+    fun idGeneratorSelectedByBuilder() {
+        val next = AtomicLong()
+        val cu = Java11Parser.builder()
+                .idGenerator(TreeIdGenerator { UUID(0, next.incrementAndGet()) })
+                .build()
+                .parse("class A { int n; }")[0]
+
+        assertThat(cu.id.mostSignificantBits).isEqualTo(0)
+        assertThat(cu.classes[0].id.mostSignificantBits).isEqualTo(0)
+        assertThat(next.get()).isGreaterThan(1)
+    }
+
+    @Test
+    fun libraryTypesAreMappedOncePerProcess() {
+        val source = "import java.util.List; class A { List<String> names; StringBuilder builder; }"
+
+        val parser = Java11Parser.builder().build()
+        val first = parser.parse(source)[0]
+        val stored = LibraryTypes.size()
+        assertThat(stored).isGreaterThan(0)
+
+        parser.reset()
+        val second = Java11Parser.builder().build().parse(source)[0]
+
+        assertThat(LibraryTypes.size()).isEqualTo(stored)
+        assertThat(second.classes[0].fields[1].vars[0].type)
+                .isSameAs(first.classes[0].fields[1].vars[0].type)
+    }
+}
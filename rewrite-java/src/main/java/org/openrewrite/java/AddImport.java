@@ -22,10 +22,10 @@ import org.openrewrite.Formatting;
 import org.openrewrite.marker.Markers;
 import org.openrewrite.Validated;
 import org.openrewrite.internal.lang.Nullable;
-import org.openrewrite.java.search.FindType;
 import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.JavaType;
 import org.openrewrite.java.tree.TreeBuilder;
+import org.openrewrite.java.tree.TypeReferences;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -61,9 +61,12 @@ public class AddImport extends JavaIsoRefactorVisitor {
 
     private JavaType.Class classType;
 
+    private MethodMatcher methodMatcher;
+
     public void setType(String type) {
         this.type = type;
         this.classType = JavaType.Class.build(type);
+        this.methodMatcher = new MethodMatcher(type + " *(..)");
     }
 
     public void setStatic(@Nullable String statik) {
@@ -96,11 +99,27 @@ public class AddImport extends JavaIsoRefactorVisitor {
 
     @Override
     public J.CompilationUnit visitCompilationUnit(J.CompilationUnit cu) {
-        if (JavaType.Primitive.fromKeyword(classType.getFullyQualifiedName()) != null) {
+        if (onlyIfReferenced && !hasReference(cu)) {
             return cu;
         }
 
-        if (onlyIfReferenced && !hasReference(cu)) {
+        J.CompilationUnit c = addImport(cu);
+        if (c != cu) {
+            OrderImports orderImports = new OrderImports();
+            orderImports.setRemoveUnused(false);
+            andThen(orderImports);
+        }
+        return c;
+    }
+
+    /**
+     * Adds the import without regard to whether it is referenced, and without ordering the imports.
+     *
+     * @param cu The compilation unit to add the import to.
+     * @return The compilation unit, unchanged if the import isn't needed or is already present.
+     */
+    J.CompilationUnit addImport(J.CompilationUnit cu) {
+        if (JavaType.Primitive.fromKeyword(classType.getFullyQualifiedName()) != null) {
             return cu;
         }
 
@@ -145,13 +164,11 @@ public class AddImport extends JavaIsoRefactorVisitor {
         }
 
         imports.add(importToAdd);
-        cu = cu.withImports(imports);
-
-        OrderImports orderImports = new OrderImports();
-        orderImports.setRemoveUnused(false);
-        andThen(orderImports);
+        return cu.withImports(imports);
+    }
 
-        return cu;
+    boolean isOnlyIfReferenced() {
+        return onlyIfReferenced;
     }
 
     /**
@@ -164,26 +181,31 @@ public class AddImport extends JavaIsoRefactorVisitor {
      * @param compilationUnit The compilation passed to the visitCompilationUnit
      * @return true if the import is referenced by the class either explicitly or through a method reference.
      */
-
-    //Note that using anyMatch when a stream is empty ends up returning true, which is not the behavior needed here!
-    @SuppressWarnings("SimplifyStreamApiCallChains")
     private boolean hasReference(J.CompilationUnit compilationUnit) {
+        if (statik == null) {
+            // only consult the index if it is current, since building it again costs as much as finding the references
+            TypeReferences typeReferences = TypeReferences.indexed(compilationUnit);
+            if (typeReferences != null && !typeReferences.hasTypeName(type)) {
+                return false;
+            }
+        }
+        return isReferenced(ImportReferences.of(compilationUnit));
+    }
 
+    boolean isReferenced(ImportReferences references) {
         if (statik == null) {
             //Non-static imports, we just look for field accesses.
-            return new FindType(type).visit(compilationUnit).stream()
-                    .filter(t -> !(t instanceof J.FieldAccess) || !((J.FieldAccess) t).isFullyQualifiedClassReference(type))
-                    .findAny()
-                    .isPresent();
+            return references.getImportableTypeNames().contains(type);
         }
 
         //For static imports, we are either looking for a specific method or a wildcard.
-        return compilationUnit.findMethodCalls(type + " *(..)").stream()
-                .filter(
-                        invocation -> invocation.getSelect() == null &&
-                                (statik.equals("*") || invocation.getName().getSimpleName().equals(statik))
-                )
-                .findAny()
-                .isPresent();
+        for (J.MethodInvocation invocation : references.getMethodInvocations()) {
+            if (invocation.getSelect() == null &&
+                    (statik.equals("*") || invocation.getName().getSimpleName().equals(statik)) &&
+                    methodMatcher.matches(invocation)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
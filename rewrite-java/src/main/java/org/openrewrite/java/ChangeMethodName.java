@@ -17,10 +17,12 @@ package org.openrewrite.java;
 
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Tags;
+import org.openrewrite.SourceFile;
 import org.openrewrite.Validated;
 import org.openrewrite.java.tree.Expression;
 import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.TreeBuilder;
+import org.openrewrite.java.tree.TypeReferences;
 
 import static org.openrewrite.Validated.required;
 
@@ -46,6 +48,11 @@ public class ChangeMethodName extends JavaIsoRefactorVisitor {
                 .and(required("name", name));
     }
 
+    @Override
+    public boolean isApplicable(SourceFile source) {
+        return TypeReferences.of((J.CompilationUnit) source).mayReferenceMethod(methodMatcher);
+    }
+
     @Override
     public J.MethodDecl visitMethod(J.MethodDecl method) {
         J.MethodDecl m = super.visitMethod(method);
@@ -18,6 +18,7 @@ package org.openrewrite.java;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Tags;
 import org.openrewrite.marker.Markers;
+import org.openrewrite.SourceFile;
 import org.openrewrite.Tree;
 import org.openrewrite.Validated;
 import org.openrewrite.internal.lang.Nullable;
@@ -63,6 +64,11 @@ public class ChangeType extends JavaIsoRefactorVisitor {
         return Tags.of("type", type, "target.type", targetType.getFullyQualifiedName());
     }
 
+    @Override
+    public boolean isApplicable(SourceFile source) {
+        return TypeReferences.of((J.CompilationUnit) source).referencesType(type);
+    }
+
     @Override
     public J.CompilationUnit visitCompilationUnit(J.CompilationUnit cu) {
         maybeAddImport(targetType);
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.java;
+
+import org.openrewrite.java.tree.J;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Adds and removes the imports that a refactoring visitor asked for with {@link JavaRefactorVisitor#maybeAddImport(String)},
+ * {@link JavaRefactorVisitor#maybeRemoveImport(String)} and the like, all with one scan for references and one
+ * ordering of the imports, rather than a visit of the compilation unit for each import.
+ */
+class EditImports extends JavaIsoRefactorVisitor {
+    // AddImport and RemoveImport operations, in the order they were asked for and without duplicates
+    private final Set<JavaIsoRefactorVisitor> edits = new LinkedHashSet<>();
+
+    void add(AddImport addImport) {
+        edits.add(addImport);
+    }
+
+    void remove(RemoveImport removeImport) {
+        edits.add(removeImport);
+    }
+
+    @Override
+    public J.CompilationUnit visitCompilationUnit(J.CompilationUnit cu) {
+        ImportReferences references = null;
+        for (JavaIsoRefactorVisitor edit : edits) {
+            if (edit instanceof RemoveImport || ((AddImport) edit).isOnlyIfReferenced()) {
+                // adding and removing imports doesn't change what is referenced outside of them
+                references = ImportReferences.of(cu);
+                break;
+            }
+        }
+
+        J.CompilationUnit c = cu;
+        boolean added = false;
+        for (JavaIsoRefactorVisitor edit : edits) {
+            if (edit instanceof AddImport) {
+                AddImport addImport = (AddImport) edit;
+                if (!addImport.isOnlyIfReferenced() || addImport.isReferenced(references)) {
+                    J.CompilationUnit withImport = addImport.addImport(c);
+                    added |= withImport != c;
+                    c = withImport;
+                }
+            } else {
+                c = ((RemoveImport) edit).removeImport(c, references);
+            }
+        }
+
+        if (added) {
+            OrderImports orderImports = new OrderImports();
+            orderImports.setRemoveUnused(false);
+            andThen(orderImports);
+        }
+
+        return c;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.java;
+
+import org.openrewrite.Tree;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.tree.Flag;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.JavaType;
+import org.openrewrite.java.tree.NameTree;
+import org.openrewrite.java.tree.TypeUtils;
+
+import java.util.*;
+
+/**
+ * The references outside of the imports of a compilation unit that decide whether an import is needed, gathered in
+ * one pass so that any number of imports can be added, removed or found to be unused without visiting the compilation
+ * unit for each. Nothing is returned up the tree: references are added to the collections as they are found.
+ */
+class ImportReferences extends AbstractJavaSourceVisitor<Void> {
+    private final Map<String, Set<JavaType.Class>> typeNamesByPackage = new HashMap<>();
+    private final Map<String, Set<String>> staticMethodsByType = new HashMap<>();
+    private final Set<String> importableTypeNames = new HashSet<>();
+    private final Set<String> identifiers = new HashSet<>();
+    private final List<J.MethodInvocation> methodInvocations = new ArrayList<>();
+
+    private ImportReferences() {
+    }
+
+    static ImportReferences of(J.CompilationUnit cu) {
+        ImportReferences references = new ImportReferences();
+        references.visit(cu);
+        return references;
+    }
+
+    /**
+     * @return Types named in a type position, by package name.
+     */
+    Map<String, Set<JavaType.Class>> getTypeNamesByPackage() {
+        return typeNamesByPackage;
+    }
+
+    /**
+     * @return The names of static methods invoked without a select, by the fully qualified name of their declaring type.
+     */
+    Map<String, Set<String>> getStaticMethodsByType() {
+        return staticMethodsByType;
+    }
+
+    /**
+     * @return Fully qualified names of the types named in a type position other than by their fully qualified name,
+     * which is only possible when they are imported.
+     */
+    Set<String> getImportableTypeNames() {
+        return importableTypeNames;
+    }
+
+    /**
+     * @return The simple names of every identifier.
+     */
+    Set<String> getIdentifiers() {
+        return identifiers;
+    }
+
+    List<J.MethodInvocation> getMethodInvocations() {
+        return methodInvocations;
+    }
+
+    @Override
+    public Void defaultTo(@Nullable Tree t) {
+        return null;
+    }
+
+    @Override
+    public Void reduce(Void r1, Void r2) {
+        return null;
+    }
+
+    @Override
+    public Void visitImport(J.Import impoort) {
+        return null;
+    }
+
+    @Override
+    public Void visitTypeName(NameTree name) {
+        JavaType.Class asClass = TypeUtils.asClass(name.getType());
+        if (asClass != null) {
+            typeNamesByPackage.computeIfAbsent(asClass.getPackageName(), pkg -> new HashSet<>()).add(asClass);
+            if (!(name instanceof J.FieldAccess) ||
+                    !((J.FieldAccess) name).isFullyQualifiedClassReference(asClass.getFullyQualifiedName())) {
+                importableTypeNames.add(asClass.getFullyQualifiedName());
+            }
+        }
+        return super.visitTypeName(name);
+    }
+
+    @Override
+    public Void visitIdentifier(J.Ident ident) {
+        identifiers.add(ident.getSimpleName());
+        return super.visitIdentifier(ident);
+    }
+
+    @Override
+    public Void visitMethodInvocation(J.MethodInvocation method) {
+        methodInvocations.add(method);
+        if (method.getSelect() == null) {
+            JavaType.Method type = method.getType();
+            if (type != null && type.hasFlags(Flag.Static)) {
+                staticMethodsByType.computeIfAbsent(type.getDeclaringType().getFullyQualifiedName(), t -> new HashSet<>())
+                        .add(type.getName());
+            }
+        }
+        return super.visitMethodInvocation(method);
+    }
+}
@@ -19,6 +19,7 @@ import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Metrics;
 import org.openrewrite.Parser;
 import org.openrewrite.Style;
+import org.openrewrite.TreeIdGenerator;
 import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.java.tree.J;
 
@@ -140,6 +141,10 @@ public interface JavaParser extends Parser<J.CompilationUnit> {
         protected boolean logCompilationWarningsAndErrors = true;
         protected boolean suppressMappingErrors = false;
         protected List<JavaStyle> styles = new ArrayList<>();
+        protected int parallelism = 1;
+
+        @Nullable
+        protected TreeIdGenerator idGenerator;
 
         public B logCompilationWarningsAndErrors(boolean logCompilationWarningsAndErrors) {
             this.logCompilationWarningsAndErrors = logCompilationWarningsAndErrors;
@@ -176,6 +181,30 @@ public interface JavaParser extends Parser<J.CompilationUnit> {
             return (B) this;
         }
 
+        /**
+         * Map the OpenJDK AST of each source file to Rewrite's AST on several threads once the whole set of sources
+         * has been parsed and type attributed. Parsing and attribution themselves remain single-threaded, since they
+         * share one compiler context.
+         *
+         * @param parallelism The number of source files to map at the same time. A value of 1 (the default) maps
+         *                    source files one after the other on the calling thread.
+         * @return This builder.
+         */
+        public B parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return (B) this;
+        }
+
+        /**
+         * @param idGenerator The generator of ids for the elements of parsed trees. When not set, the
+         *                    generator in effect on the parsing thread is used.
+         * @return This builder.
+         */
+        public B idGenerator(TreeIdGenerator idGenerator) {
+            this.idGenerator = idGenerator;
+            return (B) this;
+        }
+
         public B styles(Iterable<? extends Style> styles) {
             stream(styles.spliterator(), false)
                     .filter(JavaStyle.class::isInstance)
@@ -17,10 +17,17 @@ package org.openrewrite.java;
 
 import org.openrewrite.AbstractRefactorVisitor;
 import org.openrewrite.Cursor;
+import org.openrewrite.RefactorVisitor;
+import org.openrewrite.SourceFile;
 import org.openrewrite.internal.lang.NonNull;
 import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.java.tree.*;
 
+import java.util.Collection;
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+
 /**
  * This is the class you want to extend from if your visitor might ever want to swap the AST element being visited
  * for a different type of AST element. For example visiting a method declaration and returning a field.
@@ -31,6 +38,11 @@ public class JavaRefactorVisitor extends AbstractRefactorVisitor<J> implements J
     protected JavaFormatter formatter;
     protected TreeBuilder treeBuilder;
 
+    @Override
+    public Collection<Class<? extends SourceFile>> getSourceTypes() {
+        return singletonList(J.CompilationUnit.class);
+    }
+
     @Override
     public J visitStatement(Statement statement) {
         return statement;
@@ -463,9 +475,7 @@ public class JavaRefactorVisitor extends AbstractRefactorVisitor<J> implements J
         AddImport op = new AddImport();
         op.setType(fullyQualifiedName);
         op.setOnlyIfReferenced(false);
-        if (!andThen().contains(op)) {
-            andThen(op);
-        }
+        editImports().add(op);
     }
 
     /**
@@ -480,10 +490,9 @@ public class JavaRefactorVisitor extends AbstractRefactorVisitor<J> implements J
     public void addImport(String fullyQualifiedName, String staticMethod) {
         AddImport op = new AddImport();
         op.setType(fullyQualifiedName);
+        op.setStatic(staticMethod);
         op.setOnlyIfReferenced(false);
-        if (!andThen().contains(op)) {
-            andThen(op);
-        }
+        editImports().add(op);
     }
 
     /**
@@ -509,9 +518,7 @@ public class JavaRefactorVisitor extends AbstractRefactorVisitor<J> implements J
     public void maybeAddImport(String fullyQualifiedName) {
         AddImport op = new AddImport();
         op.setType(fullyQualifiedName);
-        if (!andThen().contains(op)) {
-            andThen(op);
-        }
+        editImports().add(op);
     }
 
     /**
@@ -526,9 +533,7 @@ public class JavaRefactorVisitor extends AbstractRefactorVisitor<J> implements J
         AddImport op = new AddImport();
         op.setType(fullyQualifiedName);
         op.setStatic(statik);
-        if (!andThen().contains(op)) {
-            andThen(op);
-        }
+        editImports().add(op);
     }
 
     public void maybeRemoveImport(@Nullable JavaType.FullyQualified clazz) {
@@ -540,9 +545,23 @@ public class JavaRefactorVisitor extends AbstractRefactorVisitor<J> implements J
     public void maybeRemoveImport(String fullyQualifiedName) {
         RemoveImport op = new RemoveImport();
         op.setType(fullyQualifiedName);
-        if (!andThen().contains(op)) {
-            andThen(op);
+        editImports().remove(op);
+    }
+
+    /**
+     * Consecutive import edits are batched into one visitor. Once another visitor has been added after the batch, the
+     * next edit starts a new batch, so that every edit still runs in the same place relative to other visitors as it
+     * would have on its own.
+     */
+    private EditImports editImports() {
+        List<RefactorVisitor<? extends J>> andThen = andThen();
+        if (!andThen.isEmpty() && andThen.get(andThen.size() - 1) instanceof EditImports) {
+            return (EditImports) andThen.get(andThen.size() - 1);
         }
+
+        EditImports editImports = new EditImports();
+        andThen(editImports);
+        return editImports;
     }
 
     public void maybeUnwrapParentheses(Cursor parensCursor) {
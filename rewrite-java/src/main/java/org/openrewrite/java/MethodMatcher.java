@@ -15,6 +15,7 @@
  */
 package org.openrewrite.java;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.NonFinal;
@@ -30,36 +31,46 @@ import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.JavaType;
 import org.openrewrite.java.tree.TypeUtils;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
 import java.util.regex.Pattern;
 
 import static java.util.stream.Collectors.joining;
 
 @Getter
 public class MethodMatcher {
-    private Pattern targetTypePattern;
-    private Pattern methodNamePattern;
-    private Pattern argumentPattern;
+    private static final int MAX_COMPILED_SIGNATURES = 1024;
 
-    public MethodMatcher(String signature) {
-        RefactorMethodSignatureParser parser = new RefactorMethodSignatureParser(new CommonTokenStream(new AspectJLexer(
-                CharStreams.fromString(signature))));
+    /**
+     * Any number of matchers for the same signature share the one compilation. Besides the signatures configured on
+     * recipes, visitors build signatures from the source they visit, such as one per imported type, so only the most
+     * recently used compilations are kept.
+     */
+    private static final Map<String, CompiledSignature> COMPILED_SIGNATURES = Collections.synchronizedMap(
+            new LinkedHashMap<String, CompiledSignature>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompiledSignature> eldest) {
+                    return size() > MAX_COMPILED_SIGNATURES;
+                }
+            });
 
-        new RefactorMethodSignatureParserBaseVisitor<Void>() {
-            @Override
-            public Void visitMethodPattern(RefactorMethodSignatureParser.MethodPatternContext ctx) {
-                targetTypePattern = Pattern.compile(new TypeVisitor().visitTargetTypePattern(ctx.targetTypePattern()));
-                methodNamePattern = Pattern.compile(ctx.simpleNamePattern().children.stream()
-                        .map(c -> AspectjUtils.aspectjNameToPattern(c.toString()))
-                        .collect(joining("")));
-                argumentPattern = Pattern.compile(new FormalParameterVisitor().visitFormalParametersPattern(
-                        ctx.formalParametersPattern()));
-                return null;
-            }
-        }.visit(parser.methodPattern());
+    private final Pattern targetTypePattern;
+    private final Pattern methodNamePattern;
+    private final Pattern argumentPattern;
+
+    @Getter(AccessLevel.NONE)
+    private final CompiledSignature compiled;
+
+    public MethodMatcher(String signature) {
+        CompiledSignature compiled = COMPILED_SIGNATURES.get(signature);
+        if (compiled == null) {
+            // compiled outside of the lock, at the risk of compiling a signature twice when it is first used
+            compiled = new CompiledSignature(signature);
+            COMPILED_SIGNATURES.put(signature, compiled);
+        }
+        this.compiled = compiled;
+        this.targetTypePattern = compiled.targetTypePattern;
+        this.methodNamePattern = compiled.methodNamePattern;
+        this.argumentPattern = compiled.argumentPattern;
     }
 
     public boolean matches(J.MethodDecl method, J.ClassDecl enclosing) {
@@ -67,6 +78,14 @@ public class MethodMatcher {
             return false;
         }
 
+        if (!matchesTargetType(TypeUtils.asClass(enclosing.getType())) || !matchesMethodName(method.getSimpleName())) {
+            return false;
+        }
+
+        if (compiled.anyArguments) {
+            return true;
+        }
+
         String signaturePattern = method.getParams().getParams().stream()
                 .map(v -> {
                     if(v instanceof J.VariableDecls) {
@@ -85,9 +104,7 @@ public class MethodMatcher {
                 .filter(Objects::nonNull)
                 .collect(joining(","));
 
-        return matchesTargetType(TypeUtils.asClass(enclosing.getType())) &&
-                methodNamePattern.matcher(method.getSimpleName()).matches() &&
-                argumentPattern.matcher(signaturePattern).matches();
+        return argumentPattern.matcher(signaturePattern).matches();
     }
 
     public boolean matches(J.MethodInvocation method) {
@@ -100,14 +117,23 @@ public class MethodMatcher {
             return false;
         }
 
-        String resolvedSignaturePattern = method.getType().getResolvedSignature().getParamTypes().stream()
+        if (!matchesMethodName(method.getSimpleName()) || !matchesTargetType(method.getType().getDeclaringType())) {
+            return false;
+        }
+
+        List<JavaType> paramTypes = method.getType().getResolvedSignature().getParamTypes();
+        if (compiled.anyArguments) {
+            return true;
+        } else if (compiled.argumentTypes != null) {
+            return matchesArgumentTypes(paramTypes);
+        }
+
+        String resolvedSignaturePattern = paramTypes.stream()
                 .map(this::typePattern)
                 .filter(Objects::nonNull)
                 .collect(joining(","));
 
-        return matchesTargetType(method.getType().getDeclaringType()) &&
-                methodNamePattern.matcher(method.getSimpleName()).matches() &&
-                argumentPattern.matcher(resolvedSignaturePattern).matches();
+        return argumentPattern.matcher(resolvedSignaturePattern).matches();
     }
 
     public boolean matches(J.NewClass constructor) {
@@ -126,17 +152,46 @@ public class MethodMatcher {
         JavaType.Class type = TypeUtils.asClass(constructor.getType());
         assert type != null;
         return matchesTargetType(type) &&
-                methodNamePattern.matcher(type.getClassName()).matches() &&
+                matchesMethodName(type.getClassName()) &&
                 argumentPattern.matcher(signaturePattern).matches();
     }
 
     boolean matchesTargetType(@Nullable JavaType.FullyQualified type) {
         JavaType.Class asClass = TypeUtils.asClass(type);
-        return type != null && (targetTypePattern.matcher(type.getFullyQualifiedName()).matches() ||
+        return type != null && (matchesTargetTypeName(type.getFullyQualifiedName()) ||
                 type != JavaType.Class.OBJECT &&
                         (asClass == null || matchesTargetType(asClass.getSupertype() == null ? JavaType.Class.OBJECT : asClass.getSupertype())));
     }
 
+    private boolean matchesTargetTypeName(String fullyQualifiedName) {
+        return compiled.targetType == null ?
+                targetTypePattern.matcher(fullyQualifiedName).matches() :
+                compiled.targetType.equals(fullyQualifiedName);
+    }
+
+    private boolean matchesMethodName(String simpleName) {
+        return compiled.methodName == null ?
+                methodNamePattern.matcher(simpleName).matches() :
+                compiled.methodName.equals(simpleName);
+    }
+
+    private boolean matchesArgumentTypes(List<JavaType> paramTypes) {
+        List<String> argumentTypes = compiled.argumentTypes;
+        assert argumentTypes != null;
+
+        int i = 0;
+        for (JavaType paramType : paramTypes) {
+            String typePattern = typePattern(paramType);
+            if (typePattern == null) {
+                continue;
+            }
+            if (i >= argumentTypes.size() || !argumentTypes.get(i++).equals(typePattern)) {
+                return false;
+            }
+        }
+        return i == argumentTypes.size();
+    }
+
     @Nullable
     private String typePattern(JavaType type) {
         if (type instanceof JavaType.Primitive) {
@@ -150,6 +205,71 @@ public class MethodMatcher {
     }
 }
 
+/**
+ * The patterns of a method signature, along with the exact names that they match when they contain no wildcards,
+ * so that the common case of a fully specified signature can be matched without regular expressions.
+ */
+class CompiledSignature {
+    private static final Pattern LITERAL_NAME = Pattern.compile("[\\w.]+");
+    private static final Pattern LITERAL_ARGUMENTS = Pattern.compile("([\\w.,]|\\\\\\[\\\\])*");
+    private static final String ANY_ARGUMENTS = "(" + FormalParameterVisitor.DOT_DOT_REGEX + ")?";
+
+    Pattern targetTypePattern;
+    Pattern methodNamePattern;
+    Pattern argumentPattern;
+
+    @Nullable
+    final String targetType;
+
+    @Nullable
+    final String methodName;
+
+    /**
+     * The exact type of each argument, when none of them have wildcards.
+     */
+    @Nullable
+    final List<String> argumentTypes;
+
+    final boolean anyArguments;
+
+    CompiledSignature(String signature) {
+        RefactorMethodSignatureParser parser = new RefactorMethodSignatureParser(new CommonTokenStream(new AspectJLexer(
+                CharStreams.fromString(signature))));
+
+        new RefactorMethodSignatureParserBaseVisitor<Void>() {
+            @Override
+            public Void visitMethodPattern(RefactorMethodSignatureParser.MethodPatternContext ctx) {
+                targetTypePattern = Pattern.compile(new TypeVisitor().visitTargetTypePattern(ctx.targetTypePattern()));
+                methodNamePattern = Pattern.compile(ctx.simpleNamePattern().children.stream()
+                        .map(c -> AspectjUtils.aspectjNameToPattern(c.toString()))
+                        .collect(joining("")));
+                argumentPattern = Pattern.compile(new FormalParameterVisitor().visitFormalParametersPattern(
+                        ctx.formalParametersPattern()));
+                return null;
+            }
+        }.visit(parser.methodPattern());
+
+        targetType = literal(targetTypePattern);
+        methodName = literal(methodNamePattern);
+
+        String arguments = argumentPattern.pattern();
+        anyArguments = arguments.equals(ANY_ARGUMENTS);
+        if (LITERAL_ARGUMENTS.matcher(arguments).matches()) {
+            String argumentTypeNames = arguments.replace("\\[\\]", "[]");
+            argumentTypes = argumentTypeNames.isEmpty() ?
+                    Collections.emptyList() :
+                    Arrays.asList(argumentTypeNames.split(","));
+        } else {
+            argumentTypes = null;
+        }
+    }
+
+    @Nullable
+    private static String literal(Pattern pattern) {
+        return LITERAL_NAME.matcher(pattern.pattern()).matches() ? pattern.pattern() : null;
+    }
+}
+
 class TypeVisitor extends RefactorMethodSignatureParserBaseVisitor<String> {
     @Override
     public String visitClassNameOrInterface(RefactorMethodSignatureParser.ClassNameOrInterfaceContext ctx) {
@@ -185,6 +305,8 @@ class TypeVisitor extends RefactorMethodSignatureParserBaseVisitor<String> {
  * picks out execution join points for void methods named m whose last parameter is of type int.
  */
 class FormalParameterVisitor extends RefactorMethodSignatureParserBaseVisitor<String> {
+    static final String DOT_DOT_REGEX = "([^,]+,)*([^,]+)";
+
     private final List<Argument> arguments = new ArrayList<>();
 
     @Override
@@ -242,7 +364,7 @@ class FormalParameterVisitor extends RefactorMethodSignatureParserBaseVisitor<St
         private static final Argument DOT_DOT = new Argument() {
             @Override
             String getRegex() {
-                return "([^,]+,)*([^,]+)";
+                return DOT_DOT_REGEX;
             }
         };
 
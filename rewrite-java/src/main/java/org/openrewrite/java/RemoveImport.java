@@ -29,6 +29,7 @@ import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Set;
 
+import static java.util.Collections.emptySet;
 import static java.util.stream.Collectors.toList;
 import static org.openrewrite.Tree.randomId;
 
@@ -50,10 +51,6 @@ public class RemoveImport extends JavaIsoRefactorVisitor {
     private final Set<String> referencedFields = new HashSet<>();
     private final Set<J.Import> staticNamedImports = Collections.newSetFromMap(new IdentityHashMap<>());
 
-    public RemoveImport() {
-        setCursoringOn();
-    }
-
     @Override
     public Iterable<Tag> getTags() {
         return Tags.of("type", type);
@@ -72,6 +69,22 @@ public class RemoveImport extends JavaIsoRefactorVisitor {
 
     @Override
     public J.CompilationUnit visitCompilationUnit(J.CompilationUnit cu) {
+        return removeImport(cu, ImportReferences.of(cu));
+    }
+
+    @Override
+    public RemoveImport copyForWorker() {
+        RemoveImport copy = new RemoveImport();
+        copy.setType(type);
+        return copy;
+    }
+
+    /**
+     * @param cu         The compilation unit to remove the import from.
+     * @param references The references outside of the imports of the compilation unit.
+     * @return The compilation unit, unchanged if the import is still referenced or isn't present.
+     */
+    J.CompilationUnit removeImport(J.CompilationUnit cu, ImportReferences references) {
         namedImport = null;
         starImport = null;
         staticStarImport = null;
@@ -80,56 +93,38 @@ public class RemoveImport extends JavaIsoRefactorVisitor {
         referencedFields.clear();
         staticNamedImports.clear();
 
-        J.CompilationUnit c = super.visitCompilationUnit(cu);
-        return staticImportDeletions(classImportDeletions(c));
-    }
-
-    @Override
-    public J.Import visitImport(J.Import impoort) {
-        if (impoort.isStatic()) {
-            if (impoort.getQualid().getTarget().printTrimmed().equals(type)) {
-                if ("*".equals(impoort.getQualid().getSimpleName())) {
-                    staticStarImport = impoort;
-                } else {
-                    staticNamedImports.add(impoort);
+        for (J.Import impoort : cu.getImports()) {
+            if (impoort.isStatic()) {
+                if (impoort.getQualid().getTarget().printTrimmed().equals(type)) {
+                    if ("*".equals(impoort.getQualid().getSimpleName())) {
+                        staticStarImport = impoort;
+                    } else {
+                        staticNamedImports.add(impoort);
+                    }
+                }
+            } else {
+                if (impoort.getQualid().printTrimmed().equals(type)) {
+                    namedImport = impoort;
+                } else if ("*".equals(impoort.getQualid().getSimpleName()) && type.startsWith(impoort.getQualid().getTarget().printTrimmed())) {
+                    starImport = impoort;
                 }
-            }
-        } else {
-            if (impoort.getQualid().printTrimmed().equals(type)) {
-                namedImport = impoort;
-            } else if ("*".equals(impoort.getQualid().getSimpleName()) && type.startsWith(impoort.getQualid().getTarget().printTrimmed())) {
-                starImport = impoort;
             }
         }
 
-        return super.visitImport(impoort);
-    }
-
-    @Override
-    public NameTree visitTypeName(NameTree name) {
-        JavaType.Class asClass = TypeUtils.asClass(name.getType());
-        if (asClass != null && asClass.getPackageName().equals(classType.getPackageName()) &&
-                getCursor().getPathAsStream().noneMatch(J.Import.class::isInstance)) {
-            referencedTypes.add(asClass.getFullyQualifiedName());
+        for (JavaType.Class typeName : references.getTypeNamesByPackage().getOrDefault(classType.getPackageName(), emptySet())) {
+            referencedTypes.add(typeName.getFullyQualifiedName());
         }
-        return super.visitTypeName(name);
-    }
 
-    @Override
-    public J.Ident visitIdentifier(J.Ident ident) {
-        if (getCursor().getPathAsStream().noneMatch(J.Import.class::isInstance)) {
-            referencedFields.add(ident.getSimpleName());
-        }
-        return super.visitIdentifier(ident);
-    }
+        referencedFields.addAll(references.getIdentifiers());
 
-    @Override
-    public J.MethodInvocation visitMethodInvocation(J.MethodInvocation method) {
-        if (methodMatcher.matches(method) && method.getType() != null &&
-                method.getType().getDeclaringType().getFullyQualifiedName().equals(type)) {
-            referencedMethods.add(method.getName());
+        for (J.MethodInvocation method : references.getMethodInvocations()) {
+            if (methodMatcher.matches(method) && method.getType() != null &&
+                    method.getType().getDeclaringType().getFullyQualifiedName().equals(type)) {
+                referencedMethods.add(method.getName());
+            }
         }
-        return super.visitMethodInvocation(method);
+
+        return staticImportDeletions(classImportDeletions(cu));
     }
 
     private J.CompilationUnit classImportDeletions(J.CompilationUnit cu) {
@@ -15,15 +15,13 @@
  */
 package org.openrewrite.java;
 
-import org.openrewrite.Tree;
-import org.openrewrite.java.tree.*;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.JavaType;
 
-import java.util.*;
-import java.util.stream.Stream;
-
-import static java.util.Collections.emptyMap;
-import static java.util.Collections.singleton;
-import static java.util.stream.Collectors.toSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Assumes imports are ordered. Only meant to be used by {@link OrderImports}.
@@ -39,8 +37,9 @@ class RemoveUnusedImports extends JavaIsoRefactorVisitor {
 
     @Override
     public J.CompilationUnit visitCompilationUnit(J.CompilationUnit cu) {
-        Map<String, Set<String>> methodsByTypeName = new StaticMethodsByType().visit(cu);
-        Map<String, Set<JavaType.Class>> typesByPackage = new TypesByPackage().visit(cu);
+        ImportReferences references = ImportReferences.of(cu);
+        Map<String, Set<String>> methodsByTypeName = references.getStaticMethodsByType();
+        Map<String, Set<JavaType.Class>> typesByPackage = references.getTypeNamesByPackage();
         boolean changed = false;
         // Whenever an import statement is found to be used it should be added to this list
         // At the end this list will contain only imports which are actually used
@@ -89,83 +88,4 @@ class RemoveUnusedImports extends JavaIsoRefactorVisitor {
 
         return changed ? cu.withImports(importsWithUsage) : cu;
     }
-
-    static class TypesByPackage extends AbstractJavaSourceVisitor<Map<String, Set<JavaType.Class>>> {
-        TypesByPackage() {
-            setCursoringOn();
-        }
-
-        @Override
-        public Map<String, Set<JavaType.Class>> reduce(Map<String, Set<JavaType.Class>> r1,
-                                                       Map<String, Set<JavaType.Class>> r2) {
-            if (r1.isEmpty()) {
-                return r2;
-            }
-
-            for (Map.Entry<String, Set<JavaType.Class>> r2Entry : r2.entrySet()) {
-                r1.compute(r2Entry.getKey(), (pkg, types) -> Stream.concat(
-                        types == null ? Stream.empty() : types.stream(),
-                        r2Entry.getValue().stream()
-                ).collect(toSet()));
-            }
-
-            return r1;
-        }
-
-        @Override
-        public Map<String, Set<JavaType.Class>> defaultTo(Tree t) {
-            return emptyMap();
-        }
-
-        @Override
-        public Map<String, Set<JavaType.Class>> visitTypeName(NameTree name) {
-            if (getCursor().firstEnclosing(J.Import.class) == null) {
-                JavaType.Class clazz = TypeUtils.asClass(name.getType());
-                if (clazz != null) {
-                    Map<String, Set<JavaType.Class>> typeByPackage = new HashMap<>();
-                    typeByPackage.put(clazz.getPackageName(), singleton(clazz));
-                    return typeByPackage;
-                }
-            }
-            return super.visitTypeName(name);
-        }
-    }
-
-    static class StaticMethodsByType extends AbstractJavaSourceVisitor<Map<String, Set<String>>> {
-        @Override
-        public Map<String, Set<String>> reduce(Map<String, Set<String>> r1,
-                                               Map<String, Set<String>> r2) {
-            if (r1.isEmpty()) {
-                return r2;
-            }
-
-            for (Map.Entry<String, Set<String>> r2Entry : r2.entrySet()) {
-                r1.compute(r2Entry.getKey(), (pkg, types) -> Stream.concat(
-                        types == null ? Stream.empty() : types.stream(),
-                        r2Entry.getValue().stream()
-                ).collect(toSet()));
-            }
-
-            return r1;
-        }
-
-        @Override
-        public Map<String, Set<String>> defaultTo(Tree t) {
-            return new HashMap<>();
-        }
-
-        @Override
-        public Map<String, Set<String>> visitMethodInvocation(J.MethodInvocation method) {
-            Map<String, Set<String>> m = super.visitMethodInvocation(method);
-            if (method.getSelect() == null) {
-                JavaType.Method type = method.getType();
-                if (type != null && type.hasFlags(Flag.Static)) {
-                    Map<String, Set<String>> m2 = new HashMap<>();
-                    m2.put(type.getDeclaringType().getFullyQualifiedName(), singleton(type.getName()));
-                    m = reduce(m, m2);
-                }
-            }
-            return m;
-        }
-    }
 }
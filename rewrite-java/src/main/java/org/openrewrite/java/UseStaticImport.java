@@ -47,13 +47,7 @@ public class UseStaticImport extends JavaIsoRefactorVisitor {
                     JavaType.FullyQualified receiverType = method.getType().getDeclaringType();
                     maybeRemoveImport(receiverType);
 
-                    AddImport addStatic = new AddImport();
-                    addStatic.setType(receiverType.getFullyQualifiedName());
-                    addStatic.setStatic(method.getSimpleName());
-                    addStatic.setOnlyIfReferenced(false);
-                    if (!andThen().contains(addStatic)) {
-                        andThen(addStatic);
-                    }
+                    addImport(receiverType.getFullyQualifiedName(), method.getSimpleName());
                 }
 
                 return method
@@ -17,33 +17,29 @@ package org.openrewrite.java.internal;
 
 import org.openrewrite.java.tree.J;
 
-public class ClassDeclToString {
-    public static String toString(J.ClassDecl clazz) {
-        return CLASS_DECL_PRINTER.visit(clazz);
-    }
-
-    private static final PrintJava CLASS_DECL_PRINTER = new PrintJava() {
-        @Override
-        public String visitClassDecl(J.ClassDecl classDecl) {
-            String modifiers = visitModifiers(classDecl.getModifiers()).trim();
+import static org.openrewrite.java.internal.PrintJava.print;
+import static org.openrewrite.java.internal.PrintJava.printModifiers;
 
-            String kind = "";
-            if (classDecl.getKind() instanceof J.ClassDecl.Kind.Class) {
-                kind = "class ";
-            } else if (classDecl.getKind() instanceof J.ClassDecl.Kind.Enum) {
-                kind = "enum ";
-            } else if (classDecl.getKind() instanceof J.ClassDecl.Kind.Interface) {
-                kind = "interface ";
-            } else if (classDecl.getKind() instanceof J.ClassDecl.Kind.Annotation) {
-                kind = "@interface ";
-            }
+public class ClassDeclToString {
+    public static String toString(J.ClassDecl classDecl) {
+        String modifiers = printModifiers(classDecl.getModifiers()).trim();
 
-            return (modifiers.isEmpty() ? "" : modifiers + " ") +
-                    kind + classDecl.getName().printTrimmed() +
-                    (classDecl.getTypeParameters() == null ? "" : classDecl.getTypeParameters().printTrimmed() + " ") +
-                    (classDecl.getExtends() == null ? "" : "extends" + visit(classDecl.getExtends().getFrom()) + " ") +
-                    (classDecl.getImplements() == null ? "" : (classDecl.getKind() instanceof J.ClassDecl.Kind.Interface ? "extends " : "implements ") +
-                            visit(classDecl.getImplements().getFrom(), ","));
+        String kind = "";
+        if (classDecl.getKind() instanceof J.ClassDecl.Kind.Class) {
+            kind = "class ";
+        } else if (classDecl.getKind() instanceof J.ClassDecl.Kind.Enum) {
+            kind = "enum ";
+        } else if (classDecl.getKind() instanceof J.ClassDecl.Kind.Interface) {
+            kind = "interface ";
+        } else if (classDecl.getKind() instanceof J.ClassDecl.Kind.Annotation) {
+            kind = "@interface ";
         }
-    };
+
+        return (modifiers.isEmpty() ? "" : modifiers + " ") +
+                kind + classDecl.getName().printTrimmed() +
+                (classDecl.getTypeParameters() == null ? "" : classDecl.getTypeParameters().printTrimmed() + " ") +
+                (classDecl.getExtends() == null ? "" : "extends" + classDecl.getExtends().getFrom().print() + " ") +
+                (classDecl.getImplements() == null ? "" : (classDecl.getKind() instanceof J.ClassDecl.Kind.Interface ? "extends " : "implements ") +
+                        print(classDecl.getImplements().getFrom(), ","));
+    }
 }
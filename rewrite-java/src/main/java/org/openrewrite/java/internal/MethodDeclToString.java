@@ -17,25 +17,21 @@ package org.openrewrite.java.internal;
 
 import org.openrewrite.java.tree.J;
 
+import static org.openrewrite.java.internal.PrintJava.print;
+import static org.openrewrite.java.internal.PrintJava.printModifiers;
+
 public class MethodDeclToString {
     public static String toString(J.MethodDecl method) {
-        return METHOD_PRINTER.visit(method);
-    }
+        String modifiers = printModifiers(method.getModifiers()).trim();
+        String params = "(" + print(method.getParams().getParams(), ",") + ")";
+        String thrown = method.getThrows() == null ? "" :
+                "throws" + print(method.getThrows().getExceptions(), ",");
 
-    private static final PrintJava METHOD_PRINTER = new PrintJava() {
-        @Override
-        public String visitMethod(J.MethodDecl method) {
-            String modifiers = visitModifiers(method.getModifiers()).trim();
-            String params = "(" + visit(method.getParams().getParams(), ",") + ")";
-            String thrown = method.getThrows() == null ? "" :
-                    "throws" + visit(method.getThrows().getExceptions(), ",");
-
-            return (modifiers.isEmpty() ? "" : modifiers + " ") +
-                    (method.getTypeParameters() == null ? "" : method.getTypeParameters() + " ") +
-                    (method.getReturnTypeExpr() == null ? "" : method.getReturnTypeExpr().printTrimmed() + " ") +
-                    method.getName().printTrimmed() +
-                    params +
-                    thrown;
-        }
-    };
+        return (modifiers.isEmpty() ? "" : modifiers + " ") +
+                (method.getTypeParameters() == null ? "" : method.getTypeParameters() + " ") +
+                (method.getReturnTypeExpr() == null ? "" : method.getReturnTypeExpr().printTrimmed() + " ") +
+                method.getName().printTrimmed() +
+                params +
+                thrown;
+    }
 }
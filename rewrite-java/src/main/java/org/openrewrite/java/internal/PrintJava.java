@@ -18,133 +18,232 @@ package org.openrewrite.java.internal;
 import org.openrewrite.Tree;
 import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.java.AbstractJavaSourceVisitor;
-import org.openrewrite.java.JavaSourceVisitor;
 import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.Statement;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 
-import static java.util.stream.StreamSupport.stream;
 import static org.openrewrite.java.tree.J.Modifier.*;
 
-public class PrintJava extends AbstractJavaSourceVisitor<String> {
+/**
+ * Prints Java source code by appending each element of the tree in turn to a single output, so that
+ * the cost of printing a tree is linear in the size of the source it prints.
+ */
+public class PrintJava extends AbstractJavaSourceVisitor<Void> {
+    private final Appendable out;
+
+    /**
+     * @param out The output to print to. May be a {@link StringBuilder}, or a {@link java.io.Writer} to stream
+     *            source directly to a file or socket.
+     */
+    public PrintJava(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * @return Everything printed so far, when printing to a {@link StringBuilder} or {@link java.io.StringWriter}.
+     */
     @Override
-    public String defaultTo(Tree t) {
-        return "";
+    public String toString() {
+        return out.toString();
+    }
+
+    /**
+     * @param tree The tree to print.
+     * @return The printed tree. Replaces printing with {@code new PrintJava().visit(tree)}, which no longer returns
+     * the source now that each element is appended to a single output.
+     */
+    public static String print(J tree) {
+        StringBuilder out = new StringBuilder();
+        new PrintJava(out).visit(tree);
+        return out.toString();
+    }
+
+    /**
+     * @param trees     The trees to print.
+     * @param delimiter Printed between each tree.
+     * @return The printed trees.
+     */
+    static String print(Collection<? extends J> trees, String delimiter) {
+        StringBuilder out = new StringBuilder();
+        new PrintJava(out).visit(trees, delimiter);
+        return out.toString();
+    }
+
+    static String printModifiers(Iterable<Modifier> modifiers) {
+        StringBuilder out = new StringBuilder();
+        new PrintJava(out).visitModifiers(modifiers);
+        return out.toString();
     }
 
     @Override
-    public String reduce(String r1, String r2) {
-        return r1 + r2;
+    public Void defaultTo(Tree t) {
+        return null;
     }
 
-    String visit(Collection<? extends Tree> nodes, String suffixBetween) {
-        return visit(nodes, suffixBetween, "");
+    private void append(@Nullable String s) {
+        try {
+            out.append(s == null ? "" : s);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
-    String visit(Collection<? extends Tree> nodes, String suffixBetween, String suffixEnd) {
-        String acc = "";
-        Tree[] array = nodes.toArray(new Tree[0]);
-        for (int i = 0; i < array.length; i++) {
-            Tree node = array[i];
-            acc = reduce(acc, visit(node) + (i == array.length - 1 ? suffixEnd : suffixBetween));
+    private void prefix(Tree tree) {
+        append(tree.getPrefix());
+    }
+
+    private Void suffix(Tree tree) {
+        append(tree.getSuffix());
+        return null;
+    }
+
+    private void fmt(@Nullable Tree tree, @Nullable String code) {
+        if (tree != null && code != null) {
+            prefix(tree);
+            append(code);
+            suffix(tree);
         }
-        return acc;
     }
 
-    String visitStatements(Collection<? extends Tree> statements) {
-        return statements.stream()
-                .map(this::fmtStatement)
-                .reduce("", this::reduce);
+    void visit(Collection<? extends Tree> nodes, String suffixBetween) {
+        visit(nodes, suffixBetween, "");
     }
 
-    private String fmtStatement(Tree statement) {
-        String semicolonOrEmpty = (statement instanceof Statement && ((Statement) statement).isSemicolonTerminated()) ||
-                (statement instanceof MethodDecl && ((MethodDecl) statement).isAbstract()) ? ";" : "";
-        return visit(statement) + semicolonOrEmpty;
+    void visit(Collection<? extends Tree> nodes, String suffixBetween, String suffixEnd) {
+        int i = 0;
+        for (Tree node : nodes) {
+            visit(node);
+            append(++i == nodes.size() ? suffixEnd : suffixBetween);
+        }
     }
 
-    private String fmt(@Nullable Tree tree, @Nullable String code) {
-        return tree == null || code == null ? "" : tree.getPrefix() + code + tree.getSuffix();
+    void visitStatements(Collection<? extends Tree> statements) {
+        for (Tree statement : statements) {
+            fmtStatement(statement);
+        }
     }
 
-    String visitModifiers(Iterable<Modifier> modifiers) {
-        return stream(modifiers.spliterator(), false)
-                .map(mod -> {
-                    String keyword = "";
-                    if (mod instanceof Public) {
-                        keyword = "public";
-                    } else if (mod instanceof Protected) {
-                        keyword = "protected";
-                    } else if (mod instanceof Private) {
-                        keyword = "private";
-                    } else if (mod instanceof Abstract) {
-                        keyword = "abstract";
-                    } else if (mod instanceof Native) {
-                        keyword = "native";
-                    } else if (mod instanceof Static) {
-                        keyword = "static";
-                    } else if (mod instanceof Strictfp) {
-                        keyword = "strictfp";
-                    } else if (mod instanceof Final) {
-                        keyword = "final";
-                    } else if (mod instanceof Transient) {
-                        keyword = "transient";
-                    } else if (mod instanceof Volatile) {
-                        keyword = "volatile";
-                    } else if (mod instanceof Default) {
-                        keyword = "default";
-                    } else if (mod instanceof Modifier.Synchronized) {
-                        keyword = "synchronized";
-                    }
-                    return fmt(mod, keyword);
-                })
-                .reduce("", this::reduce);
+    private void fmtStatement(Tree statement) {
+        visit(statement);
+        if ((statement instanceof Statement && ((Statement) statement).isSemicolonTerminated()) ||
+                (statement instanceof MethodDecl && ((MethodDecl) statement).isAbstract())) {
+            append(";");
+        }
     }
 
-    String visitDims(Collection<VariableDecls.Dimension> dims) {
-        return dims.stream().map(d -> fmt(d, "[" + visit(d.getWhitespace()) + "]"))
-                .reduce("", this::reduce);
+    void visitModifiers(Iterable<Modifier> modifiers) {
+        for (Modifier mod : modifiers) {
+            String keyword = "";
+            if (mod instanceof Public) {
+                keyword = "public";
+            } else if (mod instanceof Protected) {
+                keyword = "protected";
+            } else if (mod instanceof Private) {
+                keyword = "private";
+            } else if (mod instanceof Abstract) {
+                keyword = "abstract";
+            } else if (mod instanceof Native) {
+                keyword = "native";
+            } else if (mod instanceof Static) {
+                keyword = "static";
+            } else if (mod instanceof Strictfp) {
+                keyword = "strictfp";
+            } else if (mod instanceof Final) {
+                keyword = "final";
+            } else if (mod instanceof Transient) {
+                keyword = "transient";
+            } else if (mod instanceof Volatile) {
+                keyword = "volatile";
+            } else if (mod instanceof Default) {
+                keyword = "default";
+            } else if (mod instanceof Modifier.Synchronized) {
+                keyword = "synchronized";
+            }
+            fmt(mod, keyword);
+        }
+    }
+
+    void visitDims(Collection<VariableDecls.Dimension> dims) {
+        for (VariableDecls.Dimension d : dims) {
+            prefix(d);
+            append("[");
+            visit(d.getWhitespace());
+            append("]");
+            suffix(d);
+        }
     }
 
     @Override
-    public String visitAnnotatedType(AnnotatedType annotatedType) {
-        return fmt(annotatedType, visit(annotatedType.getAnnotations(), "") + visit(annotatedType.getTypeExpr()));
+    public Void visitAnnotatedType(AnnotatedType annotatedType) {
+        prefix(annotatedType);
+        visit(annotatedType.getAnnotations(), "");
+        visit(annotatedType.getTypeExpr());
+        return suffix(annotatedType);
     }
 
     @Override
-    public String visitAnnotation(Annotation annotation) {
-        String args = annotation.getArgs() == null ? "" :
-                fmt(annotation.getArgs(), "(" + visit(annotation.getArgs().getArgs(), ",") + ")");
-        return fmt(annotation, "@" + visit(annotation.getAnnotationType()) + args);
+    public Void visitAnnotation(Annotation annotation) {
+        prefix(annotation);
+        append("@");
+        visit(annotation.getAnnotationType());
+        if (annotation.getArgs() != null) {
+            prefix(annotation.getArgs());
+            append("(");
+            visit(annotation.getArgs().getArgs(), ",");
+            append(")");
+            suffix(annotation.getArgs());
+        }
+        return suffix(annotation);
     }
 
     @Override
-    public String visitArrayAccess(ArrayAccess arrayAccess) {
-        String dimension = fmt(arrayAccess.getDimension(), "[" + visit(arrayAccess.getDimension().getIndex()) + "]");
-        return fmt(arrayAccess, visit(arrayAccess.getIndexed()) + dimension);
+    public Void visitArrayAccess(ArrayAccess arrayAccess) {
+        prefix(arrayAccess);
+        visit(arrayAccess.getIndexed());
+        prefix(arrayAccess.getDimension());
+        append("[");
+        visit(arrayAccess.getDimension().getIndex());
+        append("]");
+        suffix(arrayAccess.getDimension());
+        return suffix(arrayAccess);
     }
 
     @Override
-    public String visitArrayType(ArrayType arrayType) {
-        String dimension = arrayType.getDimensions().stream()
-                .map(d -> fmt(d, "[" + visit(d.getInner()) + "]"))
-                .reduce("", this::reduce);
-        return fmt(arrayType, visit(arrayType.getElementType()) + dimension);
+    public Void visitArrayType(ArrayType arrayType) {
+        prefix(arrayType);
+        visit(arrayType.getElementType());
+        for (ArrayType.Dimension d : arrayType.getDimensions()) {
+            prefix(d);
+            append("[");
+            visit(d.getInner());
+            append("]");
+            suffix(d);
+        }
+        return suffix(arrayType);
     }
 
     @Override
-    public String visitAssert(Assert azzert) {
-        return fmt(azzert, "assert" + visit(azzert.getCondition()));
+    public Void visitAssert(Assert azzert) {
+        prefix(azzert);
+        append("assert");
+        visit(azzert.getCondition());
+        return suffix(azzert);
     }
 
     @Override
-    public String visitAssign(Assign assign) {
-        return fmt(assign, visit(assign.getVariable()) + "=" + visit(assign.getAssignment()));
+    public Void visitAssign(Assign assign) {
+        prefix(assign);
+        visit(assign.getVariable());
+        append("=");
+        visit(assign.getAssignment());
+        return suffix(assign);
     }
 
     @Override
-    public String visitAssignOp(AssignOp assignOp) {
+    public Void visitAssignOp(AssignOp assignOp) {
         String keyword = "";
         if (assignOp.getOperator() instanceof AssignOp.Operator.Addition) {
             keyword = "+=";
@@ -170,11 +269,15 @@ public class PrintJava extends AbstractJavaSourceVisitor<String> {
             keyword = ">>>=";
         }
 
-        return fmt(assignOp, visit(assignOp.getVariable()) + fmt(assignOp.getOperator(), keyword) + visit(assignOp.getAssignment()));
+        prefix(assignOp);
+        visit(assignOp.getVariable());
+        fmt(assignOp.getOperator(), keyword);
+        visit(assignOp.getAssignment());
+        return suffix(assignOp);
     }
 
     @Override
-    public String visitBinary(Binary binary) {
+    public Void visitBinary(Binary binary) {
         String keyword = "";
         if (binary.getOperator() instanceof Binary.Operator.Addition) {
             keyword = "+";
@@ -216,34 +319,52 @@ public class PrintJava extends AbstractJavaSourceVisitor<String> {
             keyword = "&&";
         }
 
-        return fmt(binary, visit(binary.getLeft()) + fmt(binary.getOperator(), keyword) + visit(binary.getRight()));
+        prefix(binary);
+        visit(binary.getLeft());
+        fmt(binary.getOperator(), keyword);
+        visit(binary.getRight());
+        return suffix(binary);
     }
 
     @Override
-    public String visitBlock(Block<J> block) {
-        return fmt(block, fmt(block.getStatic(), "static") + "{" + visitStatements(block.getStatements()) +
-                block.getEnd().getPrefix() + "}");
+    public Void visitBlock(Block<J> block) {
+        prefix(block);
+        fmt(block.getStatic(), "static");
+        append("{");
+        visitStatements(block.getStatements());
+        append(block.getEnd().getPrefix());
+        append("}");
+        return suffix(block);
     }
 
     @Override
-    public String visitBreak(Break breakStatement) {
-        return fmt(breakStatement, "break" + visit(breakStatement.getLabel()));
+    public Void visitBreak(Break breakStatement) {
+        prefix(breakStatement);
+        append("break");
+        visit(breakStatement.getLabel());
+        return suffix(breakStatement);
     }
 
     @Override
-    public String visitCase(Case caze) {
-        return fmt(caze, visit(caze.getPattern()) + ":" + visitStatements(caze.getStatements()));
+    public Void visitCase(Case caze) {
+        prefix(caze);
+        visit(caze.getPattern());
+        append(":");
+        visitStatements(caze.getStatements());
+        return suffix(caze);
     }
 
     @Override
-    public String visitCatch(Try.Catch catzh) {
-        return fmt(catzh, "catch" + visit(catzh.getParam()) + visit(catzh.getBody()));
+    public Void visitCatch(Try.Catch catzh) {
+        prefix(catzh);
+        append("catch");
+        visit(catzh.getParam());
+        visit(catzh.getBody());
+        return suffix(catzh);
     }
 
     @Override
-    public String visitClassDecl(ClassDecl classDecl) {
-        String modifiers = visitModifiers(classDecl.getModifiers());
-
+    public Void visitClassDecl(ClassDecl classDecl) {
         String kind = "";
         if (classDecl.getKind() instanceof ClassDecl.Kind.Class) {
             kind = "class";
@@ -255,203 +376,360 @@ public class PrintJava extends AbstractJavaSourceVisitor<String> {
             kind = "@interface";
         }
 
-        return fmt(classDecl, visit(classDecl.getAnnotations()) +
-                modifiers + fmt(classDecl.getKind(), kind) +
-                visit(classDecl.getName()) +
-                visit(classDecl.getTypeParameters()) +
-                (classDecl.getExtends() == null ? "" :
-                        fmt(classDecl.getExtends(), "extends" + visit(classDecl.getExtends().getFrom()))) +
-                (classDecl.getImplements() == null ? "" :
-                        fmt(classDecl.getImplements(),
-                                (classDecl.getKind() instanceof ClassDecl.Kind.Interface ? "extends" : "implements") +
-                                        visit(classDecl.getImplements().getFrom(), ","))) +
-                visit(classDecl.getBody()));
+        prefix(classDecl);
+        visit(classDecl.getAnnotations());
+        visitModifiers(classDecl.getModifiers());
+        fmt(classDecl.getKind(), kind);
+        visit(classDecl.getName());
+        visit(classDecl.getTypeParameters());
+        if (classDecl.getExtends() != null) {
+            prefix(classDecl.getExtends());
+            append("extends");
+            visit(classDecl.getExtends().getFrom());
+            suffix(classDecl.getExtends());
+        }
+        if (classDecl.getImplements() != null) {
+            prefix(classDecl.getImplements());
+            append(classDecl.getKind() instanceof ClassDecl.Kind.Interface ? "extends" : "implements");
+            visit(classDecl.getImplements().getFrom(), ",");
+            suffix(classDecl.getImplements());
+        }
+        visit(classDecl.getBody());
+        return suffix(classDecl);
     }
 
     @Override
-    public String visitCompilationUnit(CompilationUnit cu) {
-        return fmt(cu, (cu.getPackageDecl() == null ? "" : visit(cu.getPackageDecl()) + ";") +
-                visit(cu.getImports(), ";", ";") +
-                visit(cu.getClasses()));
+    public Void visitCompilationUnit(CompilationUnit cu) {
+        prefix(cu);
+        if (cu.getPackageDecl() != null) {
+            visit(cu.getPackageDecl());
+            append(";");
+        }
+        visit(cu.getImports(), ";", ";");
+        visit(cu.getClasses());
+        return suffix(cu);
     }
 
     @Override
-    public String visitContinue(Continue continueStatement) {
-        return fmt(continueStatement, "continue" + visit(continueStatement.getLabel()));
+    public Void visitContinue(Continue continueStatement) {
+        prefix(continueStatement);
+        append("continue");
+        visit(continueStatement.getLabel());
+        return suffix(continueStatement);
     }
 
     @Override
-    public String visitDoWhileLoop(DoWhileLoop doWhileLoop) {
-        return fmt(doWhileLoop, "do" + fmtStatement(doWhileLoop.getBody()) + fmt(doWhileLoop.getWhileCondition(), "while") + visit(doWhileLoop.getWhileCondition().getCondition()));
+    public Void visitDoWhileLoop(DoWhileLoop doWhileLoop) {
+        prefix(doWhileLoop);
+        append("do");
+        fmtStatement(doWhileLoop.getBody());
+        fmt(doWhileLoop.getWhileCondition(), "while");
+        visit(doWhileLoop.getWhileCondition().getCondition());
+        return suffix(doWhileLoop);
     }
 
     @Override
-    public String visitEmpty(Empty empty) {
-        return fmt(empty, "");
+    public Void visitEmpty(Empty empty) {
+        fmt(empty, "");
+        return null;
     }
 
     @Override
-    public String visitEnumValue(EnumValue enoom) {
-        String init = "";
-
+    public Void visitEnumValue(EnumValue enoom) {
+        prefix(enoom);
+        visit(enoom.getName());
         NewClass initializer = enoom.getInitializer();
         if (initializer != null) {
+            prefix(initializer);
             if (initializer.getArgs() != null) {
-                init = fmt(initializer.getArgs(), "(" + visit(initializer.getArgs().getArgs(), ",") + ")");
+                prefix(initializer.getArgs());
+                append("(");
+                visit(initializer.getArgs().getArgs(), ",");
+                append(")");
+                suffix(initializer.getArgs());
             }
-            init = fmt(initializer, init + visit(initializer.getBody()));
+            visit(initializer.getBody());
+            suffix(initializer);
         }
-
-        return fmt(enoom, visit(enoom.getName()) + init);
+        return suffix(enoom);
     }
 
     @Override
-    public String visitEnumValueSet(EnumValueSet enums) {
-        return fmt(enums, visit(enums.getEnums(), ",") +
-                (enums.isTerminatedWithSemicolon() ? ";" : ""));
+    public Void visitEnumValueSet(EnumValueSet enums) {
+        prefix(enums);
+        visit(enums.getEnums(), ",");
+        if (enums.isTerminatedWithSemicolon()) {
+            append(";");
+        }
+        return suffix(enums);
     }
 
     @Override
-    public String visitFieldAccess(FieldAccess fieldAccess) {
-        return fmt(fieldAccess, visit(fieldAccess.getTarget()) + "." + visit(fieldAccess.getName()));
+    public Void visitFieldAccess(FieldAccess fieldAccess) {
+        prefix(fieldAccess);
+        visit(fieldAccess.getTarget());
+        append(".");
+        visit(fieldAccess.getName());
+        return suffix(fieldAccess);
     }
 
-    public String visitFinally(Try.Finally finallie) {
-        return fmt(finallie, "finally" + visit(finallie.getBody()));
+    public Void visitFinally(Try.Finally finallie) {
+        prefix(finallie);
+        append("finally");
+        visit(finallie.getBody());
+        return suffix(finallie);
     }
 
     @Override
-    public String visitForLoop(ForLoop forLoop) {
+    public Void visitForLoop(ForLoop forLoop) {
         ForLoop.Control ctrl = forLoop.getControl();
-        String expr = fmt(ctrl, "(" + visit(ctrl.getInit()) + ";" + visit(ctrl.getCondition()) + ";" + visit(ctrl.getUpdate(), ",", "") + ")");
-        return fmt(forLoop, "for" + expr + fmtStatement(forLoop.getBody()));
-    }
-
-    @Override
-    public String visitForEachLoop(ForEachLoop forEachLoop) {
+        prefix(forLoop);
+        append("for");
+        prefix(ctrl);
+        append("(");
+        visit(ctrl.getInit());
+        append(";");
+        visit(ctrl.getCondition());
+        append(";");
+        visit(ctrl.getUpdate(), ",", "");
+        append(")");
+        suffix(ctrl);
+        fmtStatement(forLoop.getBody());
+        return suffix(forLoop);
+    }
+
+    @Override
+    public Void visitForEachLoop(ForEachLoop forEachLoop) {
         ForEachLoop.Control ctrl = forEachLoop.getControl();
-        String expr = fmt(ctrl, "(" + visit(ctrl.getVariable()) + ":" + visit(ctrl.getIterable()) + ")");
-        return fmt(forEachLoop, "for" + expr + fmtStatement(forEachLoop.getBody()));
-    }
-
-    @Override
-    public String visitIdentifier(Ident ident) {
-        return fmt(ident, ident.getSimpleName());
-    }
-
-    @Override
-    public String visitIf(If iff) {
-        String elsePart = iff.getElsePart() == null ? "" :
-                fmt(iff.getElsePart(), "else" + fmtStatement(iff.getElsePart().getStatement()));
-        return fmt(iff, "if" + visit(iff.getIfCondition()) + fmtStatement(iff.getThenPart()) + elsePart);
-    }
-
-    @Override
-    public String visitImport(Import impoort) {
-        return fmt(impoort, "import" + (impoort.isStatic() ? " static" : "") + visit(impoort.getQualid()));
-    }
-
-    @Override
-    public String visitInstanceOf(InstanceOf instanceOf) {
-        return fmt(instanceOf, visit(instanceOf.getExpr()) + "instanceof" + visit(instanceOf.getClazz()));
-    }
-
-    @Override
-    public String visitLabel(Label label) {
-        return fmt(label, visit(label.getLabel()) + ":" + visit(label.getStatement()));
+        prefix(forEachLoop);
+        append("for");
+        prefix(ctrl);
+        append("(");
+        visit(ctrl.getVariable());
+        append(":");
+        visit(ctrl.getIterable());
+        append(")");
+        suffix(ctrl);
+        fmtStatement(forEachLoop.getBody());
+        return suffix(forEachLoop);
+    }
+
+    @Override
+    public Void visitIdentifier(Ident ident) {
+        fmt(ident, ident.getSimpleName());
+        return null;
+    }
+
+    @Override
+    public Void visitIf(If iff) {
+        prefix(iff);
+        append("if");
+        visit(iff.getIfCondition());
+        fmtStatement(iff.getThenPart());
+        if (iff.getElsePart() != null) {
+            prefix(iff.getElsePart());
+            append("else");
+            fmtStatement(iff.getElsePart().getStatement());
+            suffix(iff.getElsePart());
+        }
+        return suffix(iff);
     }
 
     @Override
-    public String visitLambda(Lambda lambda) {
-        String params = visit(lambda.getParamSet().getParams(), ",");
-        String paramSet = fmt(lambda.getParamSet(), lambda.getParamSet().isParenthesized() ? "(" + params + ")" : params);
-        return fmt(lambda, paramSet + fmt(lambda.getArrow(), "->") + visit(lambda.getBody()));
+    public Void visitImport(Import impoort) {
+        prefix(impoort);
+        append(impoort.isStatic() ? "import static" : "import");
+        visit(impoort.getQualid());
+        return suffix(impoort);
     }
 
     @Override
-    public String visitLiteral(Literal literal) {
-        return fmt(literal, literal.getValueSource());
+    public Void visitInstanceOf(InstanceOf instanceOf) {
+        prefix(instanceOf);
+        visit(instanceOf.getExpr());
+        append("instanceof");
+        visit(instanceOf.getClazz());
+        return suffix(instanceOf);
     }
 
     @Override
-    public String visitMemberReference(MemberReference memberRef) {
-        return fmt(memberRef, visit(memberRef.getContaining()) + "::" +
-                visit(memberRef.getTypeParameters()) + visit(memberRef.getReference()));
+    public Void visitLabel(Label label) {
+        prefix(label);
+        visit(label.getLabel());
+        append(":");
+        visit(label.getStatement());
+        return suffix(label);
     }
 
     @Override
-    public String visitMethod(MethodDecl method) {
-        String modifiers = visitModifiers(method.getModifiers());
-        String params = fmt(method.getParams(), "(" + visit(method.getParams().getParams(), ",")) + ")";
-        String defaultValue = method.getDefaultValue() == null ? "" :
-                fmt(method.getDefaultValue(), "default" + visit(method.getDefaultValue().getValue()));
-        String thrown = method.getThrows() == null ? "" :
-                fmt(method.getThrows(), "throws" + visit(method.getThrows().getExceptions(), ","));
-
-        return fmt(method, visit(method.getAnnotations()) + modifiers + visit(method.getTypeParameters()) +
-                visit(method.getReturnTypeExpr()) + visit(method.getName()) + params +
-                thrown + visit(method.getBody()) + defaultValue);
+    public Void visitLambda(Lambda lambda) {
+        prefix(lambda);
+        prefix(lambda.getParamSet());
+        if (lambda.getParamSet().isParenthesized()) {
+            append("(");
+            visit(lambda.getParamSet().getParams(), ",");
+            append(")");
+        } else {
+            visit(lambda.getParamSet().getParams(), ",");
+        }
+        suffix(lambda.getParamSet());
+        fmt(lambda.getArrow(), "->");
+        visit(lambda.getBody());
+        return suffix(lambda);
+    }
+
+    @Override
+    public Void visitLiteral(Literal literal) {
+        fmt(literal, literal.getValueSource());
+        return null;
+    }
+
+    @Override
+    public Void visitMemberReference(MemberReference memberRef) {
+        prefix(memberRef);
+        visit(memberRef.getContaining());
+        append("::");
+        visit(memberRef.getTypeParameters());
+        visit(memberRef.getReference());
+        return suffix(memberRef);
+    }
+
+    @Override
+    public Void visitMethod(MethodDecl method) {
+        prefix(method);
+        visit(method.getAnnotations());
+        visitModifiers(method.getModifiers());
+        visit(method.getTypeParameters());
+        visit(method.getReturnTypeExpr());
+        visit(method.getName());
+        prefix(method.getParams());
+        append("(");
+        visit(method.getParams().getParams(), ",");
+        suffix(method.getParams());
+        append(")");
+        if (method.getThrows() != null) {
+            prefix(method.getThrows());
+            append("throws");
+            visit(method.getThrows().getExceptions(), ",");
+            suffix(method.getThrows());
+        }
+        visit(method.getBody());
+        if (method.getDefaultValue() != null) {
+            prefix(method.getDefaultValue());
+            append("default");
+            visit(method.getDefaultValue().getValue());
+            suffix(method.getDefaultValue());
+        }
+        return suffix(method);
     }
 
     @Override
-    public String visitMethodInvocation(MethodInvocation method) {
-        String args = fmt(method.getArgs(), "(" + visit(method.getArgs().getArgs(), ",") + ")");
-        String typeParams = method.getTypeParameters() == null ? "" :
-                fmt(method.getTypeParameters(), "<" + visit(method.getTypeParameters().getParams(), ",") + ">");
-        String selectSeparator = method.getSelect() == null ? "" : ".";
-        return fmt(method, visit(method.getSelect()) + selectSeparator + typeParams + visit(method.getName()) + args);
+    public Void visitMethodInvocation(MethodInvocation method) {
+        prefix(method);
+        if (method.getSelect() != null) {
+            visit(method.getSelect());
+            append(".");
+        }
+        if (method.getTypeParameters() != null) {
+            prefix(method.getTypeParameters());
+            append("<");
+            visit(method.getTypeParameters().getParams(), ",");
+            append(">");
+            suffix(method.getTypeParameters());
+        }
+        visit(method.getName());
+        prefix(method.getArgs());
+        append("(");
+        visit(method.getArgs().getArgs(), ",");
+        append(")");
+        suffix(method.getArgs());
+        return suffix(method);
     }
 
     @Override
-    public String visitMultiCatch(MultiCatch multiCatch) {
-        return fmt(multiCatch, visit(multiCatch.getAlternatives(), "|"));
+    public Void visitMultiCatch(MultiCatch multiCatch) {
+        prefix(multiCatch);
+        visit(multiCatch.getAlternatives(), "|");
+        return suffix(multiCatch);
     }
 
     @Override
-    public String visitMultiVariable(VariableDecls multiVariable) {
-        String modifiers = visitModifiers(multiVariable.getModifiers());
-        String varargs = multiVariable.getVarargs() == null ? "" :
-                fmt(multiVariable.getVarargs(), "...");
-
-        return fmt(multiVariable, visit(multiVariable.getAnnotations()) + modifiers +
-                visit(multiVariable.getTypeExpr()) + visitDims(multiVariable.getDimensionsBeforeName()) +
-                varargs + visit(multiVariable.getVars(), ","));
+    public Void visitMultiVariable(VariableDecls multiVariable) {
+        prefix(multiVariable);
+        visit(multiVariable.getAnnotations());
+        visitModifiers(multiVariable.getModifiers());
+        visit(multiVariable.getTypeExpr());
+        visitDims(multiVariable.getDimensionsBeforeName());
+        if (multiVariable.getVarargs() != null) {
+            fmt(multiVariable.getVarargs(), "...");
+        }
+        visit(multiVariable.getVars(), ",");
+        return suffix(multiVariable);
     }
 
     @Override
-    public String visitNewArray(NewArray newArray) {
-        String typeExpr = newArray.getTypeExpr() == null ? "" :
-                "new" + visit(newArray.getTypeExpr());
-        String dimensions = newArray.getDimensions().stream()
-                .map(d -> fmt(d, "[" + visit(d.getSize()) + "]"))
-                .reduce("", this::reduce);
-        String init = newArray.getInitializer() == null ? "" :
-                fmt(newArray.getInitializer(), "{" + visit(newArray.getInitializer().getElements(), ",") + "}");
-
-        return fmt(newArray, typeExpr + dimensions + init);
+    public Void visitNewArray(NewArray newArray) {
+        prefix(newArray);
+        if (newArray.getTypeExpr() != null) {
+            append("new");
+            visit(newArray.getTypeExpr());
+        }
+        for (NewArray.Dimension d : newArray.getDimensions()) {
+            prefix(d);
+            append("[");
+            visit(d.getSize());
+            append("]");
+            suffix(d);
+        }
+        if (newArray.getInitializer() != null) {
+            prefix(newArray.getInitializer());
+            append("{");
+            visit(newArray.getInitializer().getElements(), ",");
+            append("}");
+            suffix(newArray.getInitializer());
+        }
+        return suffix(newArray);
     }
 
     @Override
-    public String visitNewClass(NewClass newClass) {
-        String encl = newClass.getEncl() == null ? "" : visit(newClass.getEncl()) + ".";
-        String nooh = newClass.getNooh() == null ? "" : fmt(newClass.getNooh(), "");
-        String args = newClass.getArgs() == null ? "" :
-                fmt(newClass.getArgs(), "(" + visit(newClass.getArgs().getArgs(), ",") + ")");
-        return fmt(newClass, encl + nooh + "new" + visit(newClass.getClazz()) + args + visit(newClass.getBody()));
+    public Void visitNewClass(NewClass newClass) {
+        prefix(newClass);
+        if (newClass.getEncl() != null) {
+            visit(newClass.getEncl());
+            append(".");
+        }
+        fmt(newClass.getNooh(), "");
+        append("new");
+        visit(newClass.getClazz());
+        if (newClass.getArgs() != null) {
+            prefix(newClass.getArgs());
+            append("(");
+            visit(newClass.getArgs().getArgs(), ",");
+            append(")");
+            suffix(newClass.getArgs());
+        }
+        visit(newClass.getBody());
+        return suffix(newClass);
     }
 
     @Override
-    public String visitPackage(J.Package pkg) {
-        return fmt(pkg, "package" + visit(pkg.getExpr()));
+    public Void visitPackage(J.Package pkg) {
+        prefix(pkg);
+        append("package");
+        visit(pkg.getExpr());
+        return suffix(pkg);
     }
 
     @Override
-    public String visitParameterizedType(ParameterizedType type) {
-        return fmt(type, visit(type.getClazz()) + visit(type.getTypeParameters()));
+    public Void visitParameterizedType(ParameterizedType type) {
+        prefix(type);
+        visit(type.getClazz());
+        visit(type.getTypeParameters());
+        return suffix(type);
     }
 
     @Override
-    public String visitPrimitive(Primitive primitive) {
+    public Void visitPrimitive(Primitive primitive) {
         String keyword;
         switch (primitive.getType()) {
             case Boolean:
@@ -495,114 +773,180 @@ public class PrintJava extends AbstractJavaSourceVisitor<String> {
                 throw new IllegalStateException("Unable to print non-primitive type");
         }
 
-        return fmt(primitive, keyword);
+        fmt(primitive, keyword);
+        return null;
     }
 
     @Override
-    public <T extends J> String visitParentheses(Parentheses<T> parens) {
-        return fmt(parens, "(" + visit(parens.getTree()) + ")");
+    public <T extends J> Void visitParentheses(Parentheses<T> parens) {
+        prefix(parens);
+        append("(");
+        visit(parens.getTree());
+        append(")");
+        return suffix(parens);
     }
 
     @Override
-    public String visitReturn(Return retrn) {
-        return fmt(retrn, "return" + visit(retrn.getExpr()));
+    public Void visitReturn(Return retrn) {
+        prefix(retrn);
+        append("return");
+        visit(retrn.getExpr());
+        return suffix(retrn);
     }
 
     @Override
-    public String visitSwitch(Switch switzh) {
-        return fmt(switzh, "switch" + visit(switzh.getSelector()) + visit(switzh.getCases()));
+    public Void visitSwitch(Switch switzh) {
+        prefix(switzh);
+        append("switch");
+        visit(switzh.getSelector());
+        visit(switzh.getCases());
+        return suffix(switzh);
     }
 
     @Override
-    public String visitSynchronized(J.Synchronized synch) {
-        return fmt(synch, "synchronized" + visit(synch.getLock()) + visit(synch.getBody()));
+    public Void visitSynchronized(J.Synchronized synch) {
+        prefix(synch);
+        append("synchronized");
+        visit(synch.getLock());
+        visit(synch.getBody());
+        return suffix(synch);
     }
 
     @Override
-    public String visitTernary(Ternary ternary) {
-        return fmt(ternary, visit(ternary.getCondition()) + "?" + visit(ternary.getTruePart()) + ":" +
-                visit(ternary.getFalsePart()));
+    public Void visitTernary(Ternary ternary) {
+        prefix(ternary);
+        visit(ternary.getCondition());
+        append("?");
+        visit(ternary.getTruePart());
+        append(":");
+        visit(ternary.getFalsePart());
+        return suffix(ternary);
     }
 
     @Override
-    public String visitThrow(Throw thrown) {
-        return fmt(thrown, "throw" + visit(thrown.getException()));
+    public Void visitThrow(Throw thrown) {
+        prefix(thrown);
+        append("throw");
+        visit(thrown.getException());
+        return suffix(thrown);
     }
 
     @Override
-    public String visitTry(Try tryable) {
-        String resources = tryable.getResources() == null ? "" :
-                fmt(tryable.getResources(), "(" + visit(tryable.getResources().getDecls(), ";") + ")");
-
-        return fmt(tryable, "try" + resources + visit(tryable.getBody()) + visit(tryable.getCatches()) + visit(tryable.getFinally()));
+    public Void visitTry(Try tryable) {
+        prefix(tryable);
+        append("try");
+        if (tryable.getResources() != null) {
+            prefix(tryable.getResources());
+            append("(");
+            visit(tryable.getResources().getDecls(), ";");
+            append(")");
+            suffix(tryable.getResources());
+        }
+        visit(tryable.getBody());
+        visit(tryable.getCatches());
+        visit(tryable.getFinally());
+        return suffix(tryable);
     }
 
     @Override
-    public String visitTypeCast(TypeCast typeCast) {
-        return fmt(typeCast, visit(typeCast.getClazz()) + visit(typeCast.getExpr()));
+    public Void visitTypeCast(TypeCast typeCast) {
+        prefix(typeCast);
+        visit(typeCast.getClazz());
+        visit(typeCast.getExpr());
+        return suffix(typeCast);
     }
 
     @Override
-    public String visitTypeParameters(TypeParameters typeParams) {
-        return fmt(typeParams, "<" + visit(typeParams.getParams(), ",", "") + ">");
+    public Void visitTypeParameters(TypeParameters typeParams) {
+        prefix(typeParams);
+        append("<");
+        visit(typeParams.getParams(), ",", "");
+        append(">");
+        return suffix(typeParams);
     }
 
     @Override
-    public String visitTypeParameter(TypeParameter typeParam) {
-        String bounds = typeParam.getBounds() == null ? "" :
-                fmt(typeParam.getBounds(), "extends" + visit(typeParam.getBounds().getTypes(), "&"));
-        return fmt(typeParam, visit(typeParam.getAnnotations(), "") + visit(typeParam.getName()) + bounds);
+    public Void visitTypeParameter(TypeParameter typeParam) {
+        prefix(typeParam);
+        visit(typeParam.getAnnotations(), "");
+        visit(typeParam.getName());
+        if (typeParam.getBounds() != null) {
+            prefix(typeParam.getBounds());
+            append("extends");
+            visit(typeParam.getBounds().getTypes(), "&");
+            suffix(typeParam.getBounds());
+        }
+        return suffix(typeParam);
     }
 
     @Override
-    public String visitUnary(Unary unary) {
-        String code = "";
+    public Void visitUnary(Unary unary) {
+        prefix(unary);
         if (unary.getOperator() instanceof J.Unary.Operator.PreIncrement) {
-            code = "++" + visit(unary.getExpr());
+            append("++");
+            visit(unary.getExpr());
         } else if (unary.getOperator() instanceof J.Unary.Operator.PreDecrement) {
-            code = "--" + visit(unary.getExpr());
+            append("--");
+            visit(unary.getExpr());
         } else if (unary.getOperator() instanceof J.Unary.Operator.PostIncrement) {
-            code = visit(unary.getExpr()) + fmt(unary.getOperator(), "++");
+            visit(unary.getExpr());
+            fmt(unary.getOperator(), "++");
         } else if (unary.getOperator() instanceof J.Unary.Operator.PostDecrement) {
-            code = visit(unary.getExpr()) + fmt(unary.getOperator(), "--");
+            visit(unary.getExpr());
+            fmt(unary.getOperator(), "--");
         } else if (unary.getOperator() instanceof J.Unary.Operator.Positive) {
-            code = "+" + visit(unary.getExpr());
+            append("+");
+            visit(unary.getExpr());
         } else if (unary.getOperator() instanceof J.Unary.Operator.Negative) {
-            code = "-" + visit(unary.getExpr());
+            append("-");
+            visit(unary.getExpr());
         } else if (unary.getOperator() instanceof J.Unary.Operator.Complement) {
-            code = "~" + visit(unary.getExpr());
+            append("~");
+            visit(unary.getExpr());
         } else if (unary.getOperator() instanceof J.Unary.Operator.Not) {
-            code = "!" + visit(unary.getExpr());
+            append("!");
+            visit(unary.getExpr());
         }
-
-        return fmt(unary, code);
+        return suffix(unary);
     }
 
     @Override
-    public String visitUnparsedSource(UnparsedSource unparsed) {
-        return fmt(unparsed, unparsed.getSource());
+    public Void visitUnparsedSource(UnparsedSource unparsed) {
+        fmt(unparsed, unparsed.getSource());
+        return null;
     }
 
     @Override
-    public String visitVariable(VariableDecls.NamedVar variable) {
-        String init = variable.getInitializer() == null ? "" :
-                "=" + visit(variable.getInitializer());
-        return fmt(variable, visit(variable.getName()) + visitDims(variable.getDimensionsAfterName()) + init);
+    public Void visitVariable(VariableDecls.NamedVar variable) {
+        prefix(variable);
+        visit(variable.getName());
+        visitDims(variable.getDimensionsAfterName());
+        if (variable.getInitializer() != null) {
+            append("=");
+            visit(variable.getInitializer());
+        }
+        return suffix(variable);
     }
 
     @Override
-    public String visitWhileLoop(WhileLoop whileLoop) {
-        return fmt(whileLoop, "while" + visit(whileLoop.getCondition()) + fmtStatement(whileLoop.getBody()));
+    public Void visitWhileLoop(WhileLoop whileLoop) {
+        prefix(whileLoop);
+        append("while");
+        visit(whileLoop.getCondition());
+        fmtStatement(whileLoop.getBody());
+        return suffix(whileLoop);
     }
 
     @Override
-    public String visitWildcard(Wildcard wildcard) {
-        String bound = "";
+    public Void visitWildcard(Wildcard wildcard) {
+        prefix(wildcard);
+        append("?");
         if (wildcard.getBound() instanceof Wildcard.Bound.Extends) {
-            bound = fmt(wildcard.getBound(), "extends");
+            fmt(wildcard.getBound(), "extends");
         } else if (wildcard.getBound() instanceof Wildcard.Bound.Super) {
-            bound = fmt(wildcard.getBound(), "super");
+            fmt(wildcard.getBound(), "super");
         }
-        return fmt(wildcard, "?" + bound + visit(wildcard.getBoundedType()));
+        visit(wildcard.getBoundedType());
+        return suffix(wildcard);
     }
 }
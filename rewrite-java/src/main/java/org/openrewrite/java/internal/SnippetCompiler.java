@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.java.internal;
+
+import lombok.Value;
+import org.openrewrite.TreeSerializer;
+import org.openrewrite.internal.lang.NonNullApi;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.java.JavaStyle;
+import org.openrewrite.java.tree.J;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Compiles the synthetic classes that {@link org.openrewrite.java.tree.TreeBuilder} wraps around code snippets.
+ * <p>
+ * Constructing a parser bootstraps a whole javac context, which dwarfs the cost of parsing a snippet, so parsers
+ * are pooled by classpath and {@link JavaParser#reset() reset} between uses. Parsers are not thread-safe, so each
+ * compilation checks out a parser of its own. Styles have no bearing on how a snippet is parsed, so they are only
+ * attached to the compiled snippet afterwards, and only the most recently used classpaths keep a pool.
+ * <p>
+ * Compiled snippets are also cached by source text. Trees carry ids, and handing out the same tree twice could put
+ * duplicate ids into a source file, so the cache keeps snippets serialized and gives every tree read back from it
+ * fresh ids.
+ */
+@NonNullApi
+public class SnippetCompiler {
+    private static final int MAX_IDLE_PARSERS = Runtime.getRuntime().availableProcessors();
+    private static final int MAX_POOLED_CLASSPATHS = 4;
+    private static final int MAX_CACHED_SNIPPETS = 256;
+
+    private static final Map<List<Path>, Queue<JavaParser>> parsers = Collections.synchronizedMap(
+            new LinkedHashMap<List<Path>, Queue<JavaParser>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Path>, Queue<JavaParser>> eldest) {
+                    return size() > MAX_POOLED_CLASSPATHS;
+                }
+            });
+
+    private static final Map<SnippetKey, byte[]> snippets = Collections.synchronizedMap(
+            new LinkedHashMap<SnippetKey, byte[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<SnippetKey, byte[]> eldest) {
+                    return size() > MAX_CACHED_SNIPPETS;
+                }
+            });
+
+    private static final TreeSerializer<J.CompilationUnit> serializer = new TreeSerializer<>();
+
+    private SnippetCompiler() {
+    }
+
+    /**
+     * @param classpath The classpath to attribute the snippet against.
+     * @param styles    The styles of the compilation unit the snippet is destined for.
+     * @param source    The full source of the synthetic class.
+     * @return The compiled synthetic class, whose ids are unique to this call.
+     */
+    public static J.CompilationUnit compile(Collection<Path> classpath,
+                                            Collection<JavaStyle> styles,
+                                            String source) {
+        SnippetKey snippetKey = new SnippetKey(new ArrayList<>(classpath), source);
+
+        J.CompilationUnit cu;
+        byte[] serialized = snippets.get(snippetKey);
+        if (serialized != null) {
+            cu = serializer.readCopy(serialized);
+        } else {
+            cu = parse(snippetKey.getClasspath(), source);
+            snippets.put(snippetKey, serializer.write(cu));
+        }
+        return cu.withStyles(styles);
+    }
+
+    /**
+     * Drop all pooled parsers and cached snippets.
+     */
+    public static void clear() {
+        parsers.clear();
+        snippets.clear();
+    }
+
+    private static J.CompilationUnit parse(List<Path> classpath, String source) {
+        Queue<JavaParser> idle = parsers.computeIfAbsent(classpath, k -> new ConcurrentLinkedQueue<>());
+
+        JavaParser parser = idle.poll();
+        if (parser == null) {
+            parser = JavaParser.fromJavaVersion()
+                    .classpath(classpath)
+                    .build();
+        }
+
+        // a parser that failed part way through is not returned to the pool, since its state is unknown
+        J.CompilationUnit cu = parser.reset().parse(source).get(0);
+
+        if (idle.size() < MAX_IDLE_PARSERS) {
+            idle.offer(parser);
+        }
+        return cu;
+    }
+
+    @Value
+    private static class SnippetKey {
+        List<Path> classpath;
+        String source;
+    }
+}
@@ -19,26 +19,21 @@ import org.openrewrite.java.tree.J;
 
 import java.util.stream.Collectors;
 
+import static org.openrewrite.java.internal.PrintJava.printModifiers;
+
 public class VariableDeclsToString {
     public static String toString(J.VariableDecls v) {
-        return VARIABLE_PRINTER.visit(v);
-    }
+        String modifiers = printModifiers(v.getModifiers()).trim();
+        String varargs = v.getVarargs() == null ? "" : "...";
 
-    private static final PrintJava VARIABLE_PRINTER = new PrintJava() {
-        @Override
-        public String visitMultiVariable(J.VariableDecls multiVariable) {
-            String modifiers = visitModifiers(multiVariable.getModifiers()).trim();
-            String varargs = multiVariable.getVarargs() == null ? "" : "...";
-
-            return (modifiers.isEmpty() ? "" : modifiers + " ") +
-                    (multiVariable.getTypeExpr() == null ? "" : multiVariable.getTypeExpr().printTrimmed() + " ") +
-                    multiVariable.getDimensionsBeforeName().stream()
-                            .map(d -> "[]")
-                            .reduce("", this::reduce) +
-                    varargs +
-                    multiVariable.getVars().stream()
-                            .map(J.VariableDecls.NamedVar::getSimpleName)
-                            .collect(Collectors.joining(", "));
-        }
-    };
+        return (modifiers.isEmpty() ? "" : modifiers + " ") +
+                (v.getTypeExpr() == null ? "" : v.getTypeExpr().printTrimmed() + " ") +
+                v.getDimensionsBeforeName().stream()
+                        .map(d -> "[]")
+                        .collect(Collectors.joining()) +
+                varargs +
+                v.getVars().stream()
+                        .map(J.VariableDecls.NamedVar::getSimpleName)
+                        .collect(Collectors.joining(", "));
+    }
 }
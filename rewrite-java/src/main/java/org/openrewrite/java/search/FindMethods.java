@@ -19,6 +19,7 @@ import org.openrewrite.Tree;
 import org.openrewrite.java.AbstractJavaSourceVisitor;
 import org.openrewrite.java.MethodMatcher;
 import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.TypeReferences;
 
 import java.util.List;
 
@@ -65,6 +66,11 @@ public class FindMethods extends AbstractJavaSourceVisitor<List<J.MethodInvocati
         return emptyList();
     }
 
+    @Override
+    public List<J.MethodInvocation> visitCompilationUnit(J.CompilationUnit cu) {
+        return TypeReferences.of(cu).mayReferenceMethod(matcher) ? super.visitCompilationUnit(cu) : emptyList();
+    }
+
     @Override
     public List<J.MethodInvocation> visitMethodInvocation(J.MethodInvocation method) {
         return matcher.matches(method) ? singletonList(method) : super.visitMethodInvocation(method);
@@ -23,6 +23,7 @@ import org.openrewrite.java.JavaSourceVisitor;
 import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.JavaType;
 import org.openrewrite.java.tree.NameTree;
+import org.openrewrite.java.tree.TypeReferences;
 import org.openrewrite.java.tree.TypeUtils;
 
 import java.util.Collections;
@@ -56,6 +57,11 @@ public class FindType extends AbstractJavaSourceVisitor<Set<NameTree>> {
         return r1;
     }
 
+    @Override
+    public Set<NameTree> visitCompilationUnit(J.CompilationUnit cu) {
+        return TypeReferences.of(cu).hasTypeName(clazz) ? super.visitCompilationUnit(cu) : defaultTo(cu);
+    }
+
     @Override
     public Set<NameTree> visitTypeName(NameTree name) {
         JavaType.Class asClass = TypeUtils.asClass(name.getType());
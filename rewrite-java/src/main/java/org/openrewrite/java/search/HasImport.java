@@ -38,6 +38,17 @@ public class HasImport extends AbstractJavaSourceVisitor<Boolean> {
         return false;
     }
 
+    @Override
+    public Boolean visitCompilationUnit(J.CompilationUnit cu) {
+        // imports can only appear at the top of the compilation unit, so there is no need to visit anything else
+        for (J.Import impoort : cu.getImports()) {
+            if (visitImport(impoort)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public Boolean visitImport(J.Import impoort) {
         return impoort.isFromType(clazz);
@@ -22,6 +22,7 @@ import org.openrewrite.java.AbstractJavaSourceVisitor;
 import org.openrewrite.java.tree.J;
 import org.openrewrite.java.tree.JavaType;
 import org.openrewrite.java.tree.NameTree;
+import org.openrewrite.java.tree.TypeReferences;
 import org.openrewrite.java.tree.TypeUtils;
 
 public class HasType extends AbstractJavaSourceVisitor<Boolean> {
@@ -42,6 +43,11 @@ public class HasType extends AbstractJavaSourceVisitor<Boolean> {
         return false;
     }
 
+    @Override
+    public Boolean visitCompilationUnit(J.CompilationUnit cu) {
+        return TypeReferences.of(cu).hasTypeName(clazz);
+    }
+
     @Override
     public Boolean visitTypeName(NameTree name) {
         JavaType.Class asClass = TypeUtils.asClass(name.getType());
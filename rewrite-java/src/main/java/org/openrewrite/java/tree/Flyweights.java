@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.java.tree;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import org.openrewrite.internal.lang.NonNullApi;
+import org.openrewrite.internal.lang.Nullable;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A hash-consed table of types. Each key (e.g. a fully qualified name) holds a small number of structurally
+ * distinct variants. Lookups are lock-free: variants are compared first by their precomputed structural hash and only
+ * then by {@link JavaType#deepEquals(JavaType)}. Adding a variant locks only the variants of its own key.
+ * <p>
+ * Flyweights only save memory, so the table is bounded by simply starting over once it grows past its maximum size.
+ * Pinned types survive clearing.
+ */
+@NonNullApi
+class Flyweights<K, T extends JavaType> {
+    private static final int DEFAULT_MAX_SIZE = Integer.getInteger("rewrite.java.type.flyweights.max", 250_000);
+
+    private final ConcurrentMap<K, Variants<T>> variantsByKey = new ConcurrentHashMap<>();
+    private final Map<K, T> pinned = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final int maxSize;
+
+    Flyweights(String type) {
+        this(type, DEFAULT_MAX_SIZE);
+    }
+
+    Flyweights(String type, int maxSize) {
+        this.maxSize = maxSize;
+
+        Gauge.builder("rewrite.java.type.flyweights", size, AtomicInteger::get)
+                .description("The number of distinct types held by the type flyweight table")
+                .tag("type", type)
+                .register(Metrics.globalRegistry);
+
+        Gauge.builder("rewrite.java.type.flyweights.hit.ratio", this, Flyweights::hitRatio)
+                .description("The fraction of type constructions that reused an existing flyweight")
+                .tag("type", type)
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * @param key        The key the candidate is filed under.
+     * @param candidate  The type to add if no structurally equal variant exists.
+     * @param deepHash   A hash of the candidate that is consistent with {@link JavaType#deepEquals(JavaType)}.
+     * @param anyVariant Whether any existing variant of the key is an acceptable substitute for the candidate when
+     *                   no structurally equal variant exists.
+     * @return The flyweight representing the candidate.
+     */
+    T intern(K key, T candidate, int deepHash, boolean anyVariant) {
+        Variants<T> variants = variantsByKey.get(key);
+        if (variants == null) {
+            if (size.get() >= maxSize) {
+                clear();
+            }
+            variants = variantsByKey.computeIfAbsent(key, k -> new Variants<>());
+        }
+
+        T found = variants.find(candidate, deepHash, anyVariant);
+        if (found == null) {
+            synchronized (variants) {
+                found = variants.find(candidate, deepHash, anyVariant);
+                if (found == null) {
+                    variants.add(candidate, deepHash);
+                    size.incrementAndGet();
+                    misses.increment();
+                    return candidate;
+                }
+            }
+        }
+
+        hits.increment();
+        return found;
+    }
+
+    /**
+     * Add a type that must be returned for its key even after the table is cleared.
+     */
+    T pin(K key, T type, int deepHash) {
+        T flyweight = intern(key, type, deepHash, false);
+        pinned.put(key, flyweight);
+        return flyweight;
+    }
+
+    void clear() {
+        variantsByKey.clear();
+        size.set(0);
+        for (Map.Entry<K, T> pin : pinned.entrySet()) {
+            Variants<T> variants = new Variants<>();
+            variants.add(pin.getValue(), TypeUtils.deepHashCode(pin.getValue()));
+            variantsByKey.put(pin.getKey(), variants);
+            size.incrementAndGet();
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    private double hitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Copy-on-write, since there shouldn't be many distinct types filed under the same key and lookups vastly
+     * outnumber additions.
+     */
+    private static class Variants<T extends JavaType> {
+        private volatile Object[] types = new Object[0];
+        private volatile int[] hashes = new int[0];
+
+        @SuppressWarnings("unchecked")
+        @Nullable
+        T find(T candidate, int deepHash, boolean anyVariant) {
+            Object[] types = this.types;
+            int[] hashes = this.hashes;
+            for (int i = 0; i < types.length && i < hashes.length; i++) {
+                if (hashes[i] == deepHash && candidate.deepEquals((T) types[i])) {
+                    return (T) types[i];
+                }
+            }
+            return anyVariant && types.length > 0 ? (T) types[0] : null;
+        }
+
+        void add(T type, int deepHash) {
+            Object[] types = Arrays.copyOf(this.types, this.types.length + 1);
+            types[types.length - 1] = type;
+            int[] hashes = Arrays.copyOf(this.hashes, this.hashes.length + 1);
+            hashes[hashes.length - 1] = deepHash;
+
+            // publish hashes first so a concurrent reader never sees a type without its hash
+            this.hashes = hashes;
+            this.types = types;
+        }
+    }
+}
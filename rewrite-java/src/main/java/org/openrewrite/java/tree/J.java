@@ -67,7 +67,17 @@ public interface J extends Serializable, Tree {
 
     @Override
     default String print() {
-        return new PrintJava().visit(this);
+        return PrintJava.print(this);
+    }
+
+    /**
+     * Print this tree directly to an output, such as a {@link java.io.Writer}, rather than
+     * building up the whole source in memory first.
+     *
+     * @param out The output to print to.
+     */
+    default void print(Appendable out) {
+        new PrintJava(out).visit(this);
     }
 
     @SuppressWarnings("unchecked")
@@ -865,6 +875,9 @@ public interface J extends Serializable, Tree {
         Empty statik;
 
         public Block<T> withStatic(Empty statik) {
+            if (statik == this.statik) {
+                return this;
+            }
             return new Block<>(id, statik, statements, formatting, Markers.EMPTY, end);
         }
 
@@ -1778,6 +1791,9 @@ public interface J extends Serializable, Tree {
         @SuppressWarnings("unchecked")
         @Override
         public Ident withType(JavaType type) {
+            if (type == getType()) {
+                return this;
+            }
             return build(id, getSimpleName(), type, formatting, markers);
         }
 
@@ -1792,6 +1808,9 @@ public interface J extends Serializable, Tree {
         }
 
         public Ident withName(String name) {
+            if (name.equals(getSimpleName())) {
+                return this;
+            }
             return build(id, name, getType(), formatting, markers);
         }
 
@@ -2132,6 +2151,9 @@ public interface J extends Serializable, Tree {
         @SuppressWarnings("unchecked")
         @Override
         public Literal withType(JavaType type) {
+            if (type == this.type) {
+                return this;
+            }
             if (type instanceof JavaType.Primitive) {
                 return new Literal(id, value, valueSource, (JavaType.Primitive) type, formatting, markers);
             }
@@ -2436,6 +2458,9 @@ public interface J extends Serializable, Tree {
         @SuppressWarnings("unchecked")
         @Override
         public MethodInvocation withType(JavaType type) {
+            if (type == this.type) {
+                return this;
+            }
             if (type instanceof JavaType.Method) {
                 return new MethodInvocation(id, select, typeParameters, name, args, (JavaType.Method) type, formatting, markers);
             }
@@ -2926,6 +2951,9 @@ public interface J extends Serializable, Tree {
         New nooh;
 
         public NewClass withNew(New nooh) {
+            if (nooh == this.nooh) {
+                return this;
+            }
             return new NewClass(id, encl, nooh, clazz, args, body, type, formatting, markers);
         }
 
@@ -3159,6 +3187,9 @@ public interface J extends Serializable, Tree {
             if (!(type instanceof JavaType.Primitive)) {
                 throw new IllegalArgumentException("Cannot apply a non-primitive type to Primitive");
             }
+            if (type == this.type) {
+                return this;
+            }
             return new Primitive(id, (JavaType.Primitive) type, formatting, markers);
         }
 
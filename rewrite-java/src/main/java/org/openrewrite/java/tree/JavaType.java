@@ -16,13 +16,7 @@
 package org.openrewrite.java.tree;
 
 import com.fasterxml.jackson.annotation.*;
-import com.koloboke.collect.map.hash.HashObjObjMaps;
-import com.koloboke.collect.set.hash.HashObjSet;
-import com.koloboke.collect.set.hash.HashObjSets;
-import lombok.Data;
-import lombok.EqualsAndHashCode;
-import lombok.Getter;
-import lombok.With;
+import lombok.*;
 import org.openrewrite.Formatting;
 import org.openrewrite.marker.Markers;
 import org.openrewrite.internal.lang.Nullable;
@@ -144,9 +138,9 @@ public interface JavaType extends Serializable {
     @Getter
     class Class extends FullyQualified {
         // there shouldn't be too many distinct types represented by the same fully qualified name
-        private static final Map<String, HashObjSet<Class>> flyweights = HashObjObjMaps.newMutableMap();
+        private static final Flyweights<String, Class> flyweights = new Flyweights<>("class");
 
-        public static final Class OBJECT = build("java.lang.Object");
+        public static final Class OBJECT = pin(new Class("java.lang.Object", emptyList(), emptyList(), emptyList(), null, null));
 
         private final String fullyQualifiedName;
         private final List<Var> members;
@@ -159,6 +153,9 @@ public interface JavaType extends Serializable {
         @Nullable
         private final Class supertype;
 
+        @Getter(AccessLevel.PACKAGE)
+        private final int deepHash;
+
         private Class(String fullyQualifiedName,
                       List<Var> members,
                       List<JavaType> typeParameters,
@@ -171,6 +168,20 @@ public interface JavaType extends Serializable {
             this.interfaces = interfaces;
             this.constructors = constructors;
             this.supertype = supertype;
+            this.deepHash = 31 * (31 * (31 * fullyQualifiedName.hashCode() + TypeUtils.deepHashCode(members)) +
+                    TypeUtils.deepHashCode(supertype)) + TypeUtils.deepHashCode(typeParameters);
+        }
+
+        private static Class pin(Class type) {
+            return flyweights.pin(type.fullyQualifiedName, type, type.deepHash);
+        }
+
+        /**
+         * Discard all class flyweights. Types that are already referenced by trees remain valid, but types built
+         * afterwards will no longer be the same instances.
+         */
+        public static void clearFlyweights() {
+            flyweights.clear();
         }
 
         /**
@@ -211,31 +222,9 @@ public interface JavaType extends Serializable {
                     members.stream().sorted(comparing(Var::getName)).collect(toList()),
                     typeParameters, interfaces, constructors, supertype);
 
-            synchronized (flyweights) {
-                Set<JavaType.Class> variants = flyweights.computeIfAbsent(fullyQualifiedName, fqn -> HashObjSets.newMutableSet());
-
-                if (relaxedClassTypeMatching) {
-                    return variants.stream()
-                            .findFirst()
-                            .orElseGet(() -> {
-                                variants.add(test);
-                                return test;
-                            });
-                } else {
-                    return variants.stream().filter(v -> v.deepEquals(test))
-                            .findFirst()
-                            .orElseGet(() -> {
-                                if (test.supertype == null) {
-                                    return variants.stream().findFirst().orElseGet(() -> {
-                                        variants.add(test);
-                                        return test;
-                                    });
-                                }
-                                variants.add(test);
-                                return test;
-                            });
-                }
-            }
+            // without a supertype, there isn't enough information to distinguish between versions of the class
+            return flyweights.intern(fullyQualifiedName, test, test.deepHash,
+                    relaxedClassTypeMatching || test.supertype == null);
         }
 
         /**
@@ -250,7 +239,11 @@ public interface JavaType extends Serializable {
                 return constructors;
             }
 
-            synchronized (flyweights) {
+            synchronized (this) {
+                if (constructors != null) {
+                    return constructors;
+                }
+
                 List<Method> reflectedConstructors = new ArrayList<>();
                 try {
                     java.lang.Class<?> reflectionClass = java.lang.Class.forName(fullyQualifiedName, false, JavaType.class.getClassLoader());
@@ -273,6 +266,7 @@ public interface JavaType extends Serializable {
                 } catch (ClassNotFoundException ignored) {
                     // oh well, we tried
                 }
+                constructors = reflectedConstructors;
                 return reflectedConstructors;
             }
         }
@@ -356,9 +350,8 @@ public interface JavaType extends Serializable {
 
     @Getter
     class Method implements JavaType {
-        private static final Map<FullyQualified, Map<String, Set<Method>>> flyweights = HashObjObjMaps.newMutableMap();
+        private static final Flyweights<FlyweightKey, Method> flyweights = new Flyweights<>("method");
 
-        @With
         private final FullyQualified declaringType;
 
         private final String name;
@@ -366,9 +359,12 @@ public interface JavaType extends Serializable {
         private final Signature resolvedSignature;
         private final List<String> paramNames;
 
-        @With
         private final Set<Flag> flags;
 
+        // computed once, since the flyweight table hashes every method built with it
+        @Getter(AccessLevel.PACKAGE)
+        private final int deepHash;
+
         private Method(FullyQualified declaringType, String name, Signature genericSignature, Signature resolvedSignature, List<String> paramNames, Set<Flag> flags) {
             this.declaringType = declaringType;
             this.name = name;
@@ -376,6 +372,27 @@ public interface JavaType extends Serializable {
             this.resolvedSignature = resolvedSignature;
             this.paramNames = paramNames;
             this.flags = flags;
+            this.deepHash = 31 * (31 * (31 * (31 * paramNames.hashCode() + flags.hashCode()) +
+                    TypeUtils.deepHashCode(declaringType)) + signatureDeepHashCode(genericSignature)) +
+                    signatureDeepHashCode(resolvedSignature);
+        }
+
+        public Method withDeclaringType(FullyQualified declaringType) {
+            return this.declaringType == declaringType ? this :
+                    new Method(declaringType, name, genericSignature, resolvedSignature, paramNames, flags);
+        }
+
+        public Method withFlags(Set<Flag> flags) {
+            return this.flags == flags ? this :
+                    new Method(declaringType, name, genericSignature, resolvedSignature, paramNames, flags);
+        }
+
+        /**
+         * Discard all method flyweights. Types that are already referenced by trees remain valid, but types built
+         * afterwards will no longer be the same instances.
+         */
+        public static void clearFlyweights() {
+            flyweights.clear();
         }
 
         @JsonCreator
@@ -387,20 +404,13 @@ public interface JavaType extends Serializable {
                                    @JsonProperty("flags") Set<Flag> flags) {
             Method test = new Method(declaringType, name, genericSignature, resolvedSignature, paramNames, flags);
 
-            synchronized (flyweights) {
-                Set<Method> methods = flyweights
-                        .computeIfAbsent(declaringType, dt -> HashObjObjMaps.newMutableMap())
-                        .computeIfAbsent(name, n -> HashObjSets.newMutableSet());
-
-                return methods
-                        .stream()
-                        .filter(m -> m.deepEquals(test))
-                        .findAny()
-                        .orElseGet(() -> {
-                            methods.add(test);
-                            return test;
-                        });
-            }
+            return flyweights.intern(new FlyweightKey(declaringType, name), test, test.deepHash, false);
+        }
+
+        @Value
+        private static class FlyweightKey {
+            FullyQualified declaringType;
+            String name;
         }
 
         @Data
@@ -411,6 +421,10 @@ public interface JavaType extends Serializable {
             private final List<JavaType> paramTypes;
         }
 
+        private static int signatureDeepHashCode(@Nullable Signature s) {
+            return s == null ? 0 : 31 * TypeUtils.deepHashCode(s.returnType) + TypeUtils.deepHashCode(s.paramTypes);
+        }
+
         private static boolean signatureDeepEquals(@Nullable Signature s1, @Nullable Signature s2) {
             return s1 == null ? s2 == null : s2 != null &&
                     TypeUtils.deepEquals(s1.returnType, s2.returnType) &&
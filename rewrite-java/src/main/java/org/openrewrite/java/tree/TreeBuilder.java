@@ -23,6 +23,7 @@ import org.openrewrite.internal.StringUtils;
 import org.openrewrite.internal.lang.NonNullApi;
 import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.java.*;
+import org.openrewrite.java.internal.SnippetCompiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -107,8 +108,6 @@ public class TreeBuilder {
      * @param types          specify any
      */
     public J buildDeclaration(J.ClassDecl insertionScope, String snippet, JavaType... types) {
-        JavaParser javaParser = cu.buildParser();
-
         // Turn this on in IntelliJ: Preferences > Editor > Code Style > Formatter Control
         // @formatter:off
         String scopeVariables = insertionScope.getFields().stream()
@@ -137,7 +136,8 @@ public class TreeBuilder {
             logger.debug(source);
         }
 
-        J.CompilationUnit cu = javaParser.parse(source).get(0);
+        J.CompilationUnit cu = SnippetCompiler.compile(JavaParser.dependenciesFromClasspath(), this.cu.getStyles(),
+                source);
         List<J> statements = cu.getClasses().get(0).getBody().getStatements();
         return new FillTypeAttributions(imports).visit(statements.get(statements.size() - 1));
     }
@@ -204,10 +204,6 @@ public class TreeBuilder {
                                               String snippet,
                                               JavaType... imports) {
 
-        //This uses a parser that has the same classpath as the runtime.
-        JavaParser javaParser = cu.buildRuntimeParser();
-
-
         StringBuilder source = new StringBuilder(512);
 
         List<JavaType> allImports = new ArrayList<>(Arrays.asList(imports));
@@ -274,7 +270,9 @@ public class TreeBuilder {
             logger.debug(sourceString);
         }
 
-        J.CompilationUnit cu = javaParser.parse(sourceString).get(0);
+        //This uses a parser that has the same classpath as the runtime.
+        J.CompilationUnit cu = SnippetCompiler.compile(JavaParser.allDependenciesFromClasspath(), this.cu.getStyles(),
+                sourceString);
         List<J> statements = cu.getClasses().get(0).getBody().getStatements();
         J.Block<T> block = (J.Block<T>) statements.get(statements.size() - 1);
 
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.java.tree;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.openrewrite.Incubating;
+import org.openrewrite.Tree;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.java.AbstractJavaSourceVisitor;
+import org.openrewrite.java.MethodMatcher;
+import org.openrewrite.marker.Marker;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * An index of the fully qualified types and the methods that a compilation unit refers to, so that a search or
+ * refactoring visitor can tell whether a compilation unit could possibly be of interest to it without visiting it.
+ * <p>
+ * The index is attached as a marker at parse time. A compilation unit that has been changed since carries the marker
+ * forward, but the marker no longer describes it, so the index is built again the first time it is asked for, and the
+ * marker remembers the new index for the changed compilation unit and for the visitors that ask for it after that. A
+ * marker read back from a serialized compilation unit describes the first compilation unit it is asked for.
+ */
+@Incubating(since = "7.0.0")
+public class TypeReferences implements Marker {
+    private volatile Index index;
+
+    @JsonCreator
+    public TypeReferences(@JsonProperty("typeNames") Set<String> typeNames,
+                          @JsonProperty("types") Set<String> types,
+                          @JsonProperty("methods") Map<String, Set<String>> methods) {
+        this(new Index(typeNames, types, methods, null));
+    }
+
+    private TypeReferences(Index index) {
+        this.index = index;
+    }
+
+    /**
+     * @param cu A compilation unit.
+     * @return The index attached to the compilation unit if it still describes it, or else an index built again and
+     * remembered by the attached marker.
+     */
+    public static TypeReferences of(J.CompilationUnit cu) {
+        TypeReferences indexed = indexed(cu);
+        if (indexed != null) {
+            return indexed;
+        }
+
+        TypeReferences marker = marker(cu);
+        if (marker == null) {
+            return build(cu);
+        }
+
+        // refactoring visitors only produce new import and class lists when something beneath them has changed
+        Index rebuilt = Index.build(cu);
+        marker.index = rebuilt;
+        return new TypeReferences(rebuilt);
+    }
+
+    /**
+     * @param cu A compilation unit.
+     * @return The index attached to the compilation unit if it describes it without having to be built again.
+     */
+    @Nullable
+    public static TypeReferences indexed(J.CompilationUnit cu) {
+        TypeReferences marker = marker(cu);
+        if (marker == null) {
+            return null;
+        }
+
+        Index i = marker.index;
+        if (i.describes(cu)) {
+            return marker;
+        } else if (!i.isBound()) {
+            Index bound = i.bind(cu);
+            marker.index = bound;
+            return new TypeReferences(bound);
+        }
+        return null;
+    }
+
+    /**
+     * @param cu A compilation unit.
+     * @return The compilation unit, marked with an index of the types and methods it refers to.
+     */
+    public static J.CompilationUnit index(J.CompilationUnit cu) {
+        return cu.withMarkers(cu.getMarkers().addOrUpdate(build(cu)));
+    }
+
+    static TypeReferences build(J.CompilationUnit cu) {
+        return new TypeReferences(Index.build(cu));
+    }
+
+    @Nullable
+    private static TypeReferences marker(J.CompilationUnit cu) {
+        for (Marker marker : cu.getMarkers().entrySet()) {
+            if (marker instanceof TypeReferences) {
+                return (TypeReferences) marker;
+            }
+        }
+        return null;
+    }
+
+    public Set<String> getTypeNames() {
+        return index.typeNames;
+    }
+
+    public Set<String> getTypes() {
+        return index.types;
+    }
+
+    public Map<String, Set<String>> getMethods() {
+        return index.methods;
+    }
+
+    /**
+     * @param fullyQualifiedName A fully qualified type name.
+     * @return Whether the type is named in a type position outside of imports.
+     */
+    public boolean hasTypeName(String fullyQualifiedName) {
+        return index.typeNames.contains(fullyQualifiedName);
+    }
+
+    /**
+     * @param fullyQualifiedName A fully qualified type name.
+     * @return Whether any element of the compilation unit, including its imports, refers to the type.
+     */
+    public boolean referencesType(String fullyQualifiedName) {
+        return index.types.contains(fullyQualifiedName);
+    }
+
+    /**
+     * @param matcher A method matcher.
+     * @return Whether any method invocation, declaration or static import in the compilation unit could match. When
+     * false, none can. When true, the arguments still have to be matched against the individual elements.
+     */
+    public boolean mayReferenceMethod(MethodMatcher matcher) {
+        for (Map.Entry<String, Set<String>> method : index.methods.entrySet()) {
+            if (matcher.getMethodNamePattern().matcher(method.getKey()).matches()) {
+                for (String declaringType : method.getValue()) {
+                    if (matcher.getTargetTypePattern().matcher(declaringType).matches()) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        Index i = this.index;
+        return "TypeReferences{types=" + i.types.size() + ", methods=" + i.methods.size() + "}";
+    }
+
+    private static class Index {
+        /**
+         * Types named in a type position outside of imports, as found by {@link org.openrewrite.java.search.HasType}.
+         */
+        private final Set<String> typeNames;
+
+        /**
+         * Every type attributed to an element of the compilation unit, including imports and method declaring types,
+         * along with the names of any fully qualified references that lack type attribution.
+         */
+        private final Set<String> types;
+
+        /**
+         * Method names, each mapped to the declaring types (and their supertypes) of the methods of that name that
+         * are invoked, declared or statically imported.
+         */
+        private final Map<String, Set<String>> methods;
+
+        // held weakly so that an index carried forward by a changed compilation unit doesn't retain the trees it replaced
+        @Nullable
+        private final WeakReference<List<J.Import>> imports;
+
+        @Nullable
+        private final WeakReference<List<J.ClassDecl>> classes;
+
+        private Index(Set<String> typeNames, Set<String> types, Map<String, Set<String>> methods,
+                      @Nullable J.CompilationUnit cu) {
+            this.typeNames = typeNames;
+            this.types = types;
+            this.methods = methods;
+            this.imports = cu == null ? null : new WeakReference<>(cu.getImports());
+            this.classes = cu == null ? null : new WeakReference<>(cu.getClasses());
+        }
+
+        private static Index build(J.CompilationUnit cu) {
+            Collector collector = new Collector();
+            collector.visit(cu);
+            return new Index(collector.typeNames, collector.types, collector.methods, cu);
+        }
+
+        /**
+         * @return Whether the index is known to describe some compilation unit, which an index read back from a
+         * serialized compilation unit is not until it is first asked for.
+         */
+        private boolean isBound() {
+            return imports != null;
+        }
+
+        private Index bind(J.CompilationUnit cu) {
+            return new Index(typeNames, types, methods, cu);
+        }
+
+        private boolean describes(J.CompilationUnit cu) {
+            return imports != null && classes != null &&
+                    imports.get() == cu.getImports() && classes.get() == cu.getClasses();
+        }
+    }
+
+    private static class Collector extends AbstractJavaSourceVisitor<Void> {
+        private final Set<String> typeNames = new HashSet<>();
+        private final Set<String> types = new HashSet<>();
+        private final Map<String, Set<String>> methods = new HashMap<>();
+        private final Deque<JavaType.Class> enclosingClasses = new ArrayDeque<>();
+
+        @Override
+        public Void defaultTo(@Nullable Tree t) {
+            return null;
+        }
+
+        @Override
+        public Void reduce(Void r1, Void r2) {
+            return null;
+        }
+
+        @Override
+        public Void visitTree(Tree tree) {
+            if (tree instanceof Expression) {
+                addType(((Expression) tree).getType());
+            } else if (tree instanceof NameTree) {
+                addType(((NameTree) tree).getType());
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitFieldAccess(J.FieldAccess fieldAccess) {
+            if (TypeUtils.asClass(fieldAccess.getType()) == null) {
+                // without type attribution, a fully qualified reference may still be recognized by its name alone
+                String name = qualifiedName(fieldAccess);
+                if (name != null) {
+                    types.add(name);
+                }
+            }
+            return super.visitFieldAccess(fieldAccess);
+        }
+
+        @Override
+        public Void visitTypeName(NameTree name) {
+            JavaType.Class asClass = TypeUtils.asClass(name.getType());
+            if (asClass != null) {
+                typeNames.add(asClass.getFullyQualifiedName());
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitImport(J.Import impoort) {
+            // the import's own name trees are deliberately not visited, so that they don't count as type names
+            types.add(impoort.getTypeName());
+            addType(impoort.getQualid().getType());
+            if (impoort.isStatic()) {
+                addMethod(impoort.getQualid().getSimpleName(), impoort.getTypeName());
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitClassDecl(J.ClassDecl classDecl) {
+            addType(classDecl.getType());
+            enclosingClasses.push(classDecl.getType() == null ? JavaType.Class.OBJECT : classDecl.getType());
+            super.visitClassDecl(classDecl);
+            enclosingClasses.pop();
+            return null;
+        }
+
+        @Override
+        public Void visitMethod(J.MethodDecl method) {
+            addMethod(method.getSimpleName(), enclosingClasses.peek());
+            return super.visitMethod(method);
+        }
+
+        @Nullable
+        private static String qualifiedName(Expression expression) {
+            if (expression instanceof J.Ident) {
+                return ((J.Ident) expression).getSimpleName();
+            } else if (expression instanceof J.FieldAccess) {
+                J.FieldAccess fieldAccess = (J.FieldAccess) expression;
+                String target = qualifiedName(fieldAccess.getTarget());
+                return target == null ? null : target + "." + fieldAccess.getSimpleName();
+            }
+            return null;
+        }
+
+        private void addType(@Nullable JavaType type) {
+            if (type instanceof JavaType.Class) {
+                types.add(((JavaType.Class) type).getFullyQualifiedName());
+            } else if (type instanceof JavaType.Array) {
+                addType(((JavaType.Array) type).getElemType());
+            } else if (type instanceof JavaType.Method) {
+                JavaType.Method method = (JavaType.Method) type;
+                if (method.getDeclaringType() != null) {
+                    types.add(method.getDeclaringType().getFullyQualifiedName());
+                }
+                addMethod(method.getName(), method.getDeclaringType());
+            }
+        }
+
+        private void addMethod(String name, String declaringType) {
+            Set<String> declaringTypes = methods.computeIfAbsent(name, n -> new HashSet<>());
+            declaringTypes.add(declaringType);
+            declaringTypes.add("java.lang.Object");
+        }
+
+        private void addMethod(String name, @Nullable JavaType.FullyQualified declaringType) {
+            Set<String> declaringTypes = methods.computeIfAbsent(name, n -> new HashSet<>());
+
+            // a method matcher also matches methods declared on any supertype of the one it names
+            for (JavaType.FullyQualified type = declaringType; type != null; ) {
+                if (!declaringTypes.add(type.getFullyQualifiedName())) {
+                    break;
+                }
+                JavaType.Class asClass = TypeUtils.asClass(type);
+                type = asClass == null ? null : asClass.getSupertype();
+            }
+            declaringTypes.add("java.lang.Object");
+        }
+    }
+}
@@ -138,4 +138,41 @@ public class TypeUtils {
     static boolean deepEquals(@Nullable JavaType t, @Nullable JavaType t2) {
         return t == null ? t2 == null : t.deepEquals(t2);
     }
+
+    /**
+     * A hash code that is consistent with {@link JavaType#deepEquals(JavaType)}, so that structurally equal types
+     * can be found without comparing them to every candidate.
+     */
+    static int deepHashCode(@Nullable JavaType type) {
+        if (type == null) {
+            return 0;
+        } else if (type instanceof JavaType.Class) {
+            return ((JavaType.Class) type).getDeepHash();
+        } else if (type instanceof JavaType.Method) {
+            return ((JavaType.Method) type).getDeepHash();
+        } else if (type instanceof JavaType.Var) {
+            JavaType.Var var = (JavaType.Var) type;
+            return 31 * (31 * var.getName().hashCode() + deepHashCode(var.getType())) + var.getFlags().hashCode();
+        } else if (type instanceof JavaType.GenericTypeVariable) {
+            JavaType.GenericTypeVariable generic = (JavaType.GenericTypeVariable) type;
+            return 31 * generic.getFullyQualifiedName().hashCode() + deepHashCode(generic.getBound());
+        } else if (type instanceof JavaType.FullyQualified) {
+            return ((JavaType.FullyQualified) type).getFullyQualifiedName().hashCode();
+        } else if (type instanceof JavaType.Array) {
+            return 31 * deepHashCode(((JavaType.Array) type).getElemType()) + 1;
+        } else if (type instanceof JavaType.MultiCatch) {
+            return deepHashCode(((JavaType.MultiCatch) type).getThrowableTypes());
+        } else if (type instanceof JavaType.Primitive) {
+            return ((JavaType.Primitive) type).name().hashCode();
+        }
+        return type.getClass().hashCode();
+    }
+
+    static int deepHashCode(List<? extends JavaType> types) {
+        int hash = 1;
+        for (JavaType type : types) {
+            hash = 31 * hash + deepHashCode(type);
+        }
+        return hash;
+    }
 }
@@ -34,6 +34,9 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -48,13 +51,16 @@ public class MavenParser implements Parser<Maven> {
     private final Collection<String> activeProfiles;
     private final MavenSettings mavenSettings;
     private final boolean resolveOptional;
+    private final int resolutionParallelism;
 
     private MavenParser(MavenCache mavenCache, Collection<String> activeProfiles,
-                        MavenSettings mavenSettings, boolean resolveOptional) {
+                        MavenSettings mavenSettings, boolean resolveOptional,
+                        int resolutionParallelism) {
         this.mavenCache = mavenCache;
         this.activeProfiles = activeProfiles;
         this.mavenSettings = mavenSettings;
         this.resolveOptional = resolveOptional;
+        this.resolutionParallelism = resolutionParallelism;
     }
 
     @Override
@@ -63,15 +69,32 @@ public class MavenParser implements Parser<Maven> {
                 .map(source -> RawMaven.parse(source, relativeTo, null))
                 .collect(toList());
 
-        MavenDownloader downloader = new MavenDownloader(mavenCache,
-                projectPoms.stream().collect(toMap(RawMaven::getSourcePath, Function.identity())));
+        ThreadPoolExecutor prefetchExecutor = resolutionParallelism > 1 ?
+                new ThreadPoolExecutor(resolutionParallelism, resolutionParallelism, 0L, TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<>(), runnable -> {
+                            Thread thread = new Thread(runnable, "rewrite-maven-prefetch");
+                            thread.setDaemon(true);
+                            return thread;
+                        }) :
+                null;
 
-        List<Maven> parsed = projectPoms.stream()
-                .map(raw -> new RawMavenResolver(downloader, false, activeProfiles,
-                        mavenSettings, resolveOptional).resolve(raw))
-                .filter(Objects::nonNull)
-                .map(Maven::new)
-                .collect(toCollection(ArrayList::new));
+        List<Maven> parsed;
+        try {
+            MavenDownloader downloader = new MavenDownloader(mavenCache,
+                    projectPoms.stream().collect(toMap(RawMaven::getSourcePath, Function.identity())),
+                    prefetchExecutor);
+
+            parsed = projectPoms.stream()
+                    .map(raw -> new RawMavenResolver(downloader, false, activeProfiles,
+                            mavenSettings, resolveOptional).resolve(raw))
+                    .filter(Objects::nonNull)
+                    .map(Maven::new)
+                    .collect(toCollection(ArrayList::new));
+        } finally {
+            if (prefetchExecutor != null) {
+                shutdown(prefetchExecutor);
+            }
+        }
 
         for (int i = 0; i < parsed.size(); i++) {
             Maven maven = parsed.get(i);
@@ -94,6 +117,22 @@ public class MavenParser implements Parser<Maven> {
         return parsed;
     }
 
+    /**
+     * Anything still queued was never asked for by the resolver, so it is dropped. Downloads already in flight are
+     * left to finish rather than interrupted, since an interrupted download would be cached as an unavailable POM.
+     */
+    private static void shutdown(ThreadPoolExecutor prefetchExecutor) {
+        prefetchExecutor.shutdown();
+        prefetchExecutor.getQueue().clear();
+        try {
+            while (!prefetchExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.debug("Waiting for POM prefetches in flight to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     public static List<Maven> parseProject(Path path) {
         try {
             List<Path> poms = Files.find(path, Integer.MAX_VALUE, (filePath, fileAttr) -> fileAttr.isRegularFile() && filePath.endsWith("pom.xml"))
@@ -127,6 +166,7 @@ public class MavenParser implements Parser<Maven> {
         private MavenCache mavenCache = new InMemoryCache();
         private final Collection<String> activeProfiles = new HashSet<>();
         private boolean resolveOptional = true;
+        private int resolutionParallelism = 1;
 
         @Nullable
         private MavenSettings mavenSettings;
@@ -169,9 +209,20 @@ public class MavenParser implements Parser<Maven> {
             return this;
         }
 
+        /**
+         * @param resolutionParallelism The maximum number of POMs to download concurrently ahead of
+         *                              dependency resolution. Values greater than 1 only help when the
+         *                              configured {@link MavenCache} retains the POMs it downloads.
+         * @return This builder.
+         */
+        public Builder resolutionParallelism(int resolutionParallelism) {
+            this.resolutionParallelism = resolutionParallelism;
+            return this;
+        }
+
         public MavenParser build() {
             return new MavenParser(mavenCache, activeProfiles,
-                    mavenSettings, resolveOptional);
+                    mavenSettings, resolveOptional, resolutionParallelism);
         }
     }
 }
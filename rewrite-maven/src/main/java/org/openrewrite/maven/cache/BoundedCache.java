@@ -0,0 +1,209 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import org.openrewrite.internal.lang.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread-safe, weight-bounded LRU cache of possibly absent values. Entries are spread over independently locked
+ * segments, each of which evicts its least recently used entries once it exceeds its share of the maximum weight.
+ * Entries may expire after a time-to-live that depends on the value, so that, for example, negative results are
+ * retried after a while.
+ * <p>
+ * Concurrent loads of the same key are coalesced so that a value is only ever fetched once at a time.
+ */
+class BoundedCache<K, V> {
+    private static final int SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final ConcurrentMap<K, FutureTask<Optional<V>>> loading = new ConcurrentHashMap<>();
+    private final ToLongFunction<Optional<V>> weigher;
+    private final ToLongFunction<Optional<V>> timeToLiveNanos;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    /**
+     * @param name            Names the cache in metrics, to tell it apart from other caches of the same content.
+     * @param content         Describes the content of the cache in metrics.
+     * @param maximumWeight   The total weight of entries beyond which least recently used entries are evicted.
+     * @param weigher         The weight of a cached value.
+     * @param timeToLiveNanos How long a cached value remains valid, or {@link Long#MAX_VALUE} for indefinitely.
+     */
+    @SuppressWarnings("unchecked")
+    BoundedCache(String name,
+                 String content,
+                 long maximumWeight,
+                 ToLongFunction<Optional<V>> weigher,
+                 ToLongFunction<Optional<V>> timeToLiveNanos) {
+        this.weigher = weigher;
+        this.timeToLiveNanos = timeToLiveNanos;
+
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>(Math.max(1, maximumWeight / SEGMENTS));
+        }
+
+        Tags tags = Tags.of("type", "inmem", "cache", name, "content", content);
+        Metrics.gauge("rewrite.maven.cache.size", tags, this, BoundedCache::size);
+        this.hits = Metrics.counter("rewrite.maven.cache.gets", tags.and("result", "hit"));
+        this.misses = Metrics.counter("rewrite.maven.cache.gets", tags.and("result", "miss"));
+        this.evictions = Metrics.counter("rewrite.maven.cache.evictions", tags);
+    }
+
+    /**
+     * @return The cached value if present and not expired, {@code Optional.empty()} for a cached negative result, or
+     * {@code null} if nothing is cached for the key.
+     */
+    @Nullable
+    Optional<V> get(K key) {
+        Optional<V> value = segment(key).get(key, System.nanoTime());
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    void put(K key, Optional<V> value) {
+        long ttl = timeToLiveNanos.applyAsLong(value);
+        long now = System.nanoTime();
+        long expiresAt = ttl == Long.MAX_VALUE || now + ttl < now ? Long.MAX_VALUE : now + ttl;
+        evictions.increment(segment(key).put(key, value, weigher.applyAsLong(value), expiresAt));
+    }
+
+    /**
+     * Load and cache a value, or wait for a load of the same key already in progress on another thread. When the
+     * load fails, a negative result is cached and the failure is rethrown.
+     */
+    Optional<V> load(K key, Callable<V> orElseGet) throws Exception {
+        FutureTask<Optional<V>> task = new FutureTask<>(() -> {
+            try {
+                Optional<V> value = Optional.ofNullable(orElseGet.call());
+                put(key, value);
+                return value;
+            } catch (Exception e) {
+                put(key, Optional.empty());
+                throw e;
+            }
+        });
+
+        FutureTask<Optional<V>> inFlight = loading.putIfAbsent(key, task);
+        if (inFlight == null) {
+            inFlight = task;
+            try {
+                task.run();
+            } finally {
+                loading.remove(key, task);
+            }
+        }
+
+        try {
+            return inFlight.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    long size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment<K, V> segment(K key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private static class Entry<V> {
+        private final Optional<V> value;
+        private final long weight;
+        private final long expiresAt;
+
+        private Entry(Optional<V> value, long weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class Segment<K, V> {
+        private final long maximumWeight;
+        private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long weight;
+
+        private Segment(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+        }
+
+        @Nullable
+        synchronized Optional<V> get(K key, long now) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt != Long.MAX_VALUE && now - entry.expiresAt >= 0) {
+                entries.remove(key);
+                weight -= entry.weight;
+                return null;
+            }
+            return entry.value;
+        }
+
+        /**
+         * @return The number of entries evicted to make room.
+         */
+        synchronized int put(K key, Optional<V> value, long entryWeight, long expiresAt) {
+            Entry<V> replaced = entries.put(key, new Entry<>(value, entryWeight, expiresAt));
+            weight += entryWeight - (replaced == null ? 0 : replaced.weight);
+
+            int evicted = 0;
+            Iterator<Map.Entry<K, Entry<V>>> lru = entries.entrySet().iterator();
+            while (weight > maximumWeight && entries.size() > 1 && lru.hasNext()) {
+                Map.Entry<K, Entry<V>> eldest = lru.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                weight -= eldest.getValue().weight;
+                lru.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
@@ -15,8 +15,7 @@
  */
 package org.openrewrite.maven.cache;
 
-import io.micrometer.core.instrument.Metrics;
-import io.micrometer.core.instrument.Tags;
+import lombok.Value;
 import org.openrewrite.maven.internal.MavenDownloader;
 import org.openrewrite.maven.internal.MavenMetadata;
 import org.openrewrite.maven.internal.RawMaven;
@@ -27,99 +26,126 @@ import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * A thread-safe cache that can be shared by any number of concurrent parsers. Each kind of content is bounded by
+ * weight and evicts its least recently used entries when full. Negative results and metadata (which changes as new
+ * versions are published) expire so that they are eventually fetched again. POMs are keyed by the repository they
+ * were fetched from, since different repositories may hold different POMs for the same coordinates.
+ */
 public class InMemoryCache implements MavenCache {
-    private final Map<String, Optional<RawMaven>> pomCache = new HashMap<>();
-    private final Map<GroupArtifactRepository, Optional<MavenMetadata>> mavenMetadataCache = new HashMap<>();
-    private final Map<RawRepositories.Repository, Optional<RawRepositories.Repository>> normalizedRepositoryUrls = new HashMap<>();
+    private static final AtomicInteger instances = new AtomicInteger();
+
+    private final Set<String> unresolvablePoms;
+    private final BoundedCache<PomKey, RawMaven> pomCache;
+    private final BoundedCache<GroupArtifactRepository, MavenMetadata> mavenMetadataCache;
+    private final BoundedCache<RawRepositories.Repository, RawRepositories.Repository> normalizedRepositoryUrls;
 
     CacheResult<RawMaven> UNAVAILABLE_POM = new CacheResult<>(CacheResult.State.Unavailable, null);
     CacheResult<MavenMetadata> UNAVAILABLE_METADATA = new CacheResult<>(CacheResult.State.Unavailable, null);
     CacheResult<RawRepositories.Repository> UNAVAILABLE_REPOSITORY = new CacheResult<>(CacheResult.State.Unavailable, null);
 
     public InMemoryCache() {
-        Metrics.gaugeMapSize("rewrite.maven.cache.size", Tags.of("type", "inmem", "content", "poms"), pomCache);
-        Metrics.gaugeMapSize("rewrite.maven.cache.size", Tags.of("type", "inmem", "content", "metadata"), mavenMetadataCache);
-        Metrics.gaugeMapSize("rewrite.maven.cache.size", Tags.of("type", "inmem", "content", "repository urls"), normalizedRepositoryUrls);
-        fillUnresolvablePoms();
+        this(1_000_000, Duration.ofHours(1), Duration.ofHours(1));
     }
 
-    private void fillUnresolvablePoms() {
-        new BufferedReader(new InputStreamReader(MavenDownloader.class.getResourceAsStream("/unresolvable.txt"), StandardCharsets.UTF_8))
+    /**
+     * @param maximumWeight         The weight of each kind of content beyond which least recently used entries are
+     *                              evicted. A POM weighs one plus its number of dependencies, and metadata weighs one
+     *                              plus its number of versions.
+     * @param unavailableTimeToLive How long a POM, metadata, or repository that could not be fetched is remembered as
+     *                              unavailable.
+     * @param metadataTimeToLive    How long metadata and snapshot POMs are cached for.
+     */
+    public InMemoryCache(long maximumWeight, Duration unavailableTimeToLive, Duration metadataTimeToLive) {
+        this("inmem-" + instances.incrementAndGet(), maximumWeight, unavailableTimeToLive, metadataTimeToLive);
+    }
+
+    /**
+     * @param name                  Tags the metrics of this cache, so that they are told apart from those of other
+     *                              caches in the same meter registry.
+     * @param maximumWeight         The weight of each kind of content beyond which least recently used entries are
+     *                              evicted. A POM weighs one plus its number of dependencies, and metadata weighs one
+     *                              plus its number of versions.
+     * @param unavailableTimeToLive How long a POM, metadata, or repository that could not be fetched is remembered as
+     *                              unavailable.
+     * @param metadataTimeToLive    How long metadata and snapshot POMs are cached for.
+     */
+    public InMemoryCache(String name, long maximumWeight, Duration unavailableTimeToLive, Duration metadataTimeToLive) {
+        long unavailableTtl = unavailableTimeToLive.toNanos();
+        long metadataTtl = metadataTimeToLive.toNanos();
+
+        this.unresolvablePoms = new BufferedReader(new InputStreamReader(MavenDownloader.class.getResourceAsStream("/unresolvable.txt"), StandardCharsets.UTF_8))
                 .lines()
                 .filter(line -> !line.isEmpty())
-                .forEach(gav -> pomCache.put(gav, Optional.empty()));
+                .collect(toSet());
+
+        this.pomCache = new BoundedCache<>(name, "poms", maximumWeight,
+                pom -> 1 + pom.map(p -> p.getPom().getActiveDependencies(emptyList()).size()).orElse(0),
+                pom -> pom.map(p -> p.getPom().getVersion() != null && p.getPom().getVersion().endsWith("-SNAPSHOT") ?
+                        metadataTtl : Long.MAX_VALUE).orElse(unavailableTtl));
+
+        this.mavenMetadataCache = new BoundedCache<>(name, "metadata", maximumWeight,
+                metadata -> 1 + metadata.map(m -> m.getVersioning().getVersions().size()).orElse(0),
+                metadata -> metadata.isPresent() ? metadataTtl : unavailableTtl);
+
+        this.normalizedRepositoryUrls = new BoundedCache<>(name, "repository urls", maximumWeight,
+                repository -> 1,
+                repository -> repository.isPresent() ? Long.MAX_VALUE : unavailableTtl);
     }
 
     @Override
     public CacheResult<MavenMetadata> computeMavenMetadata(URL repo, String groupId, String artifactId, Callable<MavenMetadata> orElseGet) throws Exception {
         GroupArtifactRepository gar = new GroupArtifactRepository(repo, new GroupArtifact(groupId, artifactId));
-        Optional<MavenMetadata> rawMavenMetadata = mavenMetadataCache.get(gar);
-
-        //noinspection OptionalAssignedToNull
-        if (rawMavenMetadata == null) {
-            try {
-                MavenMetadata metadata = orElseGet.call();
-                mavenMetadataCache.put(gar, Optional.ofNullable(metadata));
-                return new CacheResult<>(CacheResult.State.Updated, metadata);
-            } catch (Exception e) {
-                mavenMetadataCache.put(gar, Optional.empty());
-                throw e;
-            }
-        }
-
-        return rawMavenMetadata
-                .map(metadata -> new CacheResult<>(CacheResult.State.Cached, metadata))
-                .orElse(UNAVAILABLE_METADATA);
+        return compute(mavenMetadataCache, gar, orElseGet, UNAVAILABLE_METADATA);
     }
 
     @Override
     public CacheResult<RawMaven> computeMaven(URL repo, String groupId, String artifactId, String version,
                                               Callable<RawMaven> orElseGet) throws Exception {
-        // FIXME key be repo as well, because different repos may have different versions of the same POM
-        String cacheKey = groupId + ':' + artifactId + ':' + version;
-        Optional<RawMaven> rawMaven = pomCache.get(cacheKey);
-
-        //noinspection OptionalAssignedToNull
-        if (rawMaven == null) {
-            try {
-                RawMaven maven = orElseGet.call();
-                pomCache.put(cacheKey, Optional.ofNullable(maven));
-                return new CacheResult<>(CacheResult.State.Updated, maven);
-            } catch (Exception e) {
-                pomCache.put(cacheKey, Optional.empty());
-                throw e;
-            }
+        if (unresolvablePoms.contains(groupId + ':' + artifactId + ':' + version)) {
+            return UNAVAILABLE_POM;
         }
-
-        return rawMaven
-                .map(pom -> new CacheResult<>(CacheResult.State.Cached, pom))
-                .orElse(UNAVAILABLE_POM);
+        return compute(pomCache, new PomKey(repo.toString(), groupId, artifactId, version), orElseGet, UNAVAILABLE_POM);
     }
 
     @Override
     public CacheResult<RawRepositories.Repository> computeRepository(RawRepositories.Repository repository,
                                                                      Callable<RawRepositories.Repository> orElseGet) throws Exception {
-        Optional<RawRepositories.Repository> normalizedRepository = normalizedRepositoryUrls.get(repository);
+        return compute(normalizedRepositoryUrls, repository, orElseGet, UNAVAILABLE_REPOSITORY);
+    }
+
+    private static <K, V> CacheResult<V> compute(BoundedCache<K, V> cache, K key, Callable<V> orElseGet,
+                                                 CacheResult<V> unavailable) throws Exception {
+        Optional<V> cached = cache.get(key);
 
         //noinspection OptionalAssignedToNull
-        if (normalizedRepository == null) {
-            try {
-                RawRepositories.Repository repo = orElseGet.call();
-                normalizedRepositoryUrls.put(repository, Optional.ofNullable(repo));
-                return new CacheResult<>(CacheResult.State.Updated, repo);
-            } catch (Exception e) {
-                normalizedRepositoryUrls.put(repository, Optional.empty());
-                throw e;
-            }
+        if (cached == null) {
+            return new CacheResult<>(CacheResult.State.Updated, cache.load(key, orElseGet).orElse(null));
         }
 
-        return normalizedRepository
-                .map(pom -> new CacheResult<>(CacheResult.State.Cached, pom))
-                .orElse(UNAVAILABLE_REPOSITORY);
+        return cached
+                .map(value -> new CacheResult<>(CacheResult.State.Cached, value))
+                .orElse(unavailable);
+    }
+
+    @Value
+    private static class PomKey {
+        /**
+         * As a string, since {@link URL#equals(Object)} resolves host names.
+         */
+        String repository;
+
+        String groupId;
+        String artifactId;
+        String version;
     }
 }
@@ -35,6 +35,9 @@ import java.net.URI;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Stream;
 
 import static java.util.Collections.emptyMap;
@@ -54,13 +57,75 @@ public class MavenDownloader {
     private final MavenCache mavenCache;
     private final Map<String, RawMaven> projectPoms;
 
+    @Nullable
+    private final ExecutorService prefetchExecutor;
+
+    /**
+     * Coordinates that have already been handed to the prefetch executor, so that a POM
+     * referenced from many places in the dependency graph is only speculatively fetched once.
+     */
+    private final Set<String> prefetched = ConcurrentHashMap.newKeySet();
+
     public MavenDownloader(MavenCache mavenCache) {
         this(mavenCache, emptyMap());
     }
 
     public MavenDownloader(MavenCache mavenCache, Map<String, RawMaven> projectPoms) {
+        this(mavenCache, projectPoms, null);
+    }
+
+    /**
+     * @param prefetchExecutor When non-null, {@link #prefetch(String, String, String, List)} downloads
+     *                         POMs on this executor ahead of the resolver asking for them. The number of
+     *                         threads backing the executor bounds the number of in-flight requests. The
+     *                         caller owns the executor and is responsible for shutting it down.
+     */
+    public MavenDownloader(MavenCache mavenCache, Map<String, RawMaven> projectPoms,
+                           @Nullable ExecutorService prefetchExecutor) {
         this.mavenCache = mavenCache;
         this.projectPoms = projectPoms;
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    public boolean isPrefetching() {
+        return prefetchExecutor != null;
+    }
+
+    /**
+     * Speculatively download a POM into the {@link MavenCache} so that a later call to
+     * {@link #download(String, String, String, String, String, RawMaven, List)} for the same coordinates
+     * is served from the cache. The result is discarded, so this only pays off when the cache actually
+     * retains what it computes. Failures are ignored; the resolver will encounter (and log) them again when
+     * it downloads the POM itself.
+     */
+    public void prefetch(String groupId, String artifactId, String version,
+                         List<RawRepositories.Repository> repositories) {
+        if (prefetchExecutor == null || version.endsWith("-SNAPSHOT")) {
+            return;
+        }
+
+        for (RawMaven projectPom : projectPoms.values()) {
+            if (groupId.equals(projectPom.getPom().getGroupId()) &&
+                    artifactId.equals(projectPom.getPom().getArtifactId())) {
+                return;
+            }
+        }
+
+        if (!prefetched.add(groupId + ':' + artifactId + ':' + version)) {
+            return;
+        }
+
+        try {
+            prefetchExecutor.execute(() -> {
+                try {
+                    download(groupId, artifactId, version, null, null, null, repositories);
+                } catch (Throwable t) {
+                    logger.debug("Failed to prefetch {}:{}:{}", groupId, artifactId, version, t);
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+            // resolution has already finished and the executor has been shut down
+        }
     }
 
     public MavenMetadata downloadMetadata(String groupId, String artifactId,
@@ -207,7 +272,7 @@ public class MavenDownloader {
                                     @SuppressWarnings("ConstantConditions") byte[] responseBody = response.body()
                                             .bytes();
 
-                                    return RawMaven.parse(
+                                    return RawMaven.parseModel(
                                             new Parser.Input(URI.create(uri), () -> new ByteArrayInputStream(responseBody)),
                                             null,
                                             versionMaybeDatedSnapshot.equals(version) ? null : versionMaybeDatedSnapshot
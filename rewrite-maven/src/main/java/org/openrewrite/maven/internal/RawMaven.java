@@ -17,23 +17,26 @@ package org.openrewrite.maven.internal;
 
 import com.ctc.wstx.stax.WstxInputFactory;
 import com.ctc.wstx.stax.WstxOutputFactory;
-import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.xml.XmlFactory;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import lombok.AccessLevel;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.With;
 import lombok.experimental.FieldDefaults;
+import org.codehaus.stax2.XMLStreamReader2;
+import org.codehaus.stax2.ri.Stax2ReaderAdapter;
 import org.openrewrite.Parser;
 import org.openrewrite.internal.lang.Nullable;
 import org.openrewrite.xml.XmlParser;
+import org.openrewrite.xml.internal.XmlTreeStreamReader;
 import org.openrewrite.xml.tree.Xml;
 
 import javax.xml.stream.XMLInputFactory;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.Collection;
@@ -44,10 +47,9 @@ import java.util.Objects;
 import static java.util.Collections.singletonList;
 
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
-@AllArgsConstructor
 @Getter
 public class RawMaven {
-    private static final ObjectMapper xmlMapper;
+    private static final XmlMapper xmlMapper;
 
     static {
         // disable namespace handling, as some POMs contain undefined namespaces like Xlint in
@@ -55,17 +57,38 @@ public class RawMaven {
         XMLInputFactory input = new WstxInputFactory();
         input.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
         input.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
-        xmlMapper = new XmlMapper(new XmlFactory(input, new WstxOutputFactory()))
-                .disable(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT)
+        xmlMapper = new XmlMapper(new XmlFactory(input, new WstxOutputFactory()));
+        xmlMapper.disable(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT)
                 .disable(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT)
                 .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
     }
 
+    String sourcePath;
+
+    /**
+     * The format-preserving tree of the POM, or null when only the model was parsed
+     * with {@link #parseModel(Parser.Input, URI, String)}.
+     */
+    @Nullable
     Xml.Document document;
 
     @With
     RawPom pom;
 
+    @JsonCreator
+    public RawMaven(@JsonProperty("sourcePath") @Nullable String sourcePath,
+                    @JsonProperty("document") @Nullable Xml.Document document,
+                    @JsonProperty("pom") RawPom pom) {
+        if (sourcePath == null) {
+            // entries cached before the source path was tracked separately from the document
+            assert document != null;
+            sourcePath = document.getSourcePath();
+        }
+        this.sourcePath = sourcePath;
+        this.document = document;
+        this.pom = pom;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -74,11 +97,6 @@ public class RawMaven {
         return getSourcePath().equals(rawMaven.getSourcePath());
     }
 
-    @JsonIgnore
-    public String getSourcePath() {
-        return document.getSourcePath();
-    }
-
     @Override
     public int hashCode() {
         return Objects.hash(getSourcePath());
@@ -91,21 +109,52 @@ public class RawMaven {
                 '}';
     }
 
+    /**
+     * Parse a POM into a format-preserving tree, and derive its model from that tree rather than
+     * reading the source a second time.
+     */
     public static RawMaven parse(Parser.Input source, @Nullable URI relativeTo, @Nullable String snapshotVersion) {
         Xml.Document document = new MavenXmlParser().parseInputs(singletonList(source), relativeTo)
                 .iterator().next();
 
         try {
-            RawPom pom = xmlMapper.readValue(source.getSource(), RawPom.class);
-            if (snapshotVersion != null) {
-                pom = pom.withSnapshotVersion(snapshotVersion);
-            }
-            return new RawMaven(document, pom);
+            RawPom pom = xmlMapper.readValue(streamOf(document), RawPom.class);
+            return new RawMaven(document.getSourcePath(), document, withSnapshotVersion(pom, snapshotVersion));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to parse " + source.getUri(), e);
+        }
+    }
+
+    /**
+     * Parse only the model of a POM, for POMs like those of downloaded dependencies which are
+     * resolved but never refactored or printed, and so don't need a format-preserving tree.
+     */
+    public static RawMaven parseModel(Parser.Input source, @Nullable URI relativeTo, @Nullable String snapshotVersion) {
+        try (InputStream is = source.getSource()) {
+            RawPom pom = xmlMapper.readValue(is, RawPom.class);
+            return new RawMaven(source.getRelativePath(relativeTo).toString(), null,
+                    withSnapshotVersion(pom, snapshotVersion));
         } catch (IOException e) {
             throw new UncheckedIOException("Failed to parse " + source.getUri(), e);
         }
     }
 
+    private static XMLStreamReader2 streamOf(Xml.Document document) {
+        XmlTreeStreamReader reader = new XmlTreeStreamReader(document);
+
+        // report self-closing tags as Woodstox does, so that e.g. <snapshots/> binds the same either way
+        return new Stax2ReaderAdapter(reader) {
+            @Override
+            public boolean isEmptyElement() {
+                return reader.isEmptyElement();
+            }
+        };
+    }
+
+    private static RawPom withSnapshotVersion(RawPom pom, @Nullable String snapshotVersion) {
+        return snapshotVersion == null ? pom : pom.withSnapshotVersion(snapshotVersion);
+    }
+
     public Map<String, String> getActiveProperties(Collection<String> activeProfiles) {
         return pom.getActiveProperties(activeProfiles);
     }
@@ -78,7 +78,12 @@ public class RawMavenResolver {
         Pom pom = resolve(rawMaven, Scope.None, rawMaven.getPom().getVersion(),
                 mavenSettings == null ? emptyList() : mavenSettings.getActiveRepositories(activeProfiles));
         assert pom != null;
-        return rawMaven.getDocument().withMarkers(rawMaven.getDocument().getMarkers().addOrUpdate(pom));
+
+        Xml.Document document = rawMaven.getDocument();
+        if (document == null) {
+            throw new IllegalArgumentException("Resolving a POM to a document requires that it was parsed with RawMaven.parse");
+        }
+        return document.withMarkers(document.getMarkers().addOrUpdate(pom));
     }
 
     /**
@@ -96,6 +101,7 @@ public class RawMavenResolver {
                 false, null, requestedVersion, repositories);
 
         workQueue.add(rootTask);
+        prefetch(rootTask);
 
         while (!workQueue.isEmpty()) {
             processTask(workQueue.poll());
@@ -111,7 +117,7 @@ public class RawMavenResolver {
             return; // already processed
         }
 
-        PartialMaven partialMaven = new PartialMaven(rawMaven.getDocument().getSourcePath(), rawMaven.getPom());
+        PartialMaven partialMaven = new PartialMaven(rawMaven.getSourcePath(), rawMaven.getPom());
         processProperties(task, partialMaven);
         processRepositories(task, partialMaven);
         processParent(task, partialMaven);
@@ -309,6 +315,7 @@ public class RawMavenResolver {
                     if (!partialResults.containsKey(resolutionTask)) {
                         // otherwise we've already resolved this subtree previously!
                         workQueue.add(resolutionTask);
+                        prefetch(resolutionTask);
                     }
 
                     return resolutionTask;
@@ -317,6 +324,69 @@ public class RawMavenResolver {
                 .collect(toList()));
     }
 
+    /**
+     * When a task is queued, start downloading the POMs it is going to ask for once the breadth-first
+     * walk reaches it. Only coordinates that can be determined from the raw POM alone are prefetched;
+     * versions that come from a parent, from dependency management or from a range are left to the
+     * sequential walk. Prefetching only warms the cache, so it has no bearing on which versions are selected.
+     */
+    private void prefetch(ResolutionTask task) {
+        if (!downloader.isPrefetching()) {
+            return;
+        }
+
+        RawPom pom = task.getRawMaven().getPom();
+        Map<String, String> properties = new HashMap<>(task.getRawMaven().getActiveProperties(activeProfiles));
+        if (pom.getGroupId() != null) {
+            properties.putIfAbsent("project.groupId", pom.getGroupId());
+        }
+        if (pom.getVersion() != null) {
+            properties.putIfAbsent("project.version", pom.getVersion());
+        }
+
+        List<RawRepositories.Repository> repositories = new ArrayList<>();
+        for (RawRepositories.Repository repository : pom.getActiveRepositories(activeProfiles)) {
+            if (!repository.getUrl().contains("${")) {
+                repositories.add(repository);
+            }
+        }
+        repositories.addAll(task.getRepositories());
+
+        RawPom.Parent parent = pom.getParent();
+        if (parent != null) {
+            prefetch(parent.getGroupId(), parent.getArtifactId(), parent.getVersion(), properties, repositories);
+        }
+
+        for (RawPom.Dependency dep : task.getRawMaven().getActiveDependencies(activeProfiles)) {
+            if ((dep.getType() == null || dep.getType().equals("jar")) &&
+                    (resolveOptional || dep.getOptional() == null || !dep.getOptional())) {
+                prefetch(dep.getGroupId(), dep.getArtifactId(), dep.getVersion(), properties, repositories);
+            }
+        }
+    }
+
+    private void prefetch(@Nullable String groupId, @Nullable String artifactId, @Nullable String version,
+                          Map<String, String> properties, List<RawRepositories.Repository> repositories) {
+        if (groupId == null || artifactId == null || version == null) {
+            return;
+        }
+
+        try {
+            groupId = placeholderHelper.replacePlaceholders(groupId, properties::get);
+            artifactId = placeholderHelper.replacePlaceholders(artifactId, properties::get);
+            version = placeholderHelper.replacePlaceholders(version, properties::get);
+        } catch (IllegalArgumentException e) {
+            return; // circular placeholder reference, the sequential walk will report it
+        }
+
+        if (groupId.contains("${") || artifactId.contains("${") || version.contains("${") ||
+                version.startsWith("[") || version.startsWith("(")) {
+            return;
+        }
+
+        downloader.prefetch(groupId, artifactId, version, repositories);
+    }
+
     private void processParent(ResolutionTask task, PartialMaven partialMaven) {
         RawMaven rawMaven = task.getRawMaven();
         RawPom pom = rawMaven.getPom();
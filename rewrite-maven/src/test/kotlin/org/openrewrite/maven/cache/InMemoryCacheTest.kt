@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven.cache
+
+import io.micrometer.core.instrument.Metrics
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.openrewrite.maven.internal.MavenMetadata
+import java.net.URL
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class InMemoryCacheTest {
+    private val central = URL("https://repo1.maven.org/maven2")
+    private val jcenter = URL("https://jcenter.bintray.com")
+
+    private fun metadata(vararg versions: String) = MavenMetadata(MavenMetadata.Versioning(versions.toList(), null))
+
+    @Test
+    fun pomsAreScopedToTheirRepository() {
+        val cache = InMemoryCache()
+
+        assertThat(cache.computeMaven(central, "g", "a", "1", { null }).data).isNull()
+        assertThat(cache.computeMaven(central, "g", "a", "1", { error("should be cached") }).state)
+                .isEqualTo(CacheResult.State.Unavailable)
+
+        // not being available in one repository says nothing about another
+        assertThat(cache.computeMaven(jcenter, "g", "a", "1", { null }).state)
+                .isEqualTo(CacheResult.State.Updated)
+    }
+
+    @Test
+    fun unavailableResultsExpire() {
+        val cache = InMemoryCache(1000, Duration.ZERO, Duration.ofHours(1))
+
+        cache.computeMavenMetadata(central, "g", "a") { null }
+
+        val result = cache.computeMavenMetadata(central, "g", "a") { metadata("1.0") }
+        assertThat(result.state).isEqualTo(CacheResult.State.Updated)
+        assertThat(result.data!!.versioning.versions).containsExactly("1.0")
+
+        assertThat(cache.computeMavenMetadata(central, "g", "a") { error("should be cached") }.state)
+                .isEqualTo(CacheResult.State.Cached)
+    }
+
+    @Test
+    fun evictLeastRecentlyUsed() {
+        val cache = InMemoryCache(16, Duration.ofHours(1), Duration.ofHours(1))
+
+        for (i in 0 until 100) {
+            cache.computeMavenMetadata(central, "g", "a$i") { metadata("1.0") }
+        }
+
+        val reloads = (0 until 100).count { i ->
+            cache.computeMavenMetadata(central, "g", "a$i") { metadata("1.0") }.state == CacheResult.State.Updated
+        }
+        assertThat(reloads).isGreaterThan(50)
+    }
+
+    @Test
+    fun concurrentLoadsOfTheSameKeyAreCoalesced() {
+        val cache = InMemoryCache()
+        val loads = AtomicInteger()
+        val start = CountDownLatch(1)
+
+        val executor = Executors.newFixedThreadPool(8)
+        repeat(8) {
+            executor.submit {
+                start.await()
+                cache.computeMavenMetadata(central, "g", "a") {
+                    loads.incrementAndGet()
+                    Thread.sleep(100)
+                    metadata("1.0")
+                }
+            }
+        }
+        start.countDown()
+        executor.shutdown()
+        executor.awaitTermination(10, TimeUnit.SECONDS)
+
+        assertThat(loads.get()).isEqualTo(1)
+    }
+
+    @Test
+    fun metricsOfEachCacheAreKeptApart() {
+        val registry = SimpleMeterRegistry()
+        Metrics.globalRegistry.add(registry)
+        try {
+            val first = InMemoryCache("first", 1000, Duration.ofHours(1), Duration.ofHours(1))
+            val second = InMemoryCache("second", 1000, Duration.ofHours(1), Duration.ofHours(1))
+
+            first.computeMavenMetadata(central, "g", "a") { metadata("1.0") }
+            second.computeMavenMetadata(central, "g", "a") { metadata("1.0") }
+            second.computeMavenMetadata(central, "g", "b") { metadata("1.0") }
+
+            fun misses(cache: String) = registry.get("rewrite.maven.cache.gets")
+                    .tags("cache", cache, "content", "metadata", "result", "miss")
+                    .counter().count()
+
+            assertThat(misses("first")).isEqualTo(1.0)
+            assertThat(misses("second")).isEqualTo(2.0)
+            assertThat(registry.get("rewrite.maven.cache.size").tags("cache", "second", "content", "metadata")
+                    .gauge().value()).isEqualTo(2.0)
+        } finally {
+            Metrics.globalRegistry.remove(registry)
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven.internal
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.openrewrite.Parser
+import org.openrewrite.maven.MavenParser
+import org.openrewrite.maven.cache.CacheResult
+import org.openrewrite.maven.cache.MavenCache
+import org.openrewrite.maven.tree.Pom
+import java.net.URI
+import java.net.URL
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+class RawMavenResolverTest {
+    /**
+     * Serves POMs from memory instead of a remote repository, remembering what it has served
+     * so the resolver sees the same caching behavior it would from a real cache.
+     */
+    private class RepositoryStandIn(private val poms: Map<String, String>,
+                                    private val beforeLoad: (String) -> Boolean = { true }) : MavenCache {
+        val loads = ConcurrentHashMap<String, AtomicInteger>()
+        private val served = ConcurrentHashMap<String, RawMaven>()
+
+        override fun computeMavenMetadata(repo: URL, groupId: String, artifactId: String,
+                                          orElseGet: Callable<MavenMetadata>): CacheResult<MavenMetadata> =
+                CacheResult(CacheResult.State.Unavailable, null)
+
+        override fun computeMaven(repo: URL, groupId: String, artifactId: String, version: String,
+                                  orElseGet: Callable<RawMaven>): CacheResult<RawMaven> {
+            val gav = "$groupId:$artifactId:$version"
+            val pom = poms[gav] ?: return CacheResult(CacheResult.State.Unavailable, null)
+            if (!served.containsKey(gav) && !beforeLoad(gav)) {
+                return CacheResult(CacheResult.State.Unavailable, null)
+            }
+            return CacheResult(CacheResult.State.Cached, served.computeIfAbsent(gav) {
+                loads.computeIfAbsent(gav) { AtomicInteger() }.incrementAndGet()
+                Thread.sleep(10)
+                RawMaven.parseModel(Parser.Input(URI.create("https://repo.example/${gav.replace(':', '/')}.pom")) {
+                    pom.byteInputStream()
+                }, null, null)
+            })
+        }
+
+        override fun computeRepository(repository: RawRepositories.Repository,
+                                       orElseGet: Callable<RawRepositories.Repository>): CacheResult<RawRepositories.Repository> =
+                CacheResult(CacheResult.State.Cached, repository)
+    }
+
+    private fun pom(gav: String, vararg dependencies: String, parent: String? = null): Pair<String, String> {
+        val (g, a, v) = gav.split(":")
+        return gav to """
+            <project>
+                ${parent?.split(":")?.let { (pg, pa, pv) -> "<parent><groupId>$pg</groupId><artifactId>$pa</artifactId><version>$pv</version></parent>" } ?: ""}
+                <groupId>$g</groupId>
+                <artifactId>$a</artifactId>
+                <version>$v</version>
+                ${if (dependencies.isEmpty()) "" else dependencies.joinToString("", "<dependencies>", "</dependencies>") { dep ->
+                    val (dg, da, dv) = dep.split(":")
+                    "<dependency><groupId>$dg</groupId><artifactId>$da</artifactId><version>$dv</version></dependency>"
+                }}
+            </project>
+        """
+    }
+
+    private val repository = mapOf(
+            pom("org.example:a:1", "org.example:c:1", "org.example:d:1"),
+            pom("org.example:b:1", "org.example:c:2", parent = "org.example:p:1"),
+            pom("org.example:p:1", "org.example:e:1"),
+            pom("org.example:c:1", "org.example:d:2"),
+            pom("org.example:c:2"),
+            pom("org.example:d:1"),
+            pom("org.example:d:2"),
+            pom("org.example:e:1")
+    )
+
+    private val project = """
+        <project>
+            <groupId>com.mycompany.app</groupId>
+            <artifactId>my-app</artifactId>
+            <version>1</version>
+            <properties>
+                <a.version>1</a.version>
+            </properties>
+            <dependencies>
+                <dependency>
+                    <groupId>org.example</groupId>
+                    <artifactId>a</artifactId>
+                    <version>${'$'}{a.version}</version>
+                </dependency>
+                <dependency>
+                    <groupId>org.example</groupId>
+                    <artifactId>b</artifactId>
+                    <version>1</version>
+                </dependency>
+            </dependencies>
+        </project>
+    """.trimIndent()
+
+    private fun Pom.dependencyTree(): String = dependencies.joinToString(",", "[", "]") {
+        it.coordinates + it.model.dependencyTree()
+    }
+
+    @Test
+    fun prefetchingDoesNotChangeVersionSelection() {
+        val sequentialCache = RepositoryStandIn(repository)
+        val sequential = MavenParser.builder()
+                .cache(sequentialCache)
+                .build()
+                .parse(project)[0]
+
+        val parallelCache = RepositoryStandIn(repository)
+        val parallel = MavenParser.builder()
+                .cache(parallelCache)
+                .resolutionParallelism(4)
+                .build()
+                .parse(project)[0]
+
+        assertThat(sequential.model.dependencyTree())
+                .contains("org.example:c:1")
+                .doesNotContain("org.example:c:2")
+        assertThat(parallel.model.dependencyTree()).isEqualTo(sequential.model.dependencyTree())
+        assertThat(parallelCache.loads.keys).containsAll(sequentialCache.loads.keys)
+        assertThat(parallelCache.loads.values).allMatch { it.get() == 1 }
+    }
+
+    @Test
+    fun prefetchInFlightWhenParsingFinishesIsNotInterrupted() {
+        val slowStarted = CountDownLatch(1)
+        val slowInterrupted = AtomicBoolean()
+        val cache = RepositoryStandIn(mapOf(
+                pom("org.example:a:1", "org.example:slow:1", "org.example:d:1"),
+                pom("org.example:slow:1"),
+                pom("org.example:d:1")
+        )) { gav ->
+            when (gav) {
+                "org.example:slow:1" -> {
+                    slowStarted.countDown()
+                    try {
+                        Thread.sleep(200)
+                        true
+                    } catch (e: InterruptedException) {
+                        slowInterrupted.set(true)
+                        false
+                    }
+                }
+                // hold resolution back until the prefetch that it will never ask for is in flight
+                "org.example:d:1" -> slowStarted.await(5, TimeUnit.SECONDS)
+                else -> true
+            }
+        }
+
+        // the resolver never asks for slow:1, but it is prefetched as a dependency of a:1 all the same
+        MavenParser.builder()
+                .cache(cache)
+                .resolutionParallelism(4)
+                .build()
+                .parse("""
+                    <project>
+                        <groupId>com.mycompany.app</groupId>
+                        <artifactId>my-app</artifactId>
+                        <version>1</version>
+                        <dependencies>
+                            <dependency>
+                                <groupId>org.example</groupId>
+                                <artifactId>a</artifactId>
+                                <version>1</version>
+                                <exclusions>
+                                    <exclusion>
+                                        <groupId>org.example</groupId>
+                                        <artifactId>slow</artifactId>
+                                    </exclusion>
+                                </exclusions>
+                            </dependency>
+                        </dependencies>
+                    </project>
+                """.trimIndent())
+
+        assertThat(slowInterrupted.get()).isFalse()
+        assertThat(cache.loads).containsKey("org.example:slow:1")
+    }
+}
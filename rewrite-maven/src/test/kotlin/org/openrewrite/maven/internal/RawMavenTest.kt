@@ -75,4 +75,97 @@ class RawMavenTest {
 
         assertThat(maven.pom.dependencyManagement?.dependencies?.dependencies).isNotEmpty()
     }
+
+    @Test
+    fun modelFromTreeMatchesModelFromSource() {
+        val pom = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <project xmlns="http://maven.apache.org/POM/4.0.0">
+              <!-- a comment -->
+              <parent>
+                <groupId>org.example</groupId>
+                <artifactId>parent</artifactId>
+                <version>1</version>
+              </parent>
+              <artifactId>my-app</artifactId>
+              <properties>
+                <query>a=1&amp;b=2</query>
+                <cdata><![CDATA[<not a tag>]]></cdata>
+              </properties>
+              <dependencies>
+                <dependency>
+                  <groupId>org.example</groupId>
+                  <artifactId>a</artifactId>
+                  <version>${'$'}{a.version}</version>
+                  <optional>true</optional>
+                  <exclusions>
+                    <exclusion>
+                      <groupId>org.example</groupId>
+                      <artifactId>b</artifactId>
+                    </exclusion>
+                  </exclusions>
+                </dependency>
+              </dependencies>
+              <repositories>
+                <repository>
+                  <url>https://repo.example</url>
+                  <snapshots/>
+                </repository>
+              </repositories>
+              <profiles>
+                <profile>
+                  <id>p</id>
+                  <properties>
+                    <a.version>2</a.version>
+                  </properties>
+                </profile>
+              </profiles>
+            </project>
+        """.trimIndent()
+
+        val input = Parser.Input(URI.create("pom.xml")) { pom.byteInputStream() }
+        val fromTree = RawMaven.parse(input, null, null)
+        val fromSource = RawMaven.parseModel(input, null, null)
+
+        assertThat(fromTree.document).isNotNull
+        assertThat(fromSource.document).isNull()
+        assertThat(fromSource.sourcePath).isEqualTo(fromTree.sourcePath)
+
+        assertThat(fromTree.pom.groupId).isEqualTo("org.example")
+        assertThat(fromTree.pom.properties).containsEntry("query", "a=1&b=2").containsEntry("cdata", "<not a tag>")
+        assertThat(fromTree.pom.properties).isEqualTo(fromSource.pom.properties)
+        assertThat(fromTree.getActiveDependencies(listOf("p"))).isEqualTo(fromSource.getActiveDependencies(listOf("p")))
+        assertThat(fromTree.getActiveProperties(listOf("p"))).isEqualTo(fromSource.getActiveProperties(listOf("p")))
+        assertThat(fromTree.pom.getActiveRepositories(emptyList()))
+                .isEqualTo(fromSource.pom.getActiveRepositories(emptyList()))
+    }
+
+    @Test
+    fun emptyCharacterDataBeforeChildTag() {
+        val pom = """
+            <project>
+              <groupId>org.example</groupId>
+              <artifactId>my-app</artifactId>
+              <version>1</version>
+              <dependencies><![CDATA[]]>
+                <dependency>
+                  <groupId>org.example</groupId>
+                  <artifactId>a</artifactId>
+                  <version>1</version>
+                </dependency>
+                <dependency><![CDATA[]]><groupId>org.example</groupId>
+                  <artifactId>b</artifactId>
+                  <version>1</version>
+                </dependency>
+              </dependencies>
+            </project>
+        """.trimIndent()
+
+        val input = Parser.Input(URI.create("pom.xml")) { pom.byteInputStream() }
+        val fromTree = RawMaven.parse(input, null, null)
+
+        assertThat(fromTree.getActiveDependencies(emptyList()).map { it.artifactId }).containsExactly("a", "b")
+        assertThat(fromTree.getActiveDependencies(emptyList()))
+                .isEqualTo(RawMaven.parseModel(input, null, null).getActiveDependencies(emptyList()))
+    }
 }
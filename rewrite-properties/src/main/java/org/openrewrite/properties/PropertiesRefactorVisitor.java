@@ -16,11 +16,21 @@
 package org.openrewrite.properties;
 
 import org.openrewrite.AbstractRefactorVisitor;
+import org.openrewrite.SourceFile;
 import org.openrewrite.properties.tree.Properties;
 
+import java.util.Collection;
+
+import static java.util.Collections.singletonList;
+
 public class PropertiesRefactorVisitor extends AbstractRefactorVisitor<Properties>
         implements PropertiesSourceVisitor<Properties> {
 
+    @Override
+    public Collection<Class<? extends SourceFile>> getSourceTypes() {
+        return singletonList(Properties.File.class);
+    }
+
     @Override
     public Properties visitFile(Properties.File file) {
         return file.withContent(refactor(file.getContent()));
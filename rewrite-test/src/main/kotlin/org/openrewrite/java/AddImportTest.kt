@@ -39,6 +39,39 @@ interface AddImportTest : RefactorVisitorTest {
             """
     )
 
+    @Test
+    fun addAndRemoveImportsTogether(jp: JavaParser) = assertRefactored(
+        jp,
+        visitors = listOf(
+            object : JavaIsoRefactorVisitor() {
+                override fun visitCompilationUnit(cu: J.CompilationUnit): J.CompilationUnit {
+                    maybeRemoveImport("java.util.Set")
+                    addImport("java.util.List")
+                    maybeAddImport("java.util.Map")
+                    maybeAddImport("java.util.Collection")
+                    maybeRemoveImport("java.util.Set")
+                    return super.visitCompilationUnit(cu)
+                }
+            }
+        ),
+        before = """
+                import java.util.Map;
+                import java.util.Set;
+                
+                class A {
+                    Map<String, String> m;
+                }
+            """,
+        after = """
+                import java.util.List;
+                import java.util.Map;
+                
+                class A {
+                    Map<String, String> m;
+                }
+            """
+    )
+
     @Test
     fun addNamedImport(jp: JavaParser) = assertRefactored(
         jp,
@@ -161,6 +161,9 @@ abstract class JavaParserCompatibilityKit {
     @Nested
     inner class TypeParameterAndWildcardTck : TypeParameterAndWildcardTest
 
+    @Nested
+    inner class TypeReferencesTck : TypeReferencesTest
+
     @Nested
     inner class UnaryTck : UnaryTest
 
@@ -16,6 +16,7 @@
 package org.openrewrite.java
 
 import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertSame
 import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Disabled
 import org.junit.jupiter.api.Test
@@ -148,4 +149,29 @@ interface MethodMatcherTest {
         assertTrue(MethodMatcher("a.A setInteger(Integer)").matches(setIntegerMethod, classDecl))
         assertTrue(MethodMatcher("a.A getInteger()").matches(getIntegerMethod, classDecl))
     }
+
+    @Test
+    fun sharesCompiledSignatures(jp: JavaParser) {
+        assertSame(MethodMatcher("a.A foo(int)").argumentPattern, MethodMatcher("a.A foo(int)").argumentPattern)
+    }
+
+    @Test
+    fun matchesMethodInvocationWithExactSignature(jp: JavaParser) {
+        val cu = jp.parse("""
+            class A {
+                void test(StringBuilder sb) {
+                    sb.append("a");
+                    sb.indexOf("b");
+                }
+            }
+        """.trimIndent())[0]
+
+        val append = cu.findMethodCalls("java.lang.StringBuilder append(..)").first()
+        assertTrue(MethodMatcher("java.lang.StringBuilder append(java.lang.String)").matches(append))
+        assertTrue(MethodMatcher("StringBuilder append(String)").matches(append))
+        assertFalse(MethodMatcher("java.lang.StringBuilder append(java.lang.Object)").matches(append))
+        assertFalse(MethodMatcher("java.lang.StringBuilder indexOf(java.lang.String)").matches(append))
+        assertFalse(MethodMatcher("java.lang.StringBuffer append(java.lang.String)").matches(append))
+        assertFalse(MethodMatcher("java.lang.StringBuilder append()").matches(append))
+    }
 }
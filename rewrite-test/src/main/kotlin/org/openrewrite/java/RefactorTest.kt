@@ -16,6 +16,7 @@
 package org.openrewrite.java
 
 import org.assertj.core.api.Assertions.assertThat
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
 import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.Disabled
 import org.junit.jupiter.api.Test
@@ -27,13 +28,15 @@ import org.openrewrite.SourceFile
 import org.openrewrite.Tree.randomId
 import org.openrewrite.java.tree.J
 import org.openrewrite.java.tree.JavaType
+import java.util.Collections
+import java.util.IdentityHashMap
 
 class RefactorTest {
     class RefactorTestException : RuntimeException("")
 
-    val cu = J.CompilationUnit(
+    private fun cu(sourcePath: String) = J.CompilationUnit(
             randomId(),
-            "A.java",
+            sourcePath,
             null,
             listOf(),
             listOf(),
@@ -42,32 +45,36 @@ class RefactorTest {
             emptyList()
     )
 
+    val cu = cu("A.java")
+
     private val throwingVisitor = object : JavaRefactorVisitor() {
         override fun visitCompilationUnit(cu: J.CompilationUnit?): J {
             throw RefactorTestException()
         }
     }
 
+    private fun classDecl(name: String) = J.ClassDecl(
+            randomId(),
+            emptyList(),
+            emptyList(),
+            J.ClassDecl.Kind.Class(randomId(), Formatting.EMPTY, Markers.EMPTY),
+            J.Ident.buildClassName(name).withPrefix(" "),
+            null,
+            null,
+            null,
+            J.Block(randomId(), null, emptyList(), Formatting.EMPTY, Markers.EMPTY, J.Block.End(randomId(), Formatting.EMPTY, Markers.EMPTY)),
+            JavaType.Class.build(name),
+            format("", "\n"),
+            Markers.EMPTY
+    )
+
     private val addClassDecl = object : JavaIsoRefactorVisitor() {
         override fun getName(): String = "AddClassDecl"
 
         override fun visitCompilationUnit(compilationUnit : J.CompilationUnit?): J.CompilationUnit {
             var cu = super.visitCompilationUnit(compilationUnit)
             if(cu.classes.size == 0) {
-                cu = cu.withClasses(listOf(J.ClassDecl(
-                        randomId(),
-                        emptyList(),
-                        emptyList(),
-                        J.ClassDecl.Kind.Class(randomId(), Formatting.EMPTY, Markers.EMPTY),
-                        J.Ident.buildClassName("Foo").withPrefix(" "),
-                        null,
-                        null,
-                        null,
-                        J.Block(randomId(), null, emptyList(), Formatting.EMPTY, Markers.EMPTY, J.Block.End(randomId(), Formatting.EMPTY, Markers.EMPTY)),
-                        JavaType.Class.build("Foo"),
-                        format("", "\n"),
-                        Markers.EMPTY
-                )))
+                cu = cu.withClasses(listOf(classDecl("Foo")))
             }
             return cu
         }
@@ -178,6 +185,209 @@ class RefactorTest {
         assertEquals(1, result.classes.first().methods.size, "addMethod should have added a method declaration")
     }
 
+    @Test
+    fun throwsEagerlyWhenParallel() {
+        assertThrows(RefactorTestException::class.java) {
+            Refactor(true)
+                    .setParallelism(2)
+                    .visit(throwingVisitor)
+                    .fix(listOf(cu, cu("B.java")))
+        }
+    }
+
+    @Test
+    fun parallelFixProducesSameChangesAsSequential() {
+        val sources = (1..50).map { i -> cu("A$i.java") }
+
+        val sequential = Refactor(true)
+                .visit(addClassDecl)
+                .fix(sources)
+
+        val parallel = Refactor(true)
+                .setParallelism(4)
+                .visit(addClassDecl)
+                .fix(sources)
+
+        assertEquals(sources.size, parallel.size)
+        assertThat(parallel.map { it.fixed!!.print() }).isEqualTo(sequential.map { it.fixed!!.print() })
+        assertThat(parallel.map { it.original!!.sourcePath }).isEqualTo(sequential.map { it.original!!.sourcePath })
+        assertThat(parallel.map { it.visitorsThatMadeChanges }).isEqualTo(sequential.map { it.visitorsThatMadeChanges })
+    }
+
+    @Test
+    fun parallelFixConfinesPerSourceStateToEachWorker() {
+        val sources = (1..50).map { i -> cu("A$i.java") }
+        val workers = Collections.newSetFromMap(IdentityHashMap<Any, Boolean>())
+
+        // names the class after the compilation unit it remembers, so a visitor shared between threads would mix them up
+        val statefulVisitor = object : JavaIsoRefactorVisitor() {
+            var sourcePath: String? = null
+
+            override fun visitCompilationUnit(compilationUnit: J.CompilationUnit?): J.CompilationUnit {
+                synchronized(workers) { workers.add(this) }
+                sourcePath = compilationUnit!!.sourcePath
+                Thread.yield()
+                var cu = super.visitCompilationUnit(compilationUnit)
+                if (cu.classes.isEmpty()) {
+                    cu = cu.withClasses(listOf(classDecl(sourcePath!!.removeSuffix(".java"))))
+                }
+                return cu
+            }
+        }
+
+        val results = Refactor(true)
+                .setParallelism(4)
+                .visit(statefulVisitor)
+                .fix(sources)
+
+        assertThat(results.map { it.fixed!!.print() })
+                .containsExactlyInAnyOrderElementsOf(sources.map { "class ${it.sourcePath.removeSuffix(".java")}{}\n" })
+        assertThat(workers).doesNotContain(statefulVisitor)
+    }
+
+    @Test
+    fun visitorsThatGenerateSourcesAreNotCopied() {
+        val workers = Collections.newSetFromMap(IdentityHashMap<Any, Boolean>())
+        val generatingVisitor = object : JavaIsoRefactorVisitor() {
+            override fun visitCompilationUnit(cu: J.CompilationUnit?): J.CompilationUnit {
+                synchronized(workers) { workers.add(this) }
+                return super.visitCompilationUnit(cu)
+            }
+
+            override fun generate(): MutableCollection<SourceFile> = mutableListOf()
+        }
+
+        Refactor(true)
+                .setParallelism(4)
+                .visit(generatingVisitor)
+                .fix((1..20).map { i -> cu("A$i.java") })
+
+        assertThat(workers).containsExactly(generatingVisitor)
+    }
+
+    @Test
+    fun onlyRevisitsSourcesThatChanged() {
+        val visited = mutableListOf<String>()
+        val countingVisitor = object : JavaIsoRefactorVisitor() {
+            override fun visitCompilationUnit(cu: J.CompilationUnit?): J.CompilationUnit {
+                visited.add(cu!!.sourcePath)
+                return super.visitCompilationUnit(cu)
+            }
+        }
+
+        val results = Refactor(true)
+                .visit(addClassDecl, countingVisitor)
+                .fix(listOf(cu, cu.withClasses(listOf(classDecl("Bar"))).withSourcePath("B.java")))
+
+        assertEquals(1, results.size)
+        assertThat(visited).containsExactly("A.java", "B.java", "A.java")
+    }
+
+    @Test
+    fun revisitsSourcesThatVisitorsDependOn() {
+        val visited = mutableListOf<String>()
+        val dependentVisitor = object : JavaIsoRefactorVisitor() {
+            override fun visitCompilationUnit(cu: J.CompilationUnit?): J.CompilationUnit {
+                visited.add(cu!!.sourcePath)
+                return super.visitCompilationUnit(cu)
+            }
+
+            override fun isRevisitRequired(source: SourceFile, changedSources: Collection<SourceFile>): Boolean =
+                    changedSources.any { it.sourcePath == "A.java" }
+        }
+
+        Refactor(true)
+                .visit(addClassDecl, dependentVisitor)
+                .fix(listOf(cu, cu.withClasses(listOf(classDecl("Bar"))).withSourcePath("B.java")))
+
+        assertThat(visited).containsExactly("A.java", "B.java", "A.java", "B.java")
+    }
+
+    @Test
+    fun revisitsEverySourceForVisitorsThatGatherStateAcrossCycles() {
+        val visited = mutableListOf<String>()
+        val gatheringVisitor = object : JavaIsoRefactorVisitor() {
+            override fun visitCompilationUnit(cu: J.CompilationUnit?): J.CompilationUnit {
+                visited.add(cu!!.sourcePath)
+                return super.visitCompilationUnit(cu)
+            }
+
+            override fun nextCycle() {
+            }
+        }
+
+        Refactor(true)
+                .visit(addClassDecl, gatheringVisitor)
+                .fix(listOf(cu, cu.withClasses(listOf(classDecl("Bar"))).withSourcePath("B.java")))
+
+        assertThat(visited).containsExactly("A.java", "B.java", "A.java", "B.java")
+    }
+
+    @Test
+    fun onlyVisitsApplicableSources() {
+        val visited = mutableListOf<String>()
+        val selectiveVisitor = object : JavaIsoRefactorVisitor() {
+            override fun isApplicable(source: SourceFile): Boolean = source.sourcePath == "B.java"
+
+            override fun visitCompilationUnit(cu: J.CompilationUnit?): J.CompilationUnit {
+                visited.add(cu!!.sourcePath)
+                return super.visitCompilationUnit(cu)
+            }
+        }
+
+        Refactor(true)
+                .visit(selectiveVisitor)
+                .fix(listOf(cu, cu("B.java")))
+
+        assertThat(visited).containsExactly("B.java")
+    }
+
+    @Test
+    fun onlyVisitsSourcesOfTheVisitorsSourceTypes() {
+        var prepared = 0
+        val otherSourceVisitor = object : JavaIsoRefactorVisitor() {
+            override fun getSourceTypes(): Collection<Class<out SourceFile>> = listOf(OtherSource::class.java)
+
+            override fun next() {
+                prepared++
+                super.next()
+            }
+        }
+
+        Refactor(true)
+                .visit(otherSourceVisitor)
+                .fix(listOf(cu, cu("B.java")))
+
+        assertEquals(0, prepared)
+    }
+
+    interface OtherSource : SourceFile
+
+    @Test
+    fun visitTimersAreRegisteredOncePerVisitorAndTreeType() {
+        val meterRegistry = SimpleMeterRegistry()
+        Refactor(true)
+                .setMeterRegistry(meterRegistry)
+                .visit(addClassDecl)
+                .fix((1..10).map { i -> cu("A$i.java") })
+
+        val visitTimers = meterRegistry.find("rewrite.refactor.visit").timers()
+        assertEquals(1, visitTimers.size)
+        assertEquals(20L, visitTimers.first().count())
+    }
+
+    @Test
+    fun instrumentationOff() {
+        val meterRegistry = SimpleMeterRegistry()
+        Refactor(true)
+                .setMeterRegistry(meterRegistry)
+                .setInstrumentation(Refactor.Instrumentation.OFF)
+                .visit(addClassDecl)
+                .fix(listOf(cu))
+
+        assertThat(meterRegistry.meters).isEmpty()
+    }
+
     @Test
     fun generateDiff() {
         val results = Refactor(true)
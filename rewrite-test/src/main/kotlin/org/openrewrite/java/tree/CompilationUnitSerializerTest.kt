@@ -16,6 +16,7 @@
 package org.openrewrite.java.tree
 
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotEquals
 import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Test
 import org.openrewrite.marker.Markers
@@ -64,4 +65,29 @@ interface CompilationUnitSerializerTest {
         val aBytes = serializer.write(listOf(a))
         assertEquals(a, serializer.readList(aBytes)[0])
     }
+
+    @Test
+    fun readCopyHasFreshIds(jp: JavaParser) {
+        val a = jp.parse(aSource)[0]
+        val aBytes = serializer.write(a)
+        val copy1 = serializer.readCopy(aBytes)
+        val copy2 = serializer.readCopy(aBytes)
+
+        assertEquals(a.printTrimmed(), copy1.printTrimmed())
+        assertNotEquals(a.id, copy1.id)
+        assertNotEquals(copy1.id, copy2.id)
+        assertNotEquals(copy1.classes[0].id, copy2.classes[0].id)
+    }
+
+    @Test
+    fun readCopyReplacesSharedIdsConsistently(jp: JavaParser) {
+        val a = jp.parse(aSource)[0]
+        val twice = a.withClasses(listOf(a.classes[0], a.classes[0]))
+
+        val copy = serializer.readCopy(serializer.write(twice))
+
+        assertNotEquals(a.classes[0].id, copy.classes[0].id)
+        assertEquals(copy.classes[0].id, copy.classes[1].id)
+        assertEquals(a.id, serializer.read(serializer.write(a)).id)
+    }
 }
@@ -17,7 +17,9 @@ package org.openrewrite.java.tree
 
 import org.assertj.core.api.Assertions.assertThat
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertSame
 import org.junit.jupiter.api.Test
+import org.openrewrite.java.JavaIsoRefactorVisitor
 import org.openrewrite.java.JavaParser
 import java.net.URI
 import java.nio.file.Paths
@@ -75,4 +77,25 @@ interface CompilationUnitTest {
 
         assertEquals(a.trimIndent(), jp.parse(a)[0].printTrimmed())
     }
+
+    @Test
+    fun unchangedByNoOpRefactorVisitor(jp: JavaParser) {
+        val a = jp.parse("""
+            import java.util.*;
+            public class A<T extends Number> {
+                static { int i = 0; }
+                List<T> list = new ArrayList<>();
+                public int sum(int... ns) throws Exception {
+                    int total = 0;
+                    for (int n : ns) {
+                        total += n > 0 ? n : -n;
+                    }
+                    Runnable r = () -> System.out.println(list.size());
+                    return (int) total;
+                }
+            }
+        """)[0]
+
+        assertSame(a, JavaIsoRefactorVisitor().visit(a))
+    }
 }
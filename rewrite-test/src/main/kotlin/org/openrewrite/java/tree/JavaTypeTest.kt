@@ -125,4 +125,18 @@ interface JavaTypeTest {
 
         assertTrue(a.classes[0].type !== a2.classes[0].type)
     }
+
+    @Test
+    fun clearingFlyweightsKeepsObject(jp: JavaParser) {
+        val a = jp.parse("public class A { int n; }")[0]
+
+        JavaType.Class.clearFlyweights()
+        JavaType.Method.clearFlyweights()
+
+        assertThat(JavaType.Class.build("java.lang.Object")).isSameAs(JavaType.Class.OBJECT)
+
+        val a2 = jp.reset().parse("public class A { int n; }")[0]
+        assertTrue(a.classes[0].type !== a2.classes[0].type)
+        assertTrue(a.classes[0].type!!.deepEquals(a2.classes[0].type))
+    }
 }
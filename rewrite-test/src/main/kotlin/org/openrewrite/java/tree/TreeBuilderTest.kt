@@ -353,6 +353,36 @@ interface TreeBuilderTest {
         assertThat(methodDecl.returnTypeExpr?.type).isEqualTo(JavaType.Class.build("b.B"))
     }
 
+    @Test
+    fun reusedCompiledDeclarationsHaveFreshIds(jp: JavaParser) {
+        val a = jp.parse("""
+            public class A {
+                int n = 0;
+            }
+            
+            class B {
+                int n = 0;
+            }
+        """.trimIndent())[0]
+
+        val snippet = """
+            int getN() {
+                return n;
+            }
+        """.trimIndent()
+
+        val first = TreeBuilder(a).buildMethodDeclaration(a.classes[0], snippet)
+        val second = TreeBuilder(a).buildMethodDeclaration(a.classes[0], snippet)
+        val other = TreeBuilder(a).buildMethodDeclaration(a.classes[1], snippet)
+
+        assertThat(second.id).isNotEqualTo(first.id)
+        assertThat(second.body!!.id).isNotEqualTo(first.body!!.id)
+        assertThat(other.id).isNotEqualTo(first.id)
+        assertThat(other.id).isNotEqualTo(second.id)
+        assertThat(second.printTrimmed()).isEqualTo(first.printTrimmed())
+        assertThat(other.printTrimmed()).isEqualTo(first.printTrimmed())
+    }
+
     @Test
     fun buildFullyQualifiedClassName(jp: JavaParser) {
         val name = TreeBuilder.buildName("java.util.List", EMPTY) as J.FieldAccess
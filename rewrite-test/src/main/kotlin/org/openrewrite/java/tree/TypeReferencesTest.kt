@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.java.tree
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.openrewrite.TreeSerializer
+import org.openrewrite.java.JavaParser
+import org.openrewrite.java.MethodMatcher
+
+interface TypeReferencesTest {
+
+    @Test
+    fun indexedAtParseTime(jp: JavaParser) {
+        val a = jp.parse("""
+            import java.util.List;
+            public class A {
+                List<String> list;
+            }
+        """)[0]
+
+        assertThat(a.markers.entrySet()).anyMatch { it is TypeReferences }
+        assertThat(TypeReferences.of(a).hasTypeName("java.util.List")).isTrue()
+        assertThat(TypeReferences.of(a).hasTypeName("java.util.Set")).isFalse()
+    }
+
+    @Test
+    fun importsAreReferencesButNotTypeNames(jp: JavaParser) {
+        val a = jp.parse("""
+            import java.util.List;
+            public class A {}
+        """)[0]
+
+        val refs = TypeReferences.of(a)
+        assertThat(refs.referencesType("java.util.List")).isTrue()
+        assertThat(refs.hasTypeName("java.util.List")).isFalse()
+    }
+
+    @Test
+    fun methodsMatchedOnDeclaringTypeOrSupertype(jp: JavaParser) {
+        val a = jp.parse("""
+            import java.util.ArrayList;
+            public class A {
+                void test() {
+                    new ArrayList<String>().add("a");
+                }
+            }
+        """)[0]
+
+        val refs = TypeReferences.of(a)
+        assertThat(refs.mayReferenceMethod(MethodMatcher("java.util.ArrayList add(..)"))).isTrue()
+        assertThat(refs.mayReferenceMethod(MethodMatcher("java.util.ArrayList remove(..)"))).isFalse()
+        assertThat(refs.mayReferenceMethod(MethodMatcher("java.util.LinkedList add(..)"))).isFalse()
+    }
+
+    @Test
+    fun rebuiltWhenCompilationUnitChanges(jp: JavaParser) {
+        val a = jp.parse("public class A {}")[0]
+        val b = jp.parse("""
+            import java.util.List;
+            public class B {
+                List<String> list;
+            }
+        """)[0]
+
+        val changed = a.withClasses(b.classes)
+        assertThat(TypeReferences.of(changed).hasTypeName("java.util.List")).isTrue()
+    }
+
+    @Test
+    fun rebuiltIndexIsRemembered(jp: JavaParser) {
+        val a = jp.parse("public class A {}")[0]
+        val b = jp.parse("""
+            import java.util.List;
+            public class B {
+                List<String> list;
+            }
+        """)[0]
+
+        val changed = a.withClasses(b.classes)
+        assertThat(TypeReferences.indexed(changed)).isNull()
+        TypeReferences.of(changed)
+        assertThat(TypeReferences.indexed(changed)?.hasTypeName("java.util.List")).isTrue()
+    }
+
+    @Test
+    fun deserializedIndexDescribesTheCompilationUnitItIsReadFor(jp: JavaParser) {
+        val a = jp.parse("""
+            import java.util.List;
+            public class A {
+                List<String> list;
+            }
+        """)[0]
+
+        val serializer = TreeSerializer<J.CompilationUnit>()
+        val deserialized = serializer.read(serializer.write(a))
+
+        assertThat(TypeReferences.indexed(deserialized)?.hasTypeName("java.util.List")).isTrue()
+        assertThat(TypeReferences.indexed(deserialized.withClasses(emptyList()))).isNull()
+    }
+}
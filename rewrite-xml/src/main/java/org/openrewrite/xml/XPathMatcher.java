@@ -16,13 +16,13 @@
 package org.openrewrite.xml;
 
 import org.openrewrite.Cursor;
+import org.openrewrite.Tree;
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.xml.tree.Content;
 import org.openrewrite.xml.tree.Xml;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Supports a limited set of XPath expressions, specifically those
@@ -32,65 +32,278 @@ import java.util.stream.Collectors;
  * <p>
  * The "current node" for XPath evaluation is always the root node of the document.
  * As a result, '.' and '..' are not recognized.
+ * <p>
+ * In addition to '/', '//', '*' and a trailing '@attribute', steps may be qualified with predicates
+ * comparing the value of a child tag or of an attribute to a literal, e.g. <code>//dependency[artifactId='guava']</code>
+ * or <code>/project/dependencies/dependency[@scope="test"]</code>.
+ * <p>
+ * The expression is compiled once. Matching walks up the cursor from the tree being visited, comparing one step per
+ * enclosing tag, and allocates nothing.
  */
 public class XPathMatcher {
     private final String expression;
 
+    private final Anchor anchor;
+
+    /**
+     * Tag steps, in the order they appear in the expression.
+     */
+    private final Step[] steps;
+
+    /**
+     * The trailing attribute step, if any.
+     */
+    @Nullable
+    private final Step attribute;
+
     public XPathMatcher(String expression) {
         this.expression = expression;
+
+        String path;
+        if (expression.startsWith("//")) {
+            anchor = Anchor.ANY_DEPTH;
+            path = expression.substring(2);
+        } else if (expression.startsWith("/")) {
+            anchor = Anchor.ROOT;
+            path = expression.substring(1);
+        } else {
+            anchor = Anchor.ROOT_CHILD;
+            path = expression;
+        }
+
+        List<Step> tagSteps = new ArrayList<>();
+        Step attributeStep = null;
+        for (String part : split(path)) {
+            if (attributeStep != null) {
+                // nothing can follow an attribute
+                tagSteps.add(Step.NEVER);
+            } else if (part.startsWith("@")) {
+                attributeStep = Step.parse(part.substring(1));
+            } else {
+                tagSteps.add(Step.parse(part));
+            }
+        }
+
+        this.steps = tagSteps.toArray(new Step[0]);
+        this.attribute = attributeStep;
     }
 
     public boolean matches(Cursor cursor) {
-        List<Xml.Tag> path = cursor.getPathAsStream()
-                .filter(p -> p instanceof Xml.Tag)
-                .map(Xml.Tag.class::cast)
-                .collect(Collectors.toList());
-
-        if (expression.startsWith("//") || !expression.startsWith("/")) {
-            List<String> parts = new ArrayList<>(Arrays.asList((expression.startsWith("//") ?
-                    expression.substring(2) : expression).split("/")));
-            Collections.reverse(parts);
-
-            int pathIndex = 0;
-            for (int i = 0; i < parts.size(); i++, pathIndex++) {
-                String part = parts.get(i);
-                if (part.startsWith("@")) {
-                    if (!(cursor.getTree() instanceof Xml.Attribute &&
-                            (((Xml.Attribute) cursor.getTree()).getKeyAsString().equals(part.substring(1))) ||
-                            part.substring(1).equals("*"))) {
-                        return false;
-                    }
+        Tree tree = cursor.getTree();
+        Cursor next = cursor;
+        if (attribute != null) {
+            if (!(tree instanceof Xml.Attribute) || !attribute.matches((Xml.Attribute) tree)) {
+                return false;
+            }
+            next = cursor.getParent();
+        } else if (!(tree instanceof Xml.Tag)) {
+            return false;
+        }
+
+        for (int i = steps.length - 1; i >= 0; i--) {
+            next = enclosingTag(next);
+            if (next == null || !steps[i].matches((Xml.Tag) next.getTree())) {
+                return false;
+            }
+            next = next.getParent();
+        }
 
-                    pathIndex--;
-                    continue;
+        switch (anchor) {
+            case ANY_DEPTH:
+                return true;
+            case ROOT:
+                return enclosingTag(next) == null;
+            case ROOT_CHILD:
+            default:
+                next = enclosingTag(next);
+                return next != null && enclosingTag(next.getParent()) == null;
+        }
+    }
+
+    @Nullable
+    private static Cursor enclosingTag(@Nullable Cursor cursor) {
+        while (cursor != null && !(cursor.getTree() instanceof Xml.Tag)) {
+            cursor = cursor.getParent();
+        }
+        return cursor;
+    }
+
+    /**
+     * Split on '/' except inside predicates, which may contain '/' in their literals.
+     */
+    private static List<String> split(String path) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        char quote = 0;
+        int start = 0;
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
                 }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                depth--;
+            } else if (c == '/' && depth == 0) {
+                parts.add(path.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(path.substring(start));
+        return parts;
+    }
 
-                if (path.size() < i + 1 || (!path.get(pathIndex).getName().equals(part) && !part.equals("*"))) {
-                    return false;
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private enum Anchor {
+        /**
+         * The expression begins with '//', so its first step may be at any depth.
+         */
+        ANY_DEPTH,
+
+        /**
+         * The expression begins with '/', so its first step is the root tag.
+         */
+        ROOT,
+
+        /**
+         * The expression is relative to the root tag, so its first step is a child of the root tag.
+         */
+        ROOT_CHILD
+    }
+
+    private static class Step {
+        /**
+         * Never matches, for steps that aren't supported (e.g. an empty step, as in 'a//b').
+         */
+        private static final Step NEVER = new Step("", new Predicate[0]) {
+            @Override
+            boolean matches(Xml.Tag tag) {
+                return false;
+            }
+        };
+
+        private final String name;
+        private final Predicate[] predicates;
+
+        private Step(String name, Predicate[] predicates) {
+            this.name = name;
+            this.predicates = predicates;
+        }
+
+        static Step parse(String step) {
+            int bracket = step.indexOf('[');
+            String name = bracket == -1 ? step : step.substring(0, bracket);
+            if (name.isEmpty()) {
+                return NEVER;
+            }
+
+            List<Predicate> predicates = new ArrayList<>();
+            for (int open = bracket; open != -1 && open < step.length(); ) {
+                if (step.charAt(open) != '[') {
+                    throw new IllegalArgumentException("Unexpected '" + step.charAt(open) + "' in XPath step '" + step + "'");
                 }
+                int close = closingBracket(step, open);
+                predicates.add(Predicate.parse(step.substring(open + 1, close).trim(), step));
+                open = close + 1;
             }
 
-            return expression.startsWith("/") || path.size() - pathIndex == 1;
-        } else if (expression.startsWith("/")) {
-            Collections.reverse(path);
-
-            String[] parts = expression.substring(1).split("/");
-            for (int i = 0; i < parts.length; i++) {
-                String part = parts[i];
-                if (part.startsWith("@")) {
-                    return cursor.getTree() instanceof Xml.Attribute &&
-                            (((Xml.Attribute) cursor.getTree()).getKeyAsString().equals(part.substring(1)) ||
-                                    part.substring(1).equals("*"));
+            return new Step(name, predicates.toArray(new Predicate[0]));
+        }
+
+        private static int closingBracket(String step, int open) {
+            char quote = 0;
+            for (int i = open + 1; i < step.length(); i++) {
+                char c = step.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if (c == ']') {
+                    return i;
                 }
+            }
+            throw new IllegalArgumentException("Unterminated predicate in XPath step '" + step + "'");
+        }
 
-                if (path.size() < i + 1 || (!path.get(i).getName().equals(part) && !part.equals("*"))) {
+        boolean matches(Xml.Tag tag) {
+            if (!name.equals("*") && !name.equals(tag.getName())) {
+                return false;
+            }
+            for (Predicate predicate : predicates) {
+                if (!predicate.matches(tag)) {
                     return false;
                 }
             }
+            return true;
+        }
+
+        boolean matches(Xml.Attribute attribute) {
+            return name.equals("*") || name.equals(attribute.getKeyAsString());
+        }
+    }
+
+    private static class Predicate {
+        private final boolean attribute;
+        private final String name;
+        private final String value;
+
+        private Predicate(boolean attribute, String name, String value) {
+            this.attribute = attribute;
+            this.name = name;
+            this.value = value;
+        }
+
+        static Predicate parse(String predicate, String step) {
+            int eq = predicate.indexOf('=');
+            if (eq == -1) {
+                throw new IllegalArgumentException("Only predicates of the form [name='value'] or [@name='value'] " +
+                        "are supported in XPath step '" + step + "'");
+            }
+
+            String name = predicate.substring(0, eq).trim();
+            String literal = predicate.substring(eq + 1).trim();
+            if (literal.length() < 2 || (literal.charAt(0) != '\'' && literal.charAt(0) != '"') ||
+                    literal.charAt(literal.length() - 1) != literal.charAt(0)) {
+                throw new IllegalArgumentException("Expected a quoted literal in XPath step '" + step + "'");
+            }
 
-            return cursor.getTree() instanceof Xml.Tag && path.size() == parts.length;
+            boolean attribute = name.startsWith("@");
+            return new Predicate(attribute, attribute ? name.substring(1) : name,
+                    literal.substring(1, literal.length() - 1));
         }
 
-        return false;
+        boolean matches(Xml.Tag tag) {
+            if (attribute) {
+                for (Xml.Attribute a : tag.getAttributes()) {
+                    if (a.getKeyAsString().equals(name)) {
+                        return a.getValueAsString().equals(value);
+                    }
+                }
+                return false;
+            }
+
+            if (tag.getContent() == null) {
+                return false;
+            }
+            for (Content content : tag.getContent()) {
+                if (content instanceof Xml.Tag) {
+                    Xml.Tag child = (Xml.Tag) content;
+                    if (child.getName().equals(name) && value.equals(child.getValue().orElse(null))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
     }
 }
@@ -16,35 +16,79 @@
 package org.openrewrite.xml;
 
 import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CodePointBuffer;
+import org.antlr.v4.runtime.CodePointCharStream;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.openrewrite.Parser;
-import org.openrewrite.internal.StringUtils;
 import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.refactor.Indentation;
 import org.openrewrite.xml.internal.XmlParserVisitor;
+import org.openrewrite.xml.internal.XmlScanner;
 import org.openrewrite.xml.internal.grammar.XMLLexer;
 import org.openrewrite.xml.internal.grammar.XMLParser;
+import org.openrewrite.xml.search.FindIndentXml;
 import org.openrewrite.xml.tree.Xml;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static java.util.stream.Collectors.toList;
 
 public class XmlParser implements Parser<Xml.Document> {
+    private final boolean scanner;
+
+    public XmlParser() {
+        this(false);
+    }
+
+    private XmlParser(boolean scanner) {
+        this.scanner = scanner;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
     @Override
     public List<Xml.Document> parseInputs(Iterable<Input> sourceFiles, @Nullable URI relativeTo) {
         return acceptedInputs(sourceFiles).stream()
                 .map(sourceFile -> {
                     try {
-                        XMLParser parser = new XMLParser(new CommonTokenStream(new XMLLexer(
-                                CharStreams.fromStream(sourceFile.getSource()))));
+                        // the lexer and the visitor share the one decoded copy of the source, so that token indices
+                        // are offsets into the same chars that the visitor slices formatting from
+                        CharBuffer source = readFully(sourceFile.getSource());
+
+                        Xml.Document document = null;
+                        if (scanner) {
+                            try {
+                                document = new XmlScanner(sourceFile.getRelativePath(relativeTo), source)
+                                        .scanDocument();
+                            } catch (XmlScanner.UnsupportedSyntaxException ignored) {
+                                // the grammar recovers from what it can't parse, so leave it to the grammar
+                            }
+                        }
 
-                        return new XmlParserVisitor(
-                                sourceFile.getRelativePath(relativeTo),
-                                StringUtils.readFully(sourceFile.getSource())
-                        ).visitDocument(parser.document());
+                        if (document == null) {
+                            XMLParser parser = new XMLParser(new CommonTokenStream(new XMLLexer(
+                                    CodePointCharStream.fromBuffer(CodePointBuffer.withChars(source), sourceFile.getUri().toString()))));
+
+                            document = new XmlParserVisitor(
+                                    sourceFile.getRelativePath(relativeTo),
+                                    source
+                            ).visitDocument(parser.document());
+                        }
+
+                        Indentation indentation = Indentation.build(document, FindIndentXml::new);
+                        document = document.withMarkers(document.getMarkers().addOrUpdate(indentation));
+                        indentation.attachedTo(document);
+                        return document;
                     } catch (IOException e) {
                         throw new UncheckedIOException(e);
                     }
@@ -52,6 +96,18 @@ public class XmlParser implements Parser<Xml.Document> {
                 .collect(toList());
     }
 
+    private static CharBuffer readFully(InputStream inputStream) throws IOException {
+        try (InputStream is = inputStream) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                bos.write(buffer, 0, n);
+            }
+            return StandardCharsets.UTF_8.decode(ByteBuffer.wrap(bos.toByteArray()));
+        }
+    }
+
     public Xml.Tag parseTag(String tag) {
         XMLParser parser = new XMLParser(new CommonTokenStream(new XMLLexer(
                 CharStreams.fromString(tag))));
@@ -62,4 +118,22 @@ public class XmlParser implements Parser<Xml.Document> {
     public boolean accept(URI path) {
         return path.toString().endsWith(".xml");
     }
+
+    public static class Builder {
+        private boolean scanner = false;
+
+        /**
+         * @param scanner Whether to parse with a hand-written, single-pass scanner rather than the ANTLR grammar.
+         *                Documents the scanner doesn't support are still parsed with the grammar.
+         * @return This builder.
+         */
+        public Builder scanner(boolean scanner) {
+            this.scanner = scanner;
+            return this;
+        }
+
+        public XmlParser build() {
+            return new XmlParser(scanner);
+        }
+    }
 }
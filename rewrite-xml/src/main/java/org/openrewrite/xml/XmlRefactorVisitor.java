@@ -16,14 +16,24 @@
 package org.openrewrite.xml;
 
 import org.openrewrite.AbstractRefactorVisitor;
+import org.openrewrite.SourceFile;
 import org.openrewrite.refactor.Formatter;
 import org.openrewrite.xml.search.FindIndentXml;
 import org.openrewrite.xml.tree.Xml;
 
+import java.util.Collection;
+
+import static java.util.Collections.singletonList;
+
 public class XmlRefactorVisitor extends AbstractRefactorVisitor<Xml>
         implements XmlSourceVisitor<Xml> {
     protected Formatter formatter;
 
+    @Override
+    public Collection<Class<? extends SourceFile>> getSourceTypes() {
+        return singletonList(Xml.Document.class);
+    }
+
     @Override
     public Xml visitDocument(Xml.Document document) {
         formatter = new Formatter(document, FindIndentXml::new);
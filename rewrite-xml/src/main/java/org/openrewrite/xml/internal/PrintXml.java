@@ -87,7 +87,7 @@ public class PrintXml extends AbstractXmlSourceVisitor<String> {
                 (docTypeDecl.getExternalSubsets() == null ?
                         "" :
                         fmt(docTypeDecl.getExternalSubsets(), "[" + visit(docTypeDecl.getExternalSubsets().getElements()) + "]")) +
-                ">");
+                docTypeDecl.getBeforeTagDelimiterPrefix() + ">");
     }
 
     @Override
@@ -38,11 +38,11 @@ import static org.openrewrite.Tree.randomId;
 
 public class XmlParserVisitor extends XMLParserBaseVisitor<Xml> {
     private final URI uri;
-    private final String source;
+    private final CharSequence source;
 
     private int cursor = 0;
 
-    public XmlParserVisitor(URI uri, String source) {
+    public XmlParserVisitor(URI uri, CharSequence source) {
         this.uri = uri;
         this.source = source;
     }
@@ -57,7 +57,7 @@ public class XmlParserVisitor extends XMLParserBaseVisitor<Xml> {
                 format,
                 Markers.EMPTY)
         );
-        return d == null ? null : d.withSuffix(source.substring(cursor));
+        return d == null ? null : d.withSuffix(source.subSequence(cursor, source.length()).toString());
     }
 
     @Override
@@ -283,7 +283,7 @@ public class XmlParserVisitor extends XMLParserBaseVisitor<Xml> {
         if (start < cursor) {
             return Formatting.EMPTY;
         }
-        String prefix = source.substring(cursor, start);
+        String prefix = source.subSequence(cursor, start).toString();
         cursor = start;
         return Formatting.format(prefix);
     }
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.xml.internal;
+
+import org.openrewrite.Formatting;
+import org.openrewrite.marker.Markers;
+import org.openrewrite.xml.tree.Content;
+import org.openrewrite.xml.tree.Misc;
+import org.openrewrite.xml.tree.Xml;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.openrewrite.Tree.randomId;
+
+/**
+ * A single-pass, format-preserving scanner that builds an {@link Xml.Document} directly from source, without first
+ * building a parse tree. It produces the same trees as {@link XmlParserVisitor} does from the ANTLR grammar, except
+ * that it keeps whitespace and content that the grammar loses: comments and character references inside tags,
+ * whitespace before CDATA sections and entity references, and the names of processing instructions like
+ * {@code <?xml-stylesheet ...?>}.
+ * <p>
+ * Syntax that the grammar doesn't support either, like internal DTD subsets, is reported with an
+ * {@link UnsupportedSyntaxException}.
+ */
+public class XmlScanner {
+    private final URI uri;
+    private final CharSequence source;
+
+    private int cursor = 0;
+
+    public XmlScanner(URI uri, CharSequence source) {
+        this.uri = uri;
+        this.source = source;
+    }
+
+    public Xml.Document scanDocument() {
+        String prefix = whitespace();
+        Xml.Prolog prolog = prolog();
+        Xml.Tag root = tag(whitespace());
+        return new Xml.Document(
+                randomId(),
+                uri.toString(),
+                prolog,
+                root,
+                Formatting.format(prefix, slice(cursor, source.length())),
+                Markers.EMPTY
+        );
+    }
+
+    private Xml.Prolog prolog() {
+        List<Xml.ProcessingInstruction> xmlDecls = new ArrayList<>();
+        List<Misc> misc = new ArrayList<>();
+        while (true) {
+            int start = cursor;
+            String prefix = whitespace();
+            if (misc.isEmpty() && lookingAt("<?xml")) {
+                xmlDecls.add(processingInstruction(prefix));
+            } else if (lookingAt("<!--")) {
+                misc.add(comment(prefix));
+            } else if (lookingAt("<!DOCTYPE")) {
+                misc.add(docTypeDecl(prefix));
+            } else if (lookingAt("<?")) {
+                misc.add(processingInstruction(prefix));
+            } else {
+                cursor = start;
+                break;
+            }
+        }
+        return new Xml.Prolog(randomId(), xmlDecls, misc, Formatting.EMPTY, Markers.EMPTY);
+    }
+
+    private Xml.ProcessingInstruction processingInstruction(String prefix) {
+        cursor += "<?".length();
+        String name = name();
+        List<Xml.Attribute> attributes = attributes();
+        String beforeTagDelimiterPrefix = whitespace();
+        expect("?>");
+        return new Xml.ProcessingInstruction(randomId(), name, attributes, beforeTagDelimiterPrefix,
+                Formatting.format(prefix), Markers.EMPTY);
+    }
+
+    private Xml.DocTypeDecl docTypeDecl(String prefix) {
+        cursor += "<!DOCTYPE".length();
+        Xml.Ident name = ident(whitespace(), name());
+
+        Xml.Ident externalId = null;
+        int start = cursor;
+        String externalIdPrefix = whitespace();
+        if (cursor < source.length() && isNameStartChar(source.charAt(cursor))) {
+            externalId = ident(externalIdPrefix, name());
+        } else {
+            cursor = start;
+        }
+
+        List<Xml.Ident> internalSubset = new ArrayList<>();
+        while (true) {
+            start = cursor;
+            String stringPrefix = whitespace();
+            if (lookingAt("\"") || lookingAt("'")) {
+                internalSubset.add(ident(stringPrefix, quoted()));
+            } else {
+                cursor = start;
+                break;
+            }
+        }
+
+        String beforeTagDelimiterPrefix = whitespace();
+        if (lookingAt("[")) {
+            throw new UnsupportedSyntaxException("internal DTD subset", cursor);
+        }
+        expect(">");
+
+        return new Xml.DocTypeDecl(randomId(), name, externalId, internalSubset, null, beforeTagDelimiterPrefix,
+                Formatting.format(prefix), Markers.EMPTY);
+    }
+
+    private Xml.Tag tag(String prefix) {
+        expect("<");
+        String name = name();
+        List<Xml.Attribute> attributes = attributes();
+        String beforeTagDelimiterPrefix = whitespace();
+
+        if (lookingAt("/>")) {
+            cursor += "/>".length();
+            return new Xml.Tag(randomId(), name, attributes, null, null, beforeTagDelimiterPrefix,
+                    Formatting.format(prefix), Markers.EMPTY);
+        }
+        expect(">");
+
+        List<Content> content = new ArrayList<>();
+        String closingPrefix;
+        while (true) {
+            int start = cursor;
+            String contentPrefix = whitespace();
+            if (lookingAt("</")) {
+                closingPrefix = contentPrefix;
+                break;
+            } else if (cursor >= source.length()) {
+                throw new UnsupportedSyntaxException("unclosed tag <" + name + ">", cursor);
+            } else if (lookingAt("<!--")) {
+                content.add(comment(contentPrefix));
+            } else if (lookingAt("<![CDATA[")) {
+                content.add(cdata(contentPrefix));
+            } else if (lookingAt("<")) {
+                content.add(tag(contentPrefix));
+            } else if (referenceLength(cursor) > 0) {
+                int end = cursor + referenceLength(cursor);
+                content.add(new Xml.CharData(randomId(), false, slice(cursor, end), Formatting.format(contentPrefix),
+                        Markers.EMPTY));
+                cursor = end;
+            } else {
+                cursor = start;
+                content.add(charData());
+            }
+        }
+
+        cursor += "</".length();
+        String closingName = name();
+        if (!closingName.equals(name)) {
+            throw new UnsupportedSyntaxException("closing tag </" + closingName + "> for <" + name + ">", cursor);
+        }
+        String closingBeforeTagDelimiterPrefix = whitespace();
+        expect(">");
+
+        Xml.Tag.Closing closing = new Xml.Tag.Closing(randomId(), closingName, closingBeforeTagDelimiterPrefix,
+                Formatting.format(closingPrefix), Markers.EMPTY);
+        return new Xml.Tag(randomId(), name, attributes, content, closing, beforeTagDelimiterPrefix,
+                Formatting.format(prefix), Markers.EMPTY);
+    }
+
+    private List<Xml.Attribute> attributes() {
+        List<Xml.Attribute> attributes = new ArrayList<>();
+        while (true) {
+            int start = cursor;
+            String prefix = whitespace();
+            if (cursor < source.length() && isNameStartChar(source.charAt(cursor))) {
+                attributes.add(attribute(prefix));
+            } else {
+                cursor = start;
+                return attributes;
+            }
+        }
+    }
+
+    private Xml.Attribute attribute(String prefix) {
+        String name = name();
+        String beforeEquals = whitespace();
+        expect("=");
+        String valuePrefix = whitespace();
+
+        Xml.Attribute.Value.Quote quote = lookingAt("'") ?
+                Xml.Attribute.Value.Quote.Single :
+                Xml.Attribute.Value.Quote.Double;
+        String quoted = quoted();
+
+        return new Xml.Attribute(
+                randomId(),
+                new Xml.Ident(randomId(), name, Formatting.format("", beforeEquals), Markers.EMPTY),
+                new Xml.Attribute.Value(randomId(), quote, quoted.substring(1, quoted.length() - 1),
+                        Formatting.format(valuePrefix), Markers.EMPTY),
+                Formatting.format(prefix),
+                Markers.EMPTY
+        );
+    }
+
+    private Xml.Comment comment(String prefix) {
+        int end = indexOf("-->", cursor + "<!--".length());
+        Xml.Comment comment = new Xml.Comment(randomId(), slice(cursor + "<!--".length(), end),
+                Formatting.format(prefix), Markers.EMPTY);
+        cursor = end + "-->".length();
+        return comment;
+    }
+
+    private Xml.CharData cdata(String prefix) {
+        int end = indexOf("]]>", cursor + "<![CDATA[".length());
+        Xml.CharData cdata = new Xml.CharData(randomId(), true, slice(cursor + "<![CDATA[".length(), end),
+                Formatting.format(prefix), Markers.EMPTY);
+        cursor = end + "]]>".length();
+        return cdata;
+    }
+
+    /**
+     * Character data runs up to the next markup or reference, so a '&amp;' that doesn't start a reference is just
+     * text. Like the grammar's TEXT, its leading and trailing whitespace become its formatting.
+     */
+    private Xml.CharData charData() {
+        int start = cursor;
+        while (cursor < source.length() && source.charAt(cursor) != '<' && referenceLength(cursor) == 0) {
+            cursor++;
+        }
+
+        int textStart = start;
+        while (textStart < cursor && Character.isWhitespace(source.charAt(textStart))) {
+            textStart++;
+        }
+        int textEnd = cursor;
+        while (textEnd > textStart && Character.isWhitespace(source.charAt(textEnd - 1))) {
+            textEnd--;
+        }
+
+        return new Xml.CharData(randomId(), false, slice(textStart, textEnd),
+                Formatting.format(slice(start, textStart), slice(textEnd, cursor)), Markers.EMPTY);
+    }
+
+    private Xml.Ident ident(String prefix, String name) {
+        return new Xml.Ident(randomId(), name, Formatting.format(prefix), Markers.EMPTY);
+    }
+
+    /**
+     * @return The length of the entity or character reference at the index, or 0 if there isn't one.
+     */
+    private int referenceLength(int index) {
+        if (index >= source.length() || source.charAt(index) != '&') {
+            return 0;
+        }
+
+        int i = index + 1;
+        if (i < source.length() && source.charAt(i) == '#') {
+            i++;
+            boolean hex = i < source.length() && source.charAt(i) == 'x';
+            if (hex) {
+                i++;
+            }
+            int digits = i;
+            while (i < source.length() && (hex ? Character.digit(source.charAt(i), 16) >= 0 :
+                    source.charAt(i) >= '0' && source.charAt(i) <= '9')) {
+                i++;
+            }
+            if (i == digits) {
+                return 0;
+            }
+        } else {
+            if (i >= source.length() || !isNameStartChar(source.charAt(i))) {
+                return 0;
+            }
+            while (i < source.length() && isNameChar(source.charAt(i))) {
+                i++;
+            }
+        }
+
+        return i < source.length() && source.charAt(i) == ';' ? i + 1 - index : 0;
+    }
+
+    private String name() {
+        int start = cursor;
+        if (cursor >= source.length() || !isNameStartChar(source.charAt(cursor))) {
+            throw new UnsupportedSyntaxException("expected a name", cursor);
+        }
+        do {
+            cursor++;
+        } while (cursor < source.length() && isNameChar(source.charAt(cursor)));
+        return slice(start, cursor);
+    }
+
+    /**
+     * @return A single or double quoted string, including its quotes.
+     */
+    private String quoted() {
+        if (!lookingAt("\"") && !lookingAt("'")) {
+            throw new UnsupportedSyntaxException("expected a quoted string", cursor);
+        }
+        char quote = source.charAt(cursor);
+        int end = indexOf(String.valueOf(quote), cursor + 1);
+        String quoted = slice(cursor, end + 1);
+        cursor = end + 1;
+        return quoted;
+    }
+
+    /**
+     * Whitespace as the grammar skips it between tokens.
+     */
+    private String whitespace() {
+        int start = cursor;
+        while (cursor < source.length()) {
+            char c = source.charAt(cursor);
+            if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                break;
+            }
+            cursor++;
+        }
+        return slice(start, cursor);
+    }
+
+    private boolean lookingAt(String s) {
+        if (cursor + s.length() > source.length()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (source.charAt(cursor + i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void expect(String s) {
+        if (!lookingAt(s)) {
+            throw new UnsupportedSyntaxException("expected '" + s + "'", cursor);
+        }
+        cursor += s.length();
+    }
+
+    private int indexOf(String s, int from) {
+        int saved = cursor;
+        for (cursor = from; cursor < source.length(); cursor++) {
+            if (lookingAt(s)) {
+                int found = cursor;
+                cursor = saved;
+                return found;
+            }
+        }
+        throw new UnsupportedSyntaxException("expected '" + s + "'", saved);
+    }
+
+    private String slice(int start, int end) {
+        return start == end ? "" : source.subSequence(start, end).toString();
+    }
+
+    /**
+     * Name characters per the <a href="https://www.w3.org/TR/xml/#NT-NameStartChar">spec</a>, which a name made of
+     * supplementary characters also satisfies, one surrogate at a time.
+     */
+    private static boolean isNameStartChar(char c) {
+        return c == ':' || (c >= 'A' && c <= 'Z') || c == '_' || (c >= 'a' && c <= 'z') ||
+                (c >= '\u00C0' && c <= '\u00D6') || (c >= '\u00D8' && c <= '\u00F6') ||
+                (c >= '\u00F8' && c <= '\u02FF') || (c >= '\u0370' && c <= '\u037D') ||
+                (c >= '\u037F' && c <= '\u1FFF') || (c >= '\u200C' && c <= '\u200D') ||
+                (c >= '\u2070' && c <= '\u218F') || (c >= '\u2C00' && c <= '\u2FEF') ||
+                (c >= '\u3001' && c <= '\uDFFF') || (c >= '\uF900' && c <= '\uFDCF') ||
+                (c >= '\uFDF0' && c <= '\uFFFD');
+    }
+
+    private static boolean isNameChar(char c) {
+        return isNameStartChar(c) || c == '-' || c == '.' || (c >= '0' && c <= '9') || c == '\u00B7' ||
+                (c >= '\u0300' && c <= '\u036F') || (c >= '\u203F' && c <= '\u2040');
+    }
+
+    public static class UnsupportedSyntaxException extends RuntimeException {
+        public UnsupportedSyntaxException(String message, int offset) {
+            super(message + " at offset " + offset);
+        }
+    }
+}
@@ -0,0 +1,506 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.xml.internal;
+
+import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.xml.tree.Content;
+import org.openrewrite.xml.tree.Xml;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.*;
+
+import static java.util.Collections.emptyIterator;
+import static java.util.Collections.emptyList;
+
+/**
+ * Presents an already parsed {@link Xml.Document} as a StAX event stream, so that data binding libraries
+ * that consume {@link XMLStreamReader} can read a model out of the tree without parsing the source again.
+ * <p>
+ * Only elements, attributes and character data are reported. Comments, processing instructions and
+ * the whitespace preserved in {@link org.openrewrite.Formatting} are not. Adjacent character data
+ * (e.g. text around an entity reference) is coalesced into a single {@link #CHARACTERS} event, and
+ * the predefined and numeric entity references are replaced. Names are reported as written, as with a
+ * reader that is not namespace aware.
+ */
+public class XmlTreeStreamReader implements XMLStreamReader {
+    private static final Location UNKNOWN_LOCATION = new Location() {
+        @Override
+        public int getLineNumber() {
+            return -1;
+        }
+
+        @Override
+        public int getColumnNumber() {
+            return -1;
+        }
+
+        @Override
+        public int getCharacterOffset() {
+            return -1;
+        }
+
+        @Nullable
+        @Override
+        public String getPublicId() {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public String getSystemId() {
+            return null;
+        }
+    };
+
+    private final Xml.Document document;
+
+    /**
+     * Tags that have been started but not yet ended, paired with the index of the next content to visit.
+     */
+    private final Deque<Frame> open = new ArrayDeque<>();
+
+    private int event = START_DOCUMENT;
+
+    @Nullable
+    private Xml.Tag tag;
+
+    @Nullable
+    private String text;
+
+    public XmlTreeStreamReader(Xml.Document document) {
+        this.document = document;
+    }
+
+    @Override
+    public int next() throws XMLStreamException {
+        switch (event) {
+            case START_DOCUMENT:
+                return start(document.getRoot());
+            case END_DOCUMENT:
+                throw new NoSuchElementException("Already at the end of the document");
+        }
+
+        Frame frame = open.peek();
+        if (frame == null) {
+            tag = null;
+            return event = END_DOCUMENT;
+        }
+
+        List<? extends Content> content = frame.tag.getContent() == null ? emptyList() : frame.tag.getContent();
+        StringBuilder characters = null;
+        for (; frame.next < content.size(); frame.next++) {
+            Content c = content.get(frame.next);
+            if (c instanceof Xml.CharData) {
+                Xml.CharData charData = (Xml.CharData) c;
+                if (characters == null) {
+                    characters = new StringBuilder();
+                }
+                characters.append(charData.isCdata() ? charData.getText() : unescape(charData.getText()));
+            } else if (c instanceof Xml.Tag) {
+                if (characters != null && characters.length() > 0) {
+                    break;
+                }
+                // empty character data, such as an empty CDATA section, is not reported as an event of its own
+                characters = null;
+                frame.next++;
+                return start((Xml.Tag) c);
+            }
+        }
+
+        if (characters != null && characters.length() > 0) {
+            tag = null;
+            text = characters.toString();
+            return event = CHARACTERS;
+        }
+
+        open.pop();
+        tag = frame.tag;
+        return event = END_ELEMENT;
+    }
+
+    private int start(Xml.Tag tag) {
+        this.tag = tag;
+        this.text = null;
+        open.push(new Frame(tag));
+        return event = START_ELEMENT;
+    }
+
+    private static String unescape(String text) {
+        int amp = text.indexOf('&');
+        if (amp == -1) {
+            return text;
+        }
+
+        StringBuilder unescaped = new StringBuilder(text.length());
+        int last = 0;
+        while (amp != -1) {
+            int semi = text.indexOf(';', amp);
+            if (semi == -1) {
+                break;
+            }
+
+            String replacement = entity(text.substring(amp + 1, semi));
+            if (replacement != null) {
+                unescaped.append(text, last, amp).append(replacement);
+                last = semi + 1;
+            }
+            amp = text.indexOf('&', amp + 1);
+        }
+
+        return unescaped.append(text, last, text.length()).toString();
+    }
+
+    @Nullable
+    private static String entity(String name) {
+        switch (name) {
+            case "lt":
+                return "<";
+            case "gt":
+                return ">";
+            case "amp":
+                return "&";
+            case "quot":
+                return "\"";
+            case "apos":
+                return "'";
+        }
+
+        if (name.startsWith("#")) {
+            try {
+                int codePoint = name.startsWith("#x") ?
+                        Integer.parseInt(name.substring(2), 16) :
+                        Integer.parseInt(name.substring(1));
+                return new String(Character.toChars(codePoint));
+            } catch (IllegalArgumentException ignored) {
+                // not a valid character reference, leave it as written
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return event != END_DOCUMENT;
+    }
+
+    @Override
+    public int getEventType() {
+        return event;
+    }
+
+    @Override
+    public int nextTag() throws XMLStreamException {
+        int next = next();
+        while (next == CHARACTERS && isWhiteSpace()) {
+            next = next();
+        }
+        if (next != START_ELEMENT && next != END_ELEMENT) {
+            throw new XMLStreamException("Expected a start or end tag");
+        }
+        return next;
+    }
+
+    @Override
+    public String getElementText() throws XMLStreamException {
+        if (event != START_ELEMENT) {
+            throw new XMLStreamException("Not positioned at a start tag");
+        }
+        StringBuilder elementText = new StringBuilder();
+        for (int next = next(); next != END_ELEMENT; next = next()) {
+            if (next != CHARACTERS) {
+                throw new XMLStreamException("Element text is not text-only");
+            }
+            elementText.append(text);
+        }
+        return elementText.toString();
+    }
+
+    @Override
+    public void require(int type, @Nullable String namespaceURI, @Nullable String localName) throws XMLStreamException {
+        if (type != event || (localName != null && !localName.equals(getLocalName()))) {
+            throw new XMLStreamException("Expected event " + type + (localName == null ? "" : " for " + localName));
+        }
+    }
+
+    @Override
+    public String getLocalName() {
+        return currentTag().getName();
+    }
+
+    @Override
+    public QName getName() {
+        return new QName(getLocalName());
+    }
+
+    @Override
+    public boolean hasName() {
+        return event == START_ELEMENT || event == END_ELEMENT;
+    }
+
+    @Nullable
+    @Override
+    public String getNamespaceURI() {
+        return null;
+    }
+
+    @Override
+    public String getPrefix() {
+        return "";
+    }
+
+    @Override
+    public int getAttributeCount() {
+        return currentTag().getAttributes().size();
+    }
+
+    @Override
+    public QName getAttributeName(int index) {
+        return new QName(getAttributeLocalName(index));
+    }
+
+    @Nullable
+    @Override
+    public String getAttributeNamespace(int index) {
+        return null;
+    }
+
+    @Override
+    public String getAttributeLocalName(int index) {
+        return currentTag().getAttributes().get(index).getKeyAsString();
+    }
+
+    @Override
+    public String getAttributePrefix(int index) {
+        return "";
+    }
+
+    @Override
+    public String getAttributeType(int index) {
+        return "CDATA";
+    }
+
+    @Override
+    public String getAttributeValue(int index) {
+        return unescape(currentTag().getAttributes().get(index).getValueAsString());
+    }
+
+    @Nullable
+    @Override
+    public String getAttributeValue(@Nullable String namespaceURI, String localName) {
+        for (Xml.Attribute attribute : currentTag().getAttributes()) {
+            if (attribute.getKeyAsString().equals(localName)) {
+                return unescape(attribute.getValueAsString());
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isAttributeSpecified(int index) {
+        return true;
+    }
+
+    @Override
+    public int getNamespaceCount() {
+        return 0;
+    }
+
+    @Nullable
+    @Override
+    public String getNamespacePrefix(int index) {
+        throw new IndexOutOfBoundsException("Namespaces are not reported");
+    }
+
+    @Nullable
+    @Override
+    public String getNamespaceURI(int index) {
+        throw new IndexOutOfBoundsException("Namespaces are not reported");
+    }
+
+    @Nullable
+    @Override
+    public String getNamespaceURI(String prefix) {
+        return null;
+    }
+
+    @Override
+    public NamespaceContext getNamespaceContext() {
+        return new NamespaceContext() {
+            @Nullable
+            @Override
+            public String getNamespaceURI(String prefix) {
+                return null;
+            }
+
+            @Nullable
+            @Override
+            public String getPrefix(String namespaceURI) {
+                return null;
+            }
+
+            @Override
+            public Iterator<String> getPrefixes(String namespaceURI) {
+                return emptyIterator();
+            }
+        };
+    }
+
+    @Override
+    public boolean isStartElement() {
+        return event == START_ELEMENT;
+    }
+
+    /**
+     * Not part of {@link XMLStreamReader}, but mirrors the StAX2 method of the same name so that a reader
+     * adapted to that API can distinguish a self-closing tag from a start tag with no content.
+     *
+     * @return Whether the reader is positioned at the start of a self-closing tag.
+     */
+    public boolean isEmptyElement() {
+        return event == START_ELEMENT && currentTag().getClosing() == null;
+    }
+
+    @Override
+    public boolean isEndElement() {
+        return event == END_ELEMENT;
+    }
+
+    @Override
+    public boolean isCharacters() {
+        return event == CHARACTERS;
+    }
+
+    @Override
+    public boolean isWhiteSpace() {
+        return event == CHARACTERS && currentText().trim().isEmpty();
+    }
+
+    @Override
+    public boolean hasText() {
+        return event == CHARACTERS;
+    }
+
+    @Override
+    public String getText() {
+        return currentText();
+    }
+
+    @Override
+    public char[] getTextCharacters() {
+        return currentText().toCharArray();
+    }
+
+    @Override
+    public int getTextCharacters(int sourceStart, char[] target, int targetStart, int length) {
+        String current = currentText();
+        int copied = Math.max(0, Math.min(length, current.length() - sourceStart));
+        current.getChars(sourceStart, sourceStart + copied, target, targetStart);
+        return copied;
+    }
+
+    @Override
+    public int getTextStart() {
+        return 0;
+    }
+
+    @Override
+    public int getTextLength() {
+        return currentText().length();
+    }
+
+    @Nullable
+    @Override
+    public String getEncoding() {
+        return null;
+    }
+
+    @Override
+    public Location getLocation() {
+        return UNKNOWN_LOCATION;
+    }
+
+    @Nullable
+    @Override
+    public String getVersion() {
+        return null;
+    }
+
+    @Override
+    public boolean isStandalone() {
+        return false;
+    }
+
+    @Override
+    public boolean standaloneSet() {
+        return false;
+    }
+
+    @Nullable
+    @Override
+    public String getCharacterEncodingScheme() {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public String getPITarget() {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public String getPIData() {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public Object getProperty(String name) {
+        return null;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private Xml.Tag currentTag() {
+        if (tag == null) {
+            throw new IllegalStateException("Not positioned at a start or end tag");
+        }
+        return tag;
+    }
+
+    private String currentText() {
+        if (text == null || event != CHARACTERS) {
+            throw new IllegalStateException("Not positioned at character data");
+        }
+        return text;
+    }
+
+    private static class Frame {
+        private final Xml.Tag tag;
+        private int next;
+
+        private Frame(Xml.Tag tag) {
+            this.tag = tag;
+        }
+    }
+}
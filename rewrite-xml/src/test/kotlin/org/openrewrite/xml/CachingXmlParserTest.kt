@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.xml
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.openrewrite.CachingParser
+import java.nio.file.Files
+import java.nio.file.Path
+
+class CachingXmlParserTest {
+    @Test
+    fun unchangedSourcesAreReadFromCache(@TempDir tempDir: Path) {
+        val cacheDir = tempDir.resolve("cache")
+        val a = tempDir.resolve("a.xml").apply { toFile().writeText("<a/>") }
+        val b = tempDir.resolve("b.xml").apply { toFile().writeText("<b/>") }
+
+        val parser = CachingParser.builder(XmlParser(), cacheDir).build()
+        val first = parser.parse(listOf(a, b), tempDir)
+
+        b.toFile().writeText("<b></b>")
+        val second = parser.parse(listOf(a, b), tempDir)
+
+        assertThat(second.map { it.sourcePath }).containsExactly("a.xml", "b.xml")
+        assertThat(second[0].id).isEqualTo(first[0].id)
+        assertThat(second[1].id).isNotEqualTo(first[1].id)
+        assertThat(second[1].printTrimmed()).isEqualTo("<b></b>")
+    }
+
+    @Test
+    fun removingADependentInputInvalidatesTheOthers(@TempDir tempDir: Path) {
+        val cacheDir = tempDir.resolve("cache")
+        val a = tempDir.resolve("a.xml").apply { toFile().writeText("<a/>") }
+        val b = tempDir.resolve("b.xml").apply { toFile().writeText("<b/>") }
+
+        val parser = CachingParser.builder(XmlParser(), cacheDir).dependentInputs(true).build()
+        val first = parser.parse(listOf(a, b), tempDir)
+
+        assertThat(parser.parse(listOf(a, b), tempDir)[0].id).isEqualTo(first[0].id)
+        assertThat(parser.parse(listOf(a), tempDir)[0].id).isNotEqualTo(first[0].id)
+    }
+
+    @Test
+    fun corruptEntriesAreParsedAgain(@TempDir tempDir: Path) {
+        val cacheDir = tempDir.resolve("cache")
+        val a = tempDir.resolve("a.xml").apply { toFile().writeText("<a/>") }
+
+        val parser = CachingParser.builder(XmlParser(), cacheDir).build()
+        parser.parse(listOf(a), tempDir)
+
+        Files.list(cacheDir).forEach { it.toFile().writeText("garbage") }
+
+        val reparsed = parser.parse(listOf(a), tempDir)
+        assertThat(reparsed[0].printTrimmed()).isEqualTo("<a/>")
+        assertThat(parser.parse(listOf(a), tempDir)[0].id).isEqualTo(reparsed[0].id)
+    }
+
+    @Test
+    fun evictLeastRecentlyUsedEntries(@TempDir tempDir: Path) {
+        val cacheDir = tempDir.resolve("cache")
+        val sources = (0 until 10).map { i ->
+            tempDir.resolve("$i.xml").apply { toFile().writeText("<root$i/>") }
+        }
+
+        val parser = CachingParser.builder(XmlParser(), cacheDir).maximumSize(1).build()
+        parser.parse(sources, tempDir)
+
+        assertThat(Files.list(cacheDir).count()).isLessThanOrEqualTo(1)
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.xml
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.openrewrite.refactor.FindIndent
+import org.openrewrite.refactor.Formatter
+import org.openrewrite.refactor.Indentation
+import org.openrewrite.xml.search.FindIndentXml
+import java.util.function.Function
+
+class IndentationTest {
+    private var measured = 0
+
+    private val findIndent = Function<Int, FindIndent> { enclosingIndent ->
+        measured++
+        FindIndentXml(enclosingIndent)
+    }
+
+    @Test
+    fun measuredAtParseTime() {
+        val doc = XmlParser().parse("""
+            <root>
+              <a/>
+              <b/>
+            </root>
+        """.trimIndent())[0]
+
+        val indentation = doc.markers.findFirst(Indentation::class.java).get()
+        assertThat(indentation.indentToUse).isEqualTo(2)
+        assertThat(indentation.isIndentedWithSpaces).isTrue()
+
+        repeat(3) {
+            assertThat(Formatter(doc, findIndent).wholeSourceIndent().indentToUse).isEqualTo(2)
+        }
+        assertThat(measured).isEqualTo(0)
+    }
+
+    @Test
+    fun measuredAgainOnceChanged() {
+        val doc = XmlParser().parse("""
+            <root>
+              <a/>
+            </root>
+        """.trimIndent())[0]
+
+        val changed = doc.withRoot(XmlParser().parse("""
+            <root>
+                <a/>
+            </root>
+        """.trimIndent())[0].root)
+
+        repeat(3) {
+            assertThat(Formatter(changed, findIndent).wholeSourceIndent().indentToUse).isEqualTo(4)
+        }
+        assertThat(measured).isEqualTo(1)
+    }
+}
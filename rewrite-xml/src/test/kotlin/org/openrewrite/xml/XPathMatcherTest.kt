@@ -60,6 +60,21 @@ class XPathMatcherTest : XmlParser() {
         assertTrue(visitor("//dependency/artifactId/@scope").visit(x))
     }
 
+    @Test
+    fun matchPredicates() {
+        assertTrue(visitor("/dependencies/dependency[artifactId='org.openrewrite']").visit(x))
+        assertTrue(visitor("//artifactId[@scope='compile']").visit(x))
+        assertTrue(visitor("//dependency[artifactId=\"org.openrewrite\"]/artifactId/@scope").visit(x))
+        assertFalse(visitor("//dependency[artifactId='org/openrewrite']").visit(x))
+        assertFalse(visitor("//artifactId[@scope='test']").visit(x))
+    }
+
+    @Test
+    fun attributeMustBelongToLastStep() {
+        assertFalse(visitor("/dependencies/@scope").visit(x))
+        assertFalse(visitor("/dependencies/dependency/@scope").visit(x))
+    }
+
     private fun visitor(xPath: String): XmlSourceVisitor<Boolean> {
         val matcher = XPathMatcher(xPath)
 
@@ -55,4 +55,14 @@ class XmlParserTest: XmlParser(), RefactorVisitorTestForParser<Xml.Document> {
             </project>
         """
     )
+
+    @Test
+    fun parseDocumentWithSupplementaryCharacters() = assertUnchanged(
+            before = """
+                <root>
+                  <a>😀 text</a>
+                  <b attr="😀"/>
+                </root>
+            """
+    )
 }
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.xml
+
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.junit.jupiter.api.Test
+import org.openrewrite.Tree
+import org.openrewrite.xml.internal.XmlScanner
+import org.openrewrite.xml.tree.Xml
+import java.net.URI
+import java.util.Random
+
+class XmlScannerTest {
+    private val scanner = XmlParser.builder().scanner(true).build()
+
+    /**
+     * Documents that the ANTLR grammar parses without losing anything, so both parsers must produce the same trees.
+     */
+    private val corpus = listOf(
+            """
+                <?xml
+                    version="1.0" encoding="UTF-8"?>
+                <!DOCTYPE beans PUBLIC "-//SPRING//DTD BEAN 2.0//EN"
+                    "http://www.springframework.org/dtd/spring-beans-2.0.dtd" >
+                <beans >
+                    <bean id="myBean"/>
+                </beans>
+            """.trimIndent(),
+            """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <!-- comment -->
+                <?pi target="x"?>
+                <project xmlns="http://maven.apache.org/POM/4.0.0" xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance"
+                  xsi:schemaLocation="http://maven.apache.org/POM/4.0.0 http://maven.apache.org/maven-v4_0_0.xsd">
+                  <modelVersion>4.0.0</modelVersion>
+                  <parent>
+                    <groupId>com.google.guava</groupId>
+                    <artifactId>guava-parent</artifactId>
+                    <version>28.2-jre</version>
+                  </parent>
+                  <name>Guava: Google Core Libraries for Java</name>
+                  <description>a &lt; b &amp;&amp; c</description>
+                </project>
+                <!-- trailing -->
+            """.trimIndent(),
+            """
+
+                <root a = 'single'	b=	"double" >text with 😀 in it<empty  /><ns:b-c.d attr="😀"></ns:b-c.d  ></root>
+            """.trimIndent(),
+            largePom(500)
+    ) + generatedCorpus(Random(0), 500, lossless = true)
+
+    @Test
+    fun sameTreesAsGrammar() {
+        for (source in corpus) {
+            val scanned = scanner.parse(source)[0]
+            val parsed = XmlParser().parse(source)[0]
+
+            assertThat(scanned.print()).isEqualTo(source)
+            assertThat(scanned.print()).isEqualTo(parsed.print())
+            assertThat(shape(scanned)).isEqualTo(shape(parsed))
+        }
+    }
+
+    @Test
+    fun keepsWhatTheGrammarLoses() {
+        val source = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <?xml-stylesheet href="mystyle.css" type="text/css"?>
+            <!DOCTYPE html>
+            <html>
+                <!-- a comment in content -->
+                <p>&#169; &#x1F600; &copy;</p>
+                <script>
+                    <![CDATA[ if (a < b) {} ]]>
+                </script>
+            </html>
+        """.trimIndent()
+
+        val doc = scanner.parse(source)[0]
+        assertThat(doc.print()).isEqualTo(source)
+        assertThat(doc.prolog.xmlDecls!!.map { it.name }).containsExactly("xml", "xml-stylesheet")
+        assertThat(doc.root.content!![0]).isInstanceOf(Xml.Comment::class.java)
+    }
+
+    @Test
+    fun printsGeneratedDocumentsUnchanged() {
+        for (source in generatedCorpus(Random(1), 1_000, lossless = false)) {
+            assertThat(scanner.parse(source)[0].print()).isEqualTo(source)
+        }
+    }
+
+    @Test
+    fun malformedAttributesAreUnsupported() {
+        for (source in listOf("<a x=y/>", "<a x=", "<a x='y", "<a x=\"y/>")) {
+            assertThatThrownBy { XmlScanner(URI.create("a.xml"), source).scanDocument() }
+                    .isInstanceOf(XmlScanner.UnsupportedSyntaxException::class.java)
+        }
+    }
+
+    @Test
+    fun unsupportedSyntaxIsLeftToGrammar() {
+        val source = """
+            <!DOCTYPE note PUBLIC "-//NOTE//EN" [<!ELEMENT note (#PCDATA)>]>
+            <note/>
+        """.trimIndent()
+
+        assertThatThrownBy { XmlScanner(URI.create("note.xml"), source).scanDocument() }
+                .isInstanceOf(XmlScanner.UnsupportedSyntaxException::class.java)
+        assertThat(scanner.parse(source)[0].print()).isEqualTo(XmlParser().parse(source)[0].print())
+    }
+
+    private fun shape(doc: Xml.Document): List<String> = object : AbstractXmlSourceVisitor<List<String>>() {
+        override fun defaultTo(t: Tree?): List<String> = emptyList()
+        override fun visitTree(tree: Tree): List<String> = listOf(tree.javaClass.simpleName + ":" + tree.print())
+    }.visit(doc)
+
+    /**
+     * Documents built from a seeded random choice of names, attributes, quotes, whitespace and content. When
+     * [lossless], they only contain what the grammar parses without losing anything, and otherwise they also contain
+     * comments, CDATA sections, references and text mixed with tags.
+     */
+    private fun generatedCorpus(random: Random, size: Int, lossless: Boolean): List<String> = (0 until size).map {
+        val source = StringBuilder()
+        if (random.nextBoolean()) {
+            source.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>").append(whitespace(random, 1))
+        }
+        if (random.nextBoolean()) {
+            source.append("<!-- generated $it -->").append(whitespace(random, 1))
+        }
+        element(random, source, 0, lossless)
+        source.append(whitespace(random, 0)).toString()
+    }
+
+    private fun element(random: Random, source: StringBuilder, depth: Int, lossless: Boolean) {
+        val name = listOf("a", "b-c.d", "ns:e", "_f1", "dependency")[random.nextInt(5)]
+        source.append('<').append(name)
+        for (i in 0 until random.nextInt(3)) {
+            val quote = if (random.nextBoolean()) '"' else '\''
+            source.append(whitespace(random, 1)).append("attr$i").append(whitespace(random, 0)).append('=')
+                    .append(whitespace(random, 0))
+                    .append(quote).append(listOf("", "value", "a b", "http://x/y?z=1", "😀")[random.nextInt(5)])
+                    .append(quote)
+        }
+        source.append(whitespace(random, 0))
+
+        if (depth > 3 || random.nextInt(4) == 0) {
+            source.append("/>")
+            return
+        }
+        source.append('>')
+
+        if (lossless) {
+            if (random.nextBoolean()) {
+                source.append("text ").append(random.nextInt(1000))
+            } else {
+                for (i in 0 until 1 + random.nextInt(3)) {
+                    source.append(whitespace(random, 1))
+                    element(random, source, depth + 1, lossless)
+                }
+                source.append(whitespace(random, 1))
+            }
+        } else {
+            for (i in 0 until random.nextInt(5)) {
+                source.append(whitespace(random, 0))
+                when (random.nextInt(5)) {
+                    0 -> element(random, source, depth + 1, lossless)
+                    1 -> source.append("text & more ").append(random.nextInt(1000))
+                    2 -> source.append("<!-- comment <b> -->")
+                    3 -> source.append("<![CDATA[ if (a < b) {} ]]>")
+                    else -> source.append(listOf("&amp;", "&#169;", "&#x1F600;")[random.nextInt(3)])
+                }
+            }
+            source.append(whitespace(random, 0))
+        }
+
+        source.append("</").append(name).append(whitespace(random, 0)).append('>')
+    }
+
+    private fun whitespace(random: Random, min: Int): String {
+        val whitespace = StringBuilder()
+        for (i in 0 until min + random.nextInt(3)) {
+            whitespace.append(" \t\n"[random.nextInt(3)])
+        }
+        return whitespace.toString()
+    }
+
+    private fun largePom(dependencies: Int): String {
+        val source = StringBuilder("""
+            <?xml version="1.0" encoding="UTF-8"?>
+            <project>
+              <groupId>org.openrewrite</groupId>
+              <artifactId>large</artifactId>
+              <version>1</version>
+              <dependencies>
+        """.trimIndent()).append("\n")
+        for (i in 0 until dependencies) {
+            source.append("    <dependency scope=\"compile\">\n")
+                    .append("      <groupId>org.openrewrite</groupId>\n")
+                    .append("      <artifactId>artifact$i</artifactId>\n")
+                    .append("      <version>1.0.$i</version>\n")
+                    .append("    </dependency>\n")
+        }
+        return source.append("  </dependencies>\n</project>\n").toString()
+    }
+}
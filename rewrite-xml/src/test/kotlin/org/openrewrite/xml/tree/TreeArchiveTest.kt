@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.xml.tree
+
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.openrewrite.TreeArchive
+import org.openrewrite.xml.XmlParser
+import java.io.RandomAccessFile
+import java.nio.file.Files
+import java.nio.file.Path
+
+class TreeArchiveTest {
+    private fun parse(tempDir: Path, name: String, xml: String): Xml.Document {
+        val source = tempDir.resolve(name).apply { toFile().writeText(xml) }
+        return XmlParser().parse(listOf(source), tempDir)[0]
+    }
+
+    @Test
+    fun readBySourcePathAfterReopening(@TempDir tempDir: Path) {
+        val archivePath = tempDir.resolve("sources.rwta")
+        val a = parse(tempDir, "a.xml", "<a/>")
+        val b = parse(tempDir, "b.xml", "<b/>")
+
+        TreeArchive.open<Xml.Document>(archivePath).use { it.append(listOf(a, b)) }
+
+        TreeArchive.open<Xml.Document>(archivePath).use { archive ->
+            assertThat(archive.sourcePaths).containsExactly("a.xml", "b.xml")
+            assertThat(archive.read("b.xml")).isEqualTo(b)
+            assertThat(archive.read("c.xml")).isNull()
+            assertThat(archive.toList()).containsExactly(a, b)
+        }
+    }
+
+    @Test
+    fun appendingReplacesEarlierFrameForTheSameSourcePath(@TempDir tempDir: Path) {
+        val archivePath = tempDir.resolve("sources.rwta")
+        val a = parse(tempDir, "a.xml", "<a/>")
+        val a2 = parse(tempDir, "a.xml", "<a></a>")
+
+        TreeArchive.open<Xml.Document>(archivePath).use { it.append(a) }
+        TreeArchive.open<Xml.Document>(archivePath).use { it.append(a2) }
+
+        TreeArchive.open<Xml.Document>(archivePath).use { archive ->
+            assertThat(archive.read("a.xml")!!.printTrimmed()).isEqualTo("<a></a>")
+            assertThat(archive.toList()).hasSize(1)
+        }
+    }
+
+    @Test
+    fun ignorePartiallyWrittenFrame(@TempDir tempDir: Path) {
+        val archivePath = tempDir.resolve("sources.rwta")
+        val a = parse(tempDir, "a.xml", "<a/>")
+        val b = parse(tempDir, "b.xml", "<b/>")
+
+        TreeArchive.open<Xml.Document>(archivePath).use { it.append(listOf(a, b)) }
+        RandomAccessFile(archivePath.toFile(), "rw").use { it.setLength(it.length() - 3) }
+
+        TreeArchive.open<Xml.Document>(archivePath).use { archive ->
+            assertThat(archive.sourcePaths).containsExactly("a.xml")
+            archive.append(b)
+        }
+
+        TreeArchive.open<Xml.Document>(archivePath).use { archive ->
+            assertThat(archive.toList()).containsExactly(a, b)
+        }
+    }
+
+    @Test
+    fun rewritingEverySourceDoesNotGrowTheArchive(@TempDir tempDir: Path) {
+        val archivePath = tempDir.resolve("sources.rwta")
+        val a = parse(tempDir, "a.xml", "<a/>")
+        val b = parse(tempDir, "b.xml", "<b/>")
+
+        TreeArchive.open<Xml.Document>(archivePath).use { it.append(listOf(a, b)) }
+        val size = Files.size(archivePath)
+
+        repeat(10) {
+            TreeArchive.open<Xml.Document>(archivePath).use { it.append(listOf(a, b)) }
+        }
+
+        assertThat(Files.size(archivePath)).isLessThanOrEqualTo(2 * size)
+        TreeArchive.open<Xml.Document>(archivePath).use { archive ->
+            assertThat(archive.toList()).containsExactly(a, b)
+        }
+    }
+
+    @Test
+    fun compactKeepsOnlyTheLatestFrames(@TempDir tempDir: Path) {
+        val archivePath = tempDir.resolve("sources.rwta")
+        val a = parse(tempDir, "a.xml", "<a/>")
+        val a2 = parse(tempDir, "a.xml", "<a></a>")
+        val b = parse(tempDir, "b.xml", "<b/>")
+
+        TreeArchive.open<Xml.Document>(archivePath).use { archive ->
+            archive.append(listOf(a, b, a2))
+            archive.compact()
+            assertThat(archive.toList()).containsExactly(a2, b)
+            archive.append(b)
+        }
+
+        TreeArchive.open<Xml.Document>(archivePath).use { archive ->
+            assertThat(archive.sourcePaths).containsExactly("a.xml", "b.xml")
+            assertThat(archive.read("a.xml")!!.printTrimmed()).isEqualTo("<a></a>")
+        }
+    }
+}
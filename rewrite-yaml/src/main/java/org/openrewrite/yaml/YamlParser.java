@@ -18,6 +18,8 @@ package org.openrewrite.yaml;
 import org.openrewrite.Formatting;
 import org.openrewrite.marker.Markers;
 import org.openrewrite.internal.lang.Nullable;
+import org.openrewrite.refactor.Indentation;
+import org.openrewrite.yaml.search.FindIndentYaml;
 import org.openrewrite.yaml.tree.Yaml;
 import org.yaml.snakeyaml.events.Event;
 import org.yaml.snakeyaml.events.ScalarEvent;
@@ -49,7 +51,12 @@ public class YamlParser implements org.openrewrite.Parser<Yaml.Documents> {
         return acceptedInputs(sourceFiles).stream()
                 .map(sourceFile -> {
                     try (InputStream is = sourceFile.getSource()) {
-                        return parseFromInput(sourceFile.getRelativePath(relativeTo), is);
+                        Yaml.Documents documents = parseFromInput(sourceFile.getRelativePath(relativeTo), is);
+
+                        Indentation indentation = Indentation.build(documents, FindIndentYaml::new);
+                        documents = documents.withMarkers(documents.getMarkers().addOrUpdate(indentation));
+                        indentation.attachedTo(documents);
+                        return documents;
                     } catch (IOException e) {
                         throw new UncheckedIOException(e);
                     }
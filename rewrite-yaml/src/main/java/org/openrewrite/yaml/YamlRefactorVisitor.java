@@ -16,15 +16,25 @@
 package org.openrewrite.yaml;
 
 import org.openrewrite.AbstractRefactorVisitor;
+import org.openrewrite.SourceFile;
 import org.openrewrite.refactor.Formatter;
 import org.openrewrite.yaml.search.FindIndentYaml;
 import org.openrewrite.yaml.tree.Yaml;
 
+import java.util.Collection;
+
+import static java.util.Collections.singletonList;
+
 public class YamlRefactorVisitor extends AbstractRefactorVisitor<Yaml>
         implements YamlSourceVisitor<Yaml> {
 
     protected Formatter formatter;
 
+    @Override
+    public Collection<Class<? extends SourceFile>> getSourceTypes() {
+        return singletonList(Yaml.Documents.class);
+    }
+
     @Override
     public Yaml visitDocuments(Yaml.Documents documents) {
         formatter = new Formatter(documents, FindIndentYaml::new);
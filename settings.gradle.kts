@@ -6,5 +6,6 @@ include(
         "rewrite-properties",
         "rewrite-xml",
         "rewrite-yaml",
-        "rewrite-test"
+        "rewrite-test",
+        "rewrite-benchmarks"
 )